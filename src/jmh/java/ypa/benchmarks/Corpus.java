@@ -0,0 +1,160 @@
+package ypa.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ypa.model.YGeometry;
+import ypa.model.YPuzzle;
+
+/**
+ * Puzzles to run benchmarks on: a generated corpus for a board size and a
+ * number of pre-filled cells, followed by the shipped {@code puzzles/*.txt}
+ * that fit the board size.
+ * A benchmark takes the puzzles round-robin with {@link #next()}.
+ * The corpus is larger than the shared solution cache,
+ * so that solvers cannot answer from the cache alone.
+ */
+@State(Scope.Thread)
+public class Corpus {
+
+    /** Number of generated puzzles; exceeds the solution cache capacity. */
+    static final int GENERATED = 2048;
+
+    /** Directory of the shipped puzzles, relative to the project directory. */
+    static final String SHIPPED = "puzzles";
+
+    /** Seed for generating the corpus, so that runs are comparable. */
+    private static final long SEED = 20241017L;
+
+    /** Number of rows and columns of the board. */
+    @Param({"3", "4"})
+    public int size;
+
+    /** Number of cells pre-filled from the solution. */
+    @Param({"0", "2", "4"})
+    public int filled;
+
+    /** The puzzles. */
+    private List<YPuzzle> puzzles;
+
+    /** Index of the next puzzle. */
+    private int next;
+
+    /**
+     * Generates the corpus and reads the shipped puzzles.
+     *
+     * @throws IOException  if the shipped puzzles cannot be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        puzzles = build(size, filled);
+        next = 0;
+    }
+
+    /**
+     * Builds a corpus: generated puzzles followed by the shipped puzzles
+     * of the same board size.
+     *
+     * @param size  the number of rows and columns
+     * @param filled  the number of cells to pre-fill in generated puzzles
+     * @return the puzzles
+     * @throws IOException  if the shipped puzzles cannot be read
+     */
+    static List<YPuzzle> build(final int size, final int filled) throws IOException {
+        final YGeometry geometry = new YGeometry(size, size);
+        final Random random = new Random(SEED);
+        final List<YPuzzle> result = new ArrayList<>();
+        for (int i = 0; i < GENERATED; ++i) {
+            result.add(generate(geometry, filled, random));
+        }
+        for (YPuzzle puzzle : shipped()) {
+            if (puzzle.getGeometry().equals(geometry)) {
+                result.add(puzzle);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the next puzzle, round-robin.
+     *
+     * @return the next puzzle
+     */
+    public YPuzzle next() {
+        final YPuzzle result = puzzles.get(next);
+        next = (next + 1) % puzzles.size();
+        return result;
+    }
+
+    /**
+     * Generates a solvable puzzle: the circle sums of a random arrangement
+     * of the digits, with some of its cells pre-filled.
+     *
+     * @param geometry  the board geometry
+     * @param filled  the number of cells to pre-fill
+     * @param random  the source of randomness
+     * @return the puzzle
+     */
+    static YPuzzle generate(final YGeometry geometry, final int filled,
+            final Random random) {
+        final int cellCount = geometry.getCellCount();
+        final List<Integer> digits = new ArrayList<>();
+        for (int d = 1; d <= geometry.getMaxDigit(); ++d) {
+            digits.add(d);
+        }
+        Collections.shuffle(digits, random);
+        final int[][] circleCells = geometry.getCircleCells();
+        final int[] circles = new int[circleCells.length];
+        for (int c = 0; c < circles.length; ++c) {
+            for (int cell : circleCells[c]) {
+                circles[c] += digits.get(cell);
+            }
+        }
+        final YPuzzle puzzle = new YPuzzle(geometry, circles, "generated");
+        final List<Integer> cells = new ArrayList<>();
+        for (int i = 0; i < cellCount; ++i) {
+            cells.add(i);
+        }
+        Collections.shuffle(cells, random);
+        for (int cell : cells.subList(0, Math.min(filled, cellCount))) {
+            puzzle.getGrid().setCell(cell, digits.get(cell));
+        }
+        return puzzle;
+    }
+
+    /**
+     * Reads the shipped puzzles.
+     *
+     * @return the shipped puzzles, or none if the directory is absent
+     * @throws IOException  if a puzzle cannot be read
+     */
+    static List<YPuzzle> shipped() throws IOException {
+        final Path dir = Paths.get(SHIPPED);
+        final List<YPuzzle> result = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return result;
+        }
+        final List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(p -> p.toString().endsWith(".txt"))
+                    .sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            result.add(new YPuzzle(new Scanner(file), file.getFileName().toString()));
+        }
+        return result;
+    }
+
+}
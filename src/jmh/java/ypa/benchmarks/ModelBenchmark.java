@@ -0,0 +1,58 @@
+package ypa.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ypa.model.YCell;
+import ypa.model.YGrid;
+
+/**
+ * Benchmarks of hot paths of the model, on the puzzles of a {@link Corpus}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    /**
+     * Finds the cells that violate the rules, as done after every move.
+     *
+     * @param corpus  the puzzles
+     * @return the violated cells
+     */
+    @Benchmark
+    public List<YCell> getViolatedCells(final Corpus corpus) {
+        return corpus.next().getViolatedCells();
+    }
+
+    /**
+     * Clones a grid, as done for the background worker.
+     *
+     * @param corpus  the puzzles
+     * @return the clone
+     */
+    @Benchmark
+    public YGrid cloneGrid(final Corpus corpus) {
+        return corpus.next().getGrid().clone();
+    }
+
+    /**
+     * Copies a grid with the copy constructor.
+     *
+     * @param corpus  the puzzles
+     * @return the copy
+     */
+    @Benchmark
+    public YGrid copyGrid(final Corpus corpus) {
+        return new YGrid(corpus.next().getGrid());
+    }
+
+}
@@ -0,0 +1,115 @@
+package ypa.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ypa.command.CompoundCommand;
+import ypa.model.YPuzzle;
+import ypa.reasoning.BasicEmptyCellByContradiction;
+import ypa.reasoning.EntryWithOneEmptyCell;
+import ypa.reasoning.FixpointReasoner;
+import ypa.reasoning.GeneralizedEmptyCellByContradiction;
+import ypa.reasoning.PropagationReasoner;
+import ypa.reasoning.Reasoner;
+
+/**
+ * Benchmarks of one application of each reasoner, on a corpus as built by
+ * {@link Corpus}. The commands of a successful application are reverted,
+ * so that every puzzle is reasoned about from its original state.
+ * Only 3x3 boards are benchmarked by default, since reasoning by
+ * contradiction takes seconds per application on larger boards;
+ * run with {@code -p size=4} to include them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReasonerBenchmark {
+
+    /** Number of rows and columns of the board. */
+    @Param({"3"})
+    public int size;
+
+    /** Number of cells pre-filled from the solution. */
+    @Param({"0", "2", "4"})
+    public int filled;
+
+    /** The reasoner to benchmark. */
+    @Param({"entry", "basic", "generalized", "propagation", "fixpoint"})
+    public String reasoner;
+
+    /** One reasoner per puzzle of the corpus. */
+    private List<Reasoner> reasoners;
+
+    /** Index of the next reasoner. */
+    private int next;
+
+    /**
+     * Builds the corpus and creates a reasoner per puzzle.
+     *
+     * @throws IOException  if the shipped puzzles cannot be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        reasoners = new ArrayList<>();
+        for (YPuzzle puzzle : Corpus.build(size, filled)) {
+            reasoners.add(create(reasoner, puzzle));
+        }
+        next = 0;
+    }
+
+    /**
+     * Creates a reasoner by name.
+     *
+     * @param name  the name of the reasoner
+     * @param puzzle  the puzzle to reason about
+     * @return the reasoner
+     */
+    static Reasoner create(final String name, final YPuzzle puzzle) {
+        switch (name) {
+            case "entry":
+                return new EntryWithOneEmptyCell(puzzle);
+            case "basic":
+                return new BasicEmptyCellByContradiction(puzzle);
+            case "generalized":
+                return new GeneralizedEmptyCellByContradiction(puzzle);
+            case "propagation":
+                return new PropagationReasoner(puzzle);
+            case "fixpoint":
+                return new FixpointReasoner(puzzle, new EntryWithOneEmptyCell(puzzle));
+            default:
+                throw new IllegalArgumentException("unknown reasoner " + name);
+        }
+    }
+
+    /**
+     * Applies the reasoner to the next puzzle once, and reverts its commands.
+     *
+     * @return the commands, or {@code null} on a contradiction
+     */
+    @Benchmark
+    public CompoundCommand apply() {
+        final Reasoner current = reasoners.get(next);
+        next = (next + 1) % reasoners.size();
+        final CompoundCommand command = current.apply();
+        if (command != null && command.size() > 0) {
+            command.revert();
+        }
+        return command;
+    }
+
+}
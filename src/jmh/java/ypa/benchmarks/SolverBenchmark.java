@@ -0,0 +1,81 @@
+package ypa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ypa.model.YPuzzle;
+import ypa.solvers.ParallelSearch;
+import ypa.solvers.YBacktrackSolver;
+
+/**
+ * Benchmarks of the solvers, on the puzzles of a {@link Corpus}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    /**
+     * Solves a puzzle; the puzzle itself is not modified.
+     *
+     * @param corpus  the puzzles
+     * @return whether the puzzle was solved
+     */
+    @Benchmark
+    public boolean solve(final Corpus corpus) {
+        return new YBacktrackSolver(corpus.next(), null).solve();
+    }
+
+    /**
+     * Checks whether a puzzle is solvable.
+     *
+     * @param corpus  the puzzles
+     * @return whether the puzzle is solvable
+     */
+    @Benchmark
+    public boolean isSolvable(final Corpus corpus) {
+        return new YBacktrackSolver(corpus.next(), null).isSolvable();
+    }
+
+    /**
+     * Streams all solutions of a puzzle, as the background worker does
+     * when not stopping at the first solution.
+     *
+     * @param corpus  the puzzles
+     * @param blackhole  sink for the solutions
+     * @return the number of solutions
+     */
+    @Benchmark
+    public int findAllSolutions(final Corpus corpus, final Blackhole blackhole) {
+        return new YBacktrackSolver(corpus.next(), null).findSolutions(digits -> {
+            blackhole.consume(digits);
+            return true;
+        });
+    }
+
+    /**
+     * Streams all solutions of a puzzle, split across cores.
+     *
+     * @param corpus  the puzzles
+     * @param blackhole  sink for the solutions
+     * @return the number of solutions
+     */
+    @Benchmark
+    public long findAllSolutionsParallel(final Corpus corpus, final Blackhole blackhole) {
+        final YPuzzle puzzle = corpus.next();
+        return new ParallelSearch(puzzle.getGeometry(), puzzle.getCircles())
+                .forEachSolution(puzzle.getGrid(), digits -> {
+                    blackhole.consume(digits);
+                    return true;
+                });
+    }
+
+}
@@ -0,0 +1,7 @@
+/**
+ * Package holding JMH benchmarks of the solvers, the reasoners and
+ * hot paths of the model.
+ * The benchmarks are only compiled with the {@code jmh} Maven profile;
+ * see the project README for how to run them.
+ */
+package ypa.benchmarks;
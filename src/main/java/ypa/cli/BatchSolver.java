@@ -0,0 +1,549 @@
+package ypa.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import ypa.generator.DifficultyGrader;
+import ypa.model.CanonicalForm;
+import ypa.model.SumCombinations;
+import ypa.model.YPuzzle;
+import ypa.solvers.BitmaskSearch;
+
+/**
+ * Headless batch runner that solves many puzzles across a thread pool.
+ * Puzzles are read in the format of {@link YPuzzle#YPuzzle(Scanner, String)},
+ * either one per file (all {@code .txt} files of a directory, or given files),
+ * or, with {@code --lines}, one per line of the given files.
+ * <p>
+ * For every puzzle one line is printed, in input order:
+ * its name, whether it is solvable, whether its solution is unique,
+ * a solution (rows separated by {@code /}) and the time taken;
+ * with {@code --grade}, followed by its {@link DifficultyGrader} grade.
+ * With {@code --dedup}, a puzzle that is a rotation or reflection of an
+ * earlier one (same {@link CanonicalForm}) is skipped.
+ * A summary with the throughput in puzzles per second and the
+ * 50th and 99th percentile latencies follows.
+ * <p>
+ * Usage: {@code java ypa.cli.BatchSolver [--threads N] [--lines] [--grade] [--dedup] path...}
+ */
+public class BatchSolver {
+
+    /** Extension of puzzle files in a directory. */
+    private static final String EXTENSION = ".txt";
+
+    /** Nanoseconds per millisecond. */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /** Nanoseconds per second. */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /** The options without an argument. */
+    private static final Set<String> FLAGS = Set.of("--lines", "--grade", "--dedup");
+
+    /** Number of worker threads. */
+    private final int threads;
+
+    /** Grader for the solvable puzzles, or {@code null} to not grade. */
+    private DifficultyGrader grader;
+
+    /** Whether to skip puzzles equivalent to an earlier one. */
+    private boolean deduplicate;
+
+    /**
+     * Constructs a batch solver.
+     *
+     * @param threads  the number of worker threads
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code threads > 0}
+     */
+    public BatchSolver(final int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: threads == " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the grader for the solvable puzzles.
+     *
+     * @param grader  the grader, or {@code null} to not grade
+     */
+    public void setGrader(final DifficultyGrader grader) {
+        this.grader = grader;
+    }
+
+    /**
+     * Sets whether to skip puzzles that are a rotation or reflection
+     * of an earlier one.
+     *
+     * @param deduplicate  whether to skip equivalent puzzles
+     */
+    public void setDeduplicate(final boolean deduplicate) {
+        this.deduplicate = deduplicate;
+    }
+
+    /**
+     * Runs the batch solver on the command line arguments.
+     * Invalid arguments make it print the usage and exit with code 2.
+     *
+     * @param args  options and paths, see the class description
+     */
+    public static void main(final String[] args) {
+        final Set<String> flags = new HashSet<>();
+        final List<Path> paths = new ArrayList<>();
+        final int threads = parse(args, flags, paths);
+        if (threads <= 0 || paths.isEmpty()) {
+            System.err.println("Usage: java " + BatchSolver.class.getName()
+                    + " [--threads N] [--lines] [--grade] [--dedup] path...");
+            System.exit(2);
+        }
+        try {
+            final List<Source> sources = new ArrayList<>();
+            for (Path path : paths) {
+                sources.addAll(collect(path, flags.contains("--lines")));
+            }
+            final BatchSolver solver = new BatchSolver(threads);
+            if (flags.contains("--grade")) {
+                solver.setGrader(new DifficultyGrader());
+            }
+            solver.setDeduplicate(flags.contains("--dedup"));
+            solver.run(sources, System.out);
+        } catch (IOException e) {
+            System.err.println("Cannot read puzzles: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args  options and paths, see the class description
+     * @param flags  the set to add the given options without an argument to
+     * @param paths  the list to add the given paths to
+     * @return the number of threads, by default the number of processors;
+     *     0 if an option is unknown or the number of threads is not positive
+     */
+    static int parse(final String[] args, final Set<String> flags, final List<Path> paths) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; ++i) {
+            final String arg = args[i];
+            if ("--threads".equals(arg)) {
+                threads = ++i < args.length ? parseThreads(args[i]) : 0;
+                if (threads <= 0) {
+                    return 0;
+                }
+            } else if (FLAGS.contains(arg)) {
+                flags.add(arg);
+            } else if (arg.startsWith("-")) {
+                return 0;
+            } else {
+                paths.add(Paths.get(arg));
+            }
+        }
+        return threads;
+    }
+
+    /**
+     * Parses the argument of {@code --threads}.
+     *
+     * @param text  the argument
+     * @return the number of threads, or 0 if {@code text} is not a positive number
+     */
+    private static int parseThreads(final String text) {
+        try {
+            return Math.max(Integer.parseInt(text), 0);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Collects the puzzles at a path.
+     *
+     * @param path  a puzzle file, or a directory of puzzle files
+     * @param lines  whether files hold one puzzle per line
+     * @return the puzzles, in name order
+     * @throws IOException  if the path cannot be read
+     */
+    public static List<Source> collect(final Path path, final boolean lines)
+            throws IOException {
+        final List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> stream = Files.list(path)) {
+                files = stream.filter(p -> p.toString().endsWith(EXTENSION))
+                        .sorted().collect(Collectors.toList());
+            }
+        } else {
+            files = List.of(path);
+        }
+        final List<Source> result = new ArrayList<>();
+        for (Path file : files) {
+            final String name = file.getFileName().toString();
+            if (lines) {
+                final List<String> all = Files.readAllLines(file, StandardCharsets.UTF_8);
+                for (int i = 0; i < all.size(); ++i) {
+                    if (!all.get(i).isBlank()) {
+                        result.add(new Source(name + ":" + (i + 1), all.get(i)));
+                    }
+                }
+            } else {
+                result.add(new Source(name, Files.readString(file, StandardCharsets.UTF_8)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Solves the puzzles across the thread pool, and prints a line per puzzle,
+     * in input order, followed by a summary.
+     *
+     * @param sources  the puzzles
+     * @param out  the stream to print to
+     * @return the outcomes, in input order
+     */
+    public List<Outcome> run(final List<Source> sources, final PrintStream out) {
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final long start = System.nanoTime();
+        final List<Outcome> outcomes = new ArrayList<>();
+        final List<Source> distinct = deduplicate ? deduplicate(sources) : sources;
+        if (distinct.size() < sources.size()) {
+            out.println((sources.size() - distinct.size()) + " equivalent puzzles skipped");
+        }
+        try {
+            final List<Future<Outcome>> futures = new ArrayList<>();
+            for (Source source : distinct) {
+                futures.add(pool.submit(() -> solve(source, grader)));
+            }
+            for (int i = 0; i < futures.size(); ++i) {
+                final Outcome outcome = await(futures.get(i), distinct.get(i), start);
+                out.println(outcome);
+                outcomes.add(outcome);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        out.println(summary(outcomes, System.nanoTime() - start));
+        return outcomes;
+    }
+
+    /**
+     * Waits for the outcome of a puzzle; if solving it threw,
+     * the outcome reports that as its error.
+     *
+     * @param future  the future outcome
+     * @param source  the puzzle
+     * @param start  the start of the run, as by {@code System.nanoTime()}
+     * @return the outcome
+     * @throws InterruptedException  if interrupted while waiting
+     */
+    private static Outcome await(final Future<Outcome> future, final Source source,
+            final long start) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return failure(source, start, "failed: " + e.getCause());
+        }
+    }
+
+    /**
+     * Drops the puzzles that are a rotation or reflection of an earlier one.
+     * Puzzles that cannot be parsed are kept, so that their error is reported.
+     *
+     * @param sources  the puzzles
+     * @return the first puzzle of every class of equivalent puzzles, in input order
+     */
+    public static List<Source> deduplicate(final List<Source> sources) {
+        final Set<CanonicalForm> seen = new HashSet<>();
+        final List<Source> result = new ArrayList<>();
+        for (Source source : sources) {
+            boolean first = true;
+            try {
+                first = seen.add(CanonicalForm.of(
+                        new YPuzzle(new Scanner(source.getText()), source.getName())));
+            } catch (RuntimeException e) {
+                // reported when solved
+            }
+            if (first) {
+                result.add(source);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses and solves one puzzle, timing both.
+     *
+     * @param source  the puzzle
+     * @return the outcome
+     */
+    public static Outcome solve(final Source source) {
+        return solve(source, null);
+    }
+
+    /**
+     * Parses, solves and possibly grades one puzzle, timing all.
+     * An exception while doing so is reported as the error of the outcome.
+     *
+     * @param source  the puzzle
+     * @param grader  the grader for a solvable puzzle, or {@code null}
+     * @return the outcome
+     */
+    public static Outcome solve(final Source source, final DifficultyGrader grader) {
+        final long start = System.nanoTime();
+        final YPuzzle puzzle;
+        try {
+            puzzle = new YPuzzle(new Scanner(source.getText()), source.getName());
+        } catch (RuntimeException e) {
+            return failure(source, start, "cannot parse: " + e.getMessage());
+        }
+        try {
+            return solve(source, puzzle, grader, start);
+        } catch (RuntimeException e) {
+            return failure(source, start, "failed: " + e);
+        }
+    }
+
+    /**
+     * Solves and possibly grades a parsed puzzle.
+     *
+     * @param source  the puzzle text
+     * @param puzzle  the parsed puzzle
+     * @param grader  the grader for a solvable puzzle, or {@code null}
+     * @param start  the start of the timing, as by {@code System.nanoTime()}
+     * @return the outcome
+     */
+    private static Outcome solve(final Source source, final YPuzzle puzzle,
+            final DifficultyGrader grader, final long start) {
+        final BitmaskSearch search = new BitmaskSearch(puzzle.getGeometry(),
+                puzzle.getCircles());
+        // one pass finds the first solution and whether there is a second
+        final int[][] first = new int[1][];
+        final int count = !search.load(puzzle.getGrid()) ? 0
+                : search.forEachSolution(digits -> {
+                    if (first[0] != null) {
+                        return false;
+                    }
+                    first[0] = digits.clone();
+                    return true;
+                });
+        final String formatted = format(first[0], puzzle.getColumnCount(),
+                puzzle.getGrid().getMaxDigit());
+        final DifficultyGrader.Grade grade = grader != null && count > 0
+                ? grader.grade(puzzle) : null;
+        return new Outcome(source.getName(), count, formatted, System.nanoTime() - start,
+                null, grade);
+    }
+
+    /**
+     * Makes the outcome of a puzzle that could not be solved.
+     *
+     * @param source  the puzzle
+     * @param start  the start of the timing, as by {@code System.nanoTime()}
+     * @param error  the error message
+     * @return the outcome
+     */
+    private static Outcome failure(final Source source, final long start, final String error) {
+        return new Outcome(source.getName(), 0, null, System.nanoTime() - start, error, null);
+    }
+
+    /**
+     * Formats a solution as rows of digits separated by {@code /};
+     * the digits of a row are separated by spaces if some have two figures.
+     *
+     * @param digits  the digits of the cells, or {@code null}
+     * @param columns  the number of columns
+     * @param maxDigit  the largest digit
+     * @return the formatted solution, or {@code null} if {@code digits == null}
+     */
+    private static String format(final int[] digits, final int columns, final int maxDigit) {
+        if (digits == null) {
+            return null;
+        }
+        final String separator = maxDigit > SumCombinations.MAX_DIGIT ? " " : "";
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < digits.length; ++i) {
+            if (i > 0) {
+                builder.append(i % columns == 0 ? "/" : separator);
+            }
+            builder.append(digits[i]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Summarizes the outcomes of a run.
+     *
+     * @param outcomes  the outcomes
+     * @param elapsed  the wall-clock time of the run, in nanoseconds
+     * @return the summary line
+     */
+    static String summary(final List<Outcome> outcomes, final long elapsed) {
+        final long[] latencies = new long[outcomes.size()];
+        int solvable = 0;
+        for (int i = 0; i < latencies.length; ++i) {
+            latencies[i] = outcomes.get(i).getNanos();
+            solvable += outcomes.get(i).isSolvable() ? 1 : 0;
+        }
+        Arrays.sort(latencies);
+        return String.format("%d puzzles (%d solvable) in %.3f s: %.1f puzzles/s,"
+                + " p50 %.3f ms, p99 %.3f ms",
+                latencies.length, solvable, elapsed / NANOS_PER_SECOND,
+                latencies.length * NANOS_PER_SECOND / Math.max(elapsed, 1),
+                percentile(latencies, 50) / NANOS_PER_MILLI,
+                percentile(latencies, 99) / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Gets a percentile of sorted values, by the nearest-rank method.
+     *
+     * @param sorted  the values, in ascending order
+     * @param percent  the percentile, from 1 to 100
+     * @return the smallest value such that at least {@code percent} percent
+     *     of the values are at most that value; 0 if there are no values
+     */
+    static long percentile(final long[] sorted, final int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * A named puzzle text.
+     */
+    public static final class Source {
+
+        /** The name of the puzzle. */
+        private final String name;
+
+        /** The puzzle text. */
+        private final String text;
+
+        /**
+         * Constructs a source.
+         *
+         * @param name  the name of the puzzle
+         * @param text  the puzzle text
+         */
+        public Source(final String name, final String text) {
+            this.name = name;
+            this.text = text;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+    }
+
+    /**
+     * The outcome of solving one puzzle.
+     */
+    public static final class Outcome {
+
+        /** The name of the puzzle. */
+        private final String name;
+
+        /** The number of solutions, at most 2. */
+        private final int count;
+
+        /** A formatted solution, or {@code null}. */
+        private final String solution;
+
+        /** Time taken to parse and solve, in nanoseconds. */
+        private final long nanos;
+
+        /** Error message, or {@code null} if the puzzle could be read and solved. */
+        private final String error;
+
+        /** The grade, or {@code null} if not graded. */
+        private final DifficultyGrader.Grade grade;
+
+        /**
+         * Constructs an outcome.
+         *
+         * @param name  the name of the puzzle
+         * @param count  the number of solutions, at most 2
+         * @param solution  a formatted solution, or {@code null}
+         * @param nanos  time taken, in nanoseconds
+         * @param error  error message, or {@code null}
+         * @param grade  the grade, or {@code null}
+         */
+        Outcome(final String name, final int count, final String solution,
+                final long nanos, final String error, final DifficultyGrader.Grade grade) {
+            this.name = name;
+            this.count = count;
+            this.solution = solution;
+            this.nanos = nanos;
+            this.error = error;
+            this.grade = grade;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isSolvable() {
+            return count > 0;
+        }
+
+        public boolean isUnique() {
+            return count == 1;
+        }
+
+        public String getSolution() {
+            return solution;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public DifficultyGrader.Grade getGrade() {
+            return grade;
+        }
+
+        @Override
+        public String toString() {
+            final String status;
+            if (error != null) {
+                status = error;
+            } else if (!isSolvable()) {
+                status = "not solvable";
+            } else {
+                status = "solvable " + (isUnique() ? "unique" : "multiple") + " " + solution;
+            }
+            return String.format("%s: %s (%.3f ms)%s", name, status, nanos / NANOS_PER_MILLI,
+                    grade == null ? "" : " [" + grade + "]");
+        }
+
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Package holding headless command line tools,
+ * such as the {@link ypa.cli.BatchSolver} for whole puzzle directories.
+ */
+package ypa.cli;
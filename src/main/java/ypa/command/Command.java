@@ -2,6 +2,7 @@ package ypa.command;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import ypa.model.YCell;
 
 /**
@@ -81,4 +82,29 @@ public abstract class Command {
         return new HashSet<>();
     }
 
+    /**
+     * Gets the cell changed first by this command, in execution order.
+     * Unlike picking from {@link #getCells()}, which has no order,
+     * this is the cell a deduction was made for, and not one of its
+     * consequences.
+     *
+     * @return the first cell involved, or {@code null} if none
+     */
+    public YCell getFirstCell() {
+        final Iterator<YCell> cells = getCells().iterator();
+        return cells.hasNext() ? cells.next() : null;
+    }
+
+    /**
+     * Appends the cell changes of this executed command to the group
+     * being recorded by an undo-redo history.
+     * A concrete command that changes cells will override this method.
+     *
+     * @param history  the history
+     * @pre {@code executed}
+     */
+    void appendTo(final UndoRedo history) {
+        // this command changes nothing
+    }
+
 }
@@ -114,6 +114,13 @@ public class CompoundCommand extends Command {
         }
     }
 
+    @Override
+    void appendTo(final UndoRedo history) {
+        for (final Command command : sequence) {
+            command.appendTo(history);
+        }
+    }
+
     /**
      * Gets all the cells involved in the commands of this.
      *
@@ -128,6 +135,17 @@ public class CompoundCommand extends Command {
         return result;
     }
 
+    @Override
+    public YCell getFirstCell() {
+        for (final Command command : sequence) {
+            final YCell cell = command.getFirstCell();
+            if (cell != null) {
+                return cell;
+            }
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return super.toString() + " (" + this.size() + " operations)";
@@ -0,0 +1,56 @@
+package ypa.command;
+
+import java.util.Collection;
+import ypa.model.YCell;
+
+/**
+ * The command to eliminate candidate digits (pencil marks) from a cell.
+ */
+public class EliminateCommand extends GenericCommand<YCell> {
+
+    // Representation of command state
+    /** The command's parameter: bitmask of the digits to eliminate. */
+    private final int digits;
+
+    /** Previous eliminated digits of the receiver, for revert(). */
+    private int oldEliminated;
+
+    /**
+     * Constructs an eliminate command for a given receiver and digits.
+     *
+     * @param receiver  the given receiver
+     * @param digits  bitmask of the digits to eliminate
+     */
+    public EliminateCommand(final YCell receiver, final int digits) {
+        super(receiver);
+        // Initialize command state
+        this.digits = digits;
+    }
+
+    // Operations
+    @Override
+    public void execute() {
+        super.execute();
+        oldEliminated = receiver.getEliminated(); // should not be done in constructor!
+        receiver.setEliminated(oldEliminated | digits);
+    }
+
+    @Override
+    public void revert() {
+        super.revert();
+        receiver.setEliminated(oldEliminated);
+    }
+
+    @Override
+    void appendTo(final UndoRedo history) {
+        history.append(UndoRedo.ELIMINATE, receiver, oldEliminated, oldEliminated | digits);
+    }
+
+    @Override
+    public Collection<YCell> getCells() {
+        Collection<YCell> result = super.getCells();
+        result.add(receiver);
+        return result;
+    }
+
+}
@@ -43,6 +43,11 @@ public class SetCommand extends GenericCommand<YCell> {
         receiver.setState(oldState);
     }
 
+    @Override
+    void appendTo(final UndoRedo history) {
+        history.append(UndoRedo.SET, receiver, oldState, newState);
+    }
+
     @Override
     public Collection<YCell> getCells() {
         Collection<YCell> result = super.getCells();
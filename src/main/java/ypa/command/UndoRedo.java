@@ -1,9 +1,20 @@
 package ypa.command; // <<<<< TODO: Comment this line out when submitting to Momotor!
 
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import ypa.model.YCell;
 
 /**
  * Facilities for an undo-redo mechanism, on the basis of commands.
+ * Done commands are not kept as objects: their cell changes are stored in
+ * a compact log of primitive entries (cell index, old value, new value),
+ * and every {@link #did} is one group of entries, delimited by markers
+ * that hold its size. Undo and redo replay a group in O(1) per entry.
+ * <p>
+ * Consecutive single changes of the same cell are coalesced into one group,
+ * and the retained history is capped at a number of entries:
+ * the oldest groups are dropped first, and the latest one is always kept.
  *
 <!--//# BEGIN TODO: Names, student IDs, group name, and date-->
 <p><b>Group 6, dd/mm/yy</b></p>
@@ -17,23 +28,78 @@ import java.util.Stack;
  */
 public class UndoRedo {
 
+    /** Default maximum number of retained log entries. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /** Kind of entry that changes the state of a cell. */
+    static final int SET = 1;
+
+    /** Kind of entry that changes the eliminated digits of a cell. */
+    static final int ELIMINATE = 2;
+
+    /** Kind of entry that delimits a group; its old value is the group size. */
+    private static final int MARK = 3;
+
+    /** Number of ints per entry: header, old value, new value. */
+    private static final int STRIDE = 3;
+
+    /** Position of the kind in the header of an entry; below it is the cell index. */
+    private static final int KIND_SHIFT = 24;
+
     //# BEGIN TODO: Representation in terms of instance variables, incl. rep. inv.
-    /** The undo stack. */
-    private final Stack<Command> undoStack = new Stack<>();
+    /** Maximum number of retained entries. */
+    private final int capacity;
+
+    /** The log, {@code STRIDE} ints per entry. */
+    private int[] log = new int[STRIDE * 64];
+
+    /** Index of the oldest retained entry. */
+    private int start;
+
+    /** Index of the first undone entry; the entries before it are done. */
+    private int cursor;
+
+    /** Index after the last retained entry. */
+    private int top;
 
-    /** The redo stack. */
-    private final Stack<Command> redoStack = new Stack<>();
+    /** The cells of the logged entries, by cell index. */
+    private YCell[] cells = new YCell[0];
 
     /* Rep invariant:
      *
-     * In the current state, the sequence of commands on the undoStack
-     * can be undone (from top to bottom; their preconditions are satisfied).
+     * start <= cursor <= top, and both [start, cursor) and [cursor, top)
+     * consist of whole groups: MARK(n), n cell entries, MARK(n).
      *
-     * In the current state, the sequence of commands on the redoStack
-     * can be executed (from top to bottom; their preconditions are satisfied).
+     * In the current state, the groups in [start, cursor) can be undone
+     * (from last to first), by setting their cells to the old values.
+     *
+     * In the current state, the groups in [cursor, top) can be redone
+     * (from first to last), by setting their cells to the new values.
      */
     //# END TODO
 
+    /**
+     * Constructs an empty history with the default capacity.
+     */
+    public UndoRedo() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty history with a given capacity.
+     *
+     * @param capacity  maximum number of retained log entries
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code capacity > 0}
+     */
+    public UndoRedo(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: capacity == " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
     /**
      * Returns whether an {@code undo} is possible.
      *
@@ -41,7 +107,7 @@ public class UndoRedo {
      */
     public boolean canUndo() {
         //# BEGIN TODO: Implementation of canUndo
-        return !undoStack.isEmpty();
+        return cursor > start;
         //# END TODO
     }
 
@@ -52,44 +118,68 @@ public class UndoRedo {
      */
     public boolean canRedo() {
         //# BEGIN TODO: Implementation of canRedo
-        return !redoStack.isEmpty();
+        return cursor < top;
         //# END TODO
     }
 
     /**
-     * Returns command most recently done.
+     * Returns the cells changed by the group most recently done.
      *
-     * @return command at top of undo stack
+     * @return the cells of the group before the cursor
      * @throws IllegalStateException if precondition failed
      * @pre {@code canUndo()}
      */
-    public Command lastDone() throws IllegalStateException {
+    public Collection<YCell> lastDoneCells() throws IllegalStateException {
         //# BEGIN TODO: Implementation of lastDone
         if (!canUndo()) {
             throw new IllegalStateException("Precondition violated");
-        } else {
-            return undoStack.peek();
         }
+        final int size = log[(cursor - 1) * STRIDE + 1];
+        return cellsOf(cursor - 1 - size, size);
         //# END TODO
     }
 
     /**
-     * Returns command most recently undone.
+     * Returns the cells changed by the group most recently undone.
      *
-     * @return command at top of redo stack
+     * @return the cells of the group after the cursor
      * @throws IllegalStateException if precondition failed
      * @pre {@code canRedo()}
      */
-    public Command lastUndone() throws IllegalStateException {
+    public Collection<YCell> lastUndoneCells() throws IllegalStateException {
         //# BEGIN TODO: Implementation of lastUndone
-        if (canRedo()) {
-            return redoStack.peek();
-        } else {
+        if (!canRedo()) {
             throw new IllegalStateException("Precondition violated");
         }
+        return cellsOf(cursor + 1, log[cursor * STRIDE + 1]);
         //# END TODO
     }
 
+    /**
+     * Gets the cells of consecutive cell entries.
+     *
+     * @param first  index of the first entry
+     * @param size  number of entries
+     * @return the cells of the entries
+     */
+    private Collection<YCell> cellsOf(final int first, final int size) {
+        final Collection<YCell> result = new HashSet<>();
+        for (int i = first; i < first + size; ++i) {
+            result.add(cells[log[i * STRIDE] & ((1 << KIND_SHIFT) - 1)]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of retained log entries, markers included.
+     *
+     * @return the number of retained entries, at most the capacity
+     *     unless the latest group alone is larger
+     */
+    public int size() {
+        return top - start;
+    }
+
     /**
      * Clears all undo-redo history.
      *
@@ -97,14 +187,17 @@ public class UndoRedo {
      */
     public void clear() {
         //# BEGIN TODO: Implementation of clear
-        undoStack.clear();
-        redoStack.clear();
+        start = 0;
+        cursor = 0;
+        top = 0;
+        Arrays.fill(cells, null);
         //# END TODO
     }
 
-    /**]
+    /**
      * Adds given command to the do-history.
      * If the command was not yet executed, then it is first executed.
+     * A command that changes no cell is not recorded.
      *
      * @param command the command to incorporate
      * @modifies {@code this}
@@ -114,11 +207,124 @@ public class UndoRedo {
         if (!command.isExecuted()) {
             command.execute();
         }
-        undoStack.push(command);
-        redoStack.clear();
+        top = cursor; // discards the redo history
+        final int begin = top;
+        appendEntry(MARK, 0, 0);
+        command.appendTo(this);
+        final int size = top - begin - 1;
+        if (size == 0) {
+            top = begin;
+            return;
+        }
+        log[begin * STRIDE + 1] = size;
+        appendEntry(MARK, size, 0);
+        cursor = top;
+        coalesce(begin);
+        trim();
         //# END TODO
     }
 
+    /**
+     * Appends a change of a cell to the group being recorded.
+     *
+     * @param kind  {@code SET} or {@code ELIMINATE}
+     * @param cell  the changed cell
+     * @param oldValue  the value before the change
+     * @param newValue  the value after the change
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code cell.getIndex() >= 0}
+     */
+    void append(final int kind, final YCell cell, final int oldValue, final int newValue) {
+        final int index = cell.getIndex();
+        if (index < 0) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + ".append().pre failed: cell is not in a grid");
+        }
+        if (index >= cells.length) {
+            cells = Arrays.copyOf(cells, Math.max(index + 1, 2 * cells.length));
+        }
+        cells[index] = cell;
+        appendEntry(kind << KIND_SHIFT | index, oldValue, newValue);
+    }
+
+    /**
+     * Appends an entry at the top of the log.
+     *
+     * @param header  the kind and cell index
+     * @param oldValue  the old value
+     * @param newValue  the new value
+     */
+    private void appendEntry(final int header, final int oldValue, final int newValue) {
+        if ((top + 1) * STRIDE > log.length) {
+            log = Arrays.copyOf(log, 2 * log.length);
+        }
+        final int offset = top * STRIDE;
+        log[offset] = header;
+        log[offset + 1] = oldValue;
+        log[offset + 2] = newValue;
+        ++top;
+    }
+
+    /**
+     * Merges the group just recorded into the group before it,
+     * if both are a single change of the same kind to the same cell;
+     * a merged group that changes nothing is dropped.
+     *
+     * @param begin  index of the first marker of the group just recorded
+     */
+    private void coalesce(final int begin) {
+        final int previous = begin - 2; // the cell entry of a single-change group
+        if (log[begin * STRIDE + 1] != 1 || previous - 1 < start
+                || log[(begin - 1) * STRIDE + 1] != 1
+                || log[previous * STRIDE] != log[(begin + 1) * STRIDE]) {
+            return;
+        }
+        log[previous * STRIDE + 2] = log[(begin + 1) * STRIDE + 2];
+        top = begin;
+        if (log[previous * STRIDE + 1] == log[previous * STRIDE + 2]) {
+            top = previous - 1;
+        }
+        cursor = top;
+    }
+
+    /**
+     * Drops the oldest groups while more than {@code capacity} entries are
+     * retained, keeping the latest group, and compacts the log when
+     * half of it has been dropped.
+     */
+    private void trim() {
+        while (top - start > capacity) {
+            final int next = start + log[start * STRIDE + 1] + 2;
+            if (next >= cursor) {
+                break;
+            }
+            start = next;
+        }
+        if (start > 0 && 2 * start >= top) {
+            System.arraycopy(log, start * STRIDE, log, 0, (top - start) * STRIDE);
+            cursor -= start;
+            top -= start;
+            start = 0;
+        }
+    }
+
+    /**
+     * Sets the cell of an entry to one of its values.
+     *
+     * @param entry  index of the cell entry
+     * @param field  1 for the old value, 2 for the new value
+     */
+    private void replay(final int entry, final int field) {
+        final int header = log[entry * STRIDE];
+        final YCell cell = cells[header & ((1 << KIND_SHIFT) - 1)];
+        final int value = log[entry * STRIDE + field];
+        if (header >>> KIND_SHIFT == SET) {
+            cell.setState(value);
+        } else {
+            cell.setEliminated(value);
+        }
+    }
+
     /**
      * Undo the most recently done command, optionally allowing it to be redone.
      *
@@ -132,12 +338,13 @@ public class UndoRedo {
         if (!canUndo()) {
             throw new IllegalStateException("Precondition violated");
         }
-
-        Command command = undoStack.pop();
-        command.revert();
-
-        if (redoable) {
-            redoStack.push(command);
+        final int size = log[(cursor - 1) * STRIDE + 1];
+        for (int i = cursor - 2; i > cursor - 2 - size; --i) {
+            replay(i, 1);
+        }
+        cursor -= size + 2;
+        if (!redoable) {
+            top = cursor;
         }
         //# END TODO
     }
@@ -154,9 +361,11 @@ public class UndoRedo {
         if (!canRedo()) {
             throw new IllegalStateException("Precondition violated");
         }
-        Command command = redoStack.pop();
-        command.execute();
-        undoStack.push(command);
+        final int size = log[cursor * STRIDE + 1];
+        for (int i = cursor + 1; i <= cursor + size; ++i) {
+            replay(i, 2);
+        }
+        cursor += size + 2;
         //# END TODO
     }
 
@@ -168,7 +377,7 @@ public class UndoRedo {
      */
     public void undoAll(final boolean redoable) {
         //# BEGIN TODO: Implementation of undoAll
-        while (!undoStack.isEmpty()) {
+        while (canUndo()) {
             undo(redoable);
         }
         //# END TODO
@@ -181,7 +390,7 @@ public class UndoRedo {
      */
     public void redoAll() {
         //# BEGIN TODO: Implementation of redoAll
-        while (!redoStack.isEmpty()) {
+        while (canRedo()) {
             redo();
         }
         //# END TODO
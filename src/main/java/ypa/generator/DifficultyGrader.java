@@ -0,0 +1,285 @@
+package ypa.generator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import ypa.command.CompoundCommand;
+import ypa.model.YPuzzle;
+import ypa.reasoning.BasicEmptyCellByContradiction;
+import ypa.reasoning.EntryWithOneEmptyCell;
+import ypa.reasoning.FixpointReasoner;
+import ypa.reasoning.GeneralizedEmptyCellByContradiction;
+import ypa.reasoning.PropagationReasoner;
+import ypa.reasoning.Reasoner;
+import ypa.solvers.BitmaskSearch;
+
+/**
+ * Rates puzzles by the reasoners needed to solve them,
+ * and by how much work those reasoners do.
+ * A puzzle is solved with a ladder of reasoners, from cheap to costly:
+ * <ol>
+ * <li>{@code single}: {@link EntryWithOneEmptyCell};</li>
+ * <li>{@code propagation}: {@link PropagationReasoner};</li>
+ * <li>{@code contradiction}: {@link GeneralizedEmptyCellByContradiction},
+ *   looking ahead with single entries to a fixpoint;</li>
+ * <li>{@code trial}: {@link BasicEmptyCellByContradiction},
+ *   which searches for a completion of every trial.</li>
+ * </ol>
+ * Every step starts at the bottom of the ladder, and climbs only when
+ * a level makes no deduction.
+ * If even the top level makes none, the rest is left to a search.
+ * <p>
+ * The rating is the sum of the cells deduced at each level, times the weight
+ * of the level, plus the search nodes explored, by the trials and by the
+ * final search, times {@link #NODE_WEIGHT}.
+ * <p>
+ * A grader keeps no state between puzzles, so one grader can be shared
+ * by threads that grade different puzzles.
+ */
+public class DifficultyGrader implements PuzzleRater {
+
+    /** Number of levels of the ladder. */
+    public static final int LEVELS = 4;
+
+    /** Name of each level. */
+    private static final String[] NAMES = {"single", "propagation", "contradiction", "trial"};
+
+    /** Weight of a cell deduced at each level. */
+    private static final double[] WEIGHTS = {1, 2, 5, 20};
+
+    /** Weight of a search node. */
+    public static final double NODE_WEIGHT = 0.5;
+
+    /**
+     * Gets the name of a level.
+     *
+     * @param level  the level
+     * @return the name of {@code level}
+     * @pre {@code 0 <= level < LEVELS}
+     */
+    public static String getLevelName(final int level) {
+        return NAMES[level];
+    }
+
+    @Override
+    public double rate(final YPuzzle puzzle) {
+        return grade(puzzle).getRating();
+    }
+
+    /**
+     * Grades a puzzle from its current state.
+     * All deductions are reverted, so the puzzle is left unchanged.
+     *
+     * @param puzzle  the puzzle to grade
+     * @return the grade
+     * @pre {@code puzzle != null}
+     */
+    public Grade grade(final YPuzzle puzzle) {
+        final Ladder ladder = new Ladder(puzzle);
+        final int[] deductions = new int[LEVELS];
+        final int[] attempts = new int[LEVELS];
+        final Deque<CompoundCommand> executed = new ArrayDeque<>();
+        try {
+            boolean consistent = true;
+            int level = 0;
+            while (consistent && level < LEVELS && !puzzle.getGrid().isFull()) {
+                final int before = filledCount(puzzle);
+                ++attempts[level];
+                final CompoundCommand command = ladder.reasoners[level].apply();
+                if (command == null) {
+                    consistent = false;
+                } else if (command.size() > 0) {
+                    executed.push(command);
+                    deductions[level] += filledCount(puzzle) - before;
+                    level = 0;
+                } else {
+                    ++level;
+                }
+            }
+            final boolean solved = consistent && puzzle.isSolved();
+            long nodes = ladder.trial.getNodeCount();
+            if (consistent && !solved) {
+                nodes += searchNodes(puzzle);
+            }
+            return new Grade(deductions, attempts, nodes, consistent, solved);
+        } finally {
+            while (!executed.isEmpty()) {
+                executed.pop().revert();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of filled cells of a puzzle.
+     *
+     * @param puzzle  the puzzle
+     * @return the number of non-empty cells
+     */
+    private static int filledCount(final YPuzzle puzzle) {
+        return Integer.bitCount(puzzle.getGrid().getOccupiedMask());
+    }
+
+    /**
+     * Searches for a completion of a puzzle, counting the nodes explored.
+     *
+     * @param puzzle  the puzzle
+     * @return the number of search nodes explored
+     */
+    private static long searchNodes(final YPuzzle puzzle) {
+        final BitmaskSearch search = new BitmaskSearch(puzzle.getGeometry(),
+                puzzle.getCircles());
+        if (search.load(puzzle.getGrid())) {
+            search.findFirst();
+        }
+        return search.getNodeCount();
+    }
+
+    /**
+     * The reasoners of the ladder, for one puzzle.
+     */
+    private static final class Ladder {
+
+        /** The top level, kept to count its search nodes. */
+        final BasicEmptyCellByContradiction trial;
+
+        /** The reasoner of each level. */
+        final Reasoner[] reasoners;
+
+        /**
+         * Constructs the ladder for a puzzle.
+         *
+         * @param puzzle  the puzzle to reason about
+         */
+        Ladder(final YPuzzle puzzle) {
+            trial = new BasicEmptyCellByContradiction(puzzle);
+            reasoners = new Reasoner[] {
+                new EntryWithOneEmptyCell(puzzle),
+                new PropagationReasoner(puzzle),
+                new GeneralizedEmptyCellByContradiction(puzzle,
+                        new FixpointReasoner(puzzle, new EntryWithOneEmptyCell(puzzle))),
+                trial,
+            };
+        }
+
+    }
+
+    /**
+     * The outcome of grading a puzzle.
+     */
+    public static final class Grade {
+
+        /** Number of cells deduced at each level. */
+        private final int[] deductions;
+
+        /** Number of applications of each level. */
+        private final int[] attempts;
+
+        /** Number of search nodes explored. */
+        private final long nodes;
+
+        /** Whether no contradiction was found. */
+        private final boolean consistent;
+
+        /** Whether the ladder solved the puzzle without the final search. */
+        private final boolean solved;
+
+        /**
+         * Constructs a grade.
+         *
+         * @param deductions  number of cells deduced at each level
+         * @param attempts  number of applications of each level
+         * @param nodes  number of search nodes explored
+         * @param consistent  whether no contradiction was found
+         * @param solved  whether the ladder solved the puzzle
+         */
+        Grade(final int[] deductions, final int[] attempts, final long nodes,
+                final boolean consistent, final boolean solved) {
+            this.deductions = deductions.clone();
+            this.attempts = attempts.clone();
+            this.nodes = nodes;
+            this.consistent = consistent;
+            this.solved = solved;
+        }
+
+        /**
+         * Gets the number of cells deduced at a level.
+         *
+         * @param level  the level
+         * @return the number of cells deduced at {@code level}
+         * @pre {@code 0 <= level < LEVELS}
+         */
+        public int getDeductions(final int level) {
+            return deductions[level];
+        }
+
+        /**
+         * Gets the number of applications of a level,
+         * including those that deduced nothing.
+         *
+         * @param level  the level
+         * @return the number of applications of {@code level}
+         * @pre {@code 0 <= level < LEVELS}
+         */
+        public int getAttempts(final int level) {
+            return attempts[level];
+        }
+
+        public long getNodeCount() {
+            return nodes;
+        }
+
+        public boolean isConsistent() {
+            return consistent;
+        }
+
+        public boolean isSolved() {
+            return solved;
+        }
+
+        /**
+         * Gets the highest level that deduced a cell.
+         *
+         * @return the highest level with deductions, or -1 if none
+         */
+        public int getHardestLevel() {
+            for (int level = LEVELS - 1; level >= 0; --level) {
+                if (deductions[level] > 0) {
+                    return level;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Gets the rating, see {@link DifficultyGrader}.
+         *
+         * @return the rating, or positive infinity if a contradiction was found
+         */
+        public double getRating() {
+            if (!consistent) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double rating = nodes * NODE_WEIGHT;
+            for (int level = 0; level < LEVELS; ++level) {
+                rating += deductions[level] * WEIGHTS[level];
+            }
+            return rating;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append(String.format("rating %.1f", getRating()));
+            for (int level = 0; level < LEVELS; ++level) {
+                builder.append(", ").append(NAMES[level]).append(' ')
+                        .append(deductions[level]).append('/').append(attempts[level]);
+            }
+            builder.append(", nodes ").append(nodes);
+            if (!solved) {
+                builder.append(consistent ? ", needs search" : ", contradiction");
+            }
+            return builder.toString();
+        }
+
+    }
+
+}
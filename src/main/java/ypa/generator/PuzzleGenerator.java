@@ -0,0 +1,264 @@
+package ypa.generator;
+
+import java.util.Arrays;
+import java.util.Random;
+import ypa.model.YCell;
+import ypa.model.YGeometry;
+import ypa.model.YPuzzle;
+import ypa.solvers.BitmaskSearch;
+
+/**
+ * Generates puzzles with a unique solution.
+ * A puzzle is generated by
+ * <ol>
+ * <li>sampling a random arrangement of the digits, the intended solution;</li>
+ * <li>deriving the circle sums from it;</li>
+ * <li>while the puzzle has another solution, giving the digit of the
+ *   intended solution in a random cell where the other solution differs,
+ *   which rules that other solution out;</li>
+ * <li>optionally, removing givens again while the solution stays unique.</li>
+ * </ol>
+ * Solutions are counted with a {@link BitmaskSearch}, which allocates
+ * nothing per solution, so that thousands of puzzles are generated per second.
+ * <p>
+ * A generator is not thread-safe; use one per thread.
+ */
+public class PuzzleGenerator {
+
+    /** The geometry of the generated puzzles. */
+    private final YGeometry geometry;
+
+    /** The source of randomness. */
+    private final Random random;
+
+    /** Whether to remove givens that are not needed for uniqueness. */
+    private boolean minimize;
+
+    /** Number of puzzles generated, to name them. */
+    private int generated;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param geometry  the geometry of the puzzles to generate
+     * @param random  the source of randomness
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code geometry != null && random != null}
+     */
+    public PuzzleGenerator(final YGeometry geometry, final Random random) {
+        if (geometry == null || random == null) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: geometry == " + geometry + ", random == " + random);
+        }
+        this.geometry = geometry;
+        this.random = random;
+    }
+
+    /**
+     * Sets whether givens that are not needed for uniqueness are removed,
+     * which makes puzzles harder, but generation slower.
+     *
+     * @param minimize  whether to minimize the givens
+     */
+    public void setMinimize(final boolean minimize) {
+        this.minimize = minimize;
+    }
+
+    /**
+     * Generates a puzzle with a unique solution.
+     *
+     * @return the puzzle, in view mode
+     */
+    public YPuzzle generate() {
+        final int[] solution = sampleSolution();
+        final int[] circles = new int[geometry.getCircleCount()];
+        final int[][] circleCells = geometry.getCircleCells();
+        for (int c = 0; c < circles.length; ++c) {
+            for (int cell : circleCells[c]) {
+                circles[c] += solution[cell];
+            }
+        }
+        final BitmaskSearch search = new BitmaskSearch(geometry, circles);
+        final int[] givens = new int[solution.length];
+        int[] other = findOther(search, givens, solution);
+        while (other != null) {
+            final int cell = pickDifference(solution, other);
+            givens[cell] = solution[cell];
+            other = findOther(search, givens, solution);
+        }
+        if (minimize) {
+            minimize(search, givens, solution);
+        }
+        ++generated;
+        final YPuzzle puzzle = new YPuzzle(geometry, circles, "generated-" + generated);
+        for (int i = 0; i < givens.length; ++i) {
+            if (givens[i] != YCell.EMPTY) {
+                puzzle.getGrid().setCell(i, givens[i]);
+            }
+        }
+        return puzzle;
+    }
+
+    /**
+     * Generates a puzzle with a unique solution and a rating in a given range.
+     *
+     * @param rater  the rater to rate the puzzles with
+     * @param minRating  the smallest acceptable rating
+     * @param maxRating  the largest acceptable rating
+     * @param attempts  the maximum number of puzzles to generate
+     * @return the first generated puzzle with an acceptable rating,
+     *     or {@code null} if none was found within {@code attempts}
+     * @pre {@code rater != null}
+     */
+    public YPuzzle generate(final PuzzleRater rater, final double minRating,
+            final double maxRating, final int attempts) {
+        for (int i = 0; i < attempts; ++i) {
+            final YPuzzle puzzle = generate();
+            final double rating = rater.rate(puzzle);
+            if (minRating <= rating && rating <= maxRating) {
+                return puzzle;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Samples a random arrangement of distinct digits over the cells.
+     *
+     * @return the digit of each cell
+     */
+    private int[] sampleSolution() {
+        final int[] digits = new int[geometry.getMaxDigit()];
+        for (int d = 0; d < digits.length; ++d) {
+            digits[d] = d + 1;
+        }
+        // partial Fisher-Yates shuffle of the first cell count positions
+        final int cellCount = geometry.getCellCount();
+        for (int i = 0; i < cellCount; ++i) {
+            final int j = i + random.nextInt(digits.length - i);
+            final int digit = digits[i];
+            digits[i] = digits[j];
+            digits[j] = digit;
+        }
+        return Arrays.copyOf(digits, cellCount);
+    }
+
+    /**
+     * Finds a solution, other than the intended one, that agrees with the givens.
+     *
+     * @param search  the search engine for the circle sums
+     * @param givens  the given digits, {@code YCell.EMPTY} if not given
+     * @param solution  the intended solution
+     * @return another solution, or {@code null} if the solution is unique
+     */
+    private static int[] findOther(final BitmaskSearch search, final int[] givens,
+            final int[] solution) {
+        final int[][] other = new int[1][];
+        search.load(givens);
+        search.forEachSolution(digits -> {
+            if (Arrays.equals(digits, solution)) {
+                return true;
+            }
+            other[0] = digits.clone();
+            return false;
+        });
+        return other[0];
+    }
+
+    /**
+     * Picks a random cell in which two solutions differ.
+     *
+     * @param solution  the intended solution
+     * @param other  another solution
+     * @return index of a cell in which {@code solution} and {@code other} differ
+     * @pre {@code !Arrays.equals(solution, other)}
+     */
+    private int pickDifference(final int[] solution, final int[] other) {
+        int differences = 0;
+        for (int i = 0; i < solution.length; ++i) {
+            if (solution[i] != other[i]) {
+                ++differences;
+            }
+        }
+        int pick = random.nextInt(differences);
+        for (int i = 0; i < solution.length; ++i) {
+            if (solution[i] != other[i] && pick-- == 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("no difference");
+    }
+
+    /**
+     * Removes givens that are not needed for uniqueness,
+     * trying the cells in reading order from a random cell onwards.
+     *
+     * @param search  the search engine for the circle sums
+     * @param givens  the given digits, modified
+     * @param solution  the intended solution
+     */
+    private void minimize(final BitmaskSearch search, final int[] givens,
+            final int[] solution) {
+        final int offset = random.nextInt(givens.length);
+        for (int k = 0; k < givens.length; ++k) {
+            final int i = (offset + k) % givens.length;
+            if (givens[i] != YCell.EMPTY) {
+                givens[i] = YCell.EMPTY;
+                if (findOther(search, givens, solution) != null) {
+                    givens[i] = solution[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Formats a puzzle in the file format read by
+     * {@link YPuzzle#YPuzzle(java.util.Scanner, String)}: the circle sums,
+     * one per line, followed by a line {@code row column digit}
+     * for every filled cell, with the row as a letter.
+     * The file does not record the geometry: the reader infers a square
+     * board with the default maximum digit from the number of circles,
+     * so only puzzles of such a geometry can be formatted.
+     *
+     * @param puzzle  the puzzle to format
+     * @return the text of the puzzle file
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code puzzle.getGeometry()} is square, with the default maximum digit
+     */
+    public static String format(final YPuzzle puzzle) {
+        if (!isReadable(puzzle.getGeometry())) {
+            throw new IllegalArgumentException(PuzzleGenerator.class.getSimpleName()
+                    + ".format().pre failed: geometry " + puzzle.getGeometry()
+                    + " cannot be read back from a puzzle file");
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (int circle : puzzle.getCircles()) {
+            builder.append(circle).append('\n');
+        }
+        for (int r = 0; r < puzzle.getRowCount(); ++r) {
+            for (int c = 0; c < puzzle.getColumnCount(); ++c) {
+                final int state = puzzle.getCell(r, c).getState();
+                if (state != YCell.EMPTY) {
+                    builder.append((char) ('a' + r)).append(' ').append(c)
+                            .append(' ').append(state).append('\n');
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns whether the geometry that a puzzle file reader infers from
+     * the number of circles is a given geometry.
+     *
+     * @param geometry  the geometry
+     * @return whether {@code geometry} is inferred from its circle count
+     */
+    private static boolean isReadable(final YGeometry geometry) {
+        final int circleCount = geometry.getCircleCount();
+        final int side = (int) Math.round(Math.sqrt(circleCount));
+        return side * side == circleCount
+                && geometry.equals(YGeometry.forCircleCount(circleCount));
+    }
+
+}
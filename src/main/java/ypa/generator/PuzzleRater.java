@@ -0,0 +1,30 @@
+package ypa.generator;
+
+import ypa.model.YPuzzle;
+
+/**
+ * Rates the difficulty of a puzzle; higher ratings are harder.
+ */
+@FunctionalInterface
+public interface PuzzleRater {
+
+    /**
+     * Rates a puzzle from its current state.
+     * The puzzle is left unchanged.
+     *
+     * @param puzzle  the puzzle to rate, with a unique solution
+     * @return the difficulty rating
+     */
+    double rate(YPuzzle puzzle);
+
+    /**
+     * Gets a rater that rates a puzzle by its number of empty cells.
+     *
+     * @return the rater
+     */
+    static PuzzleRater emptyCells() {
+        return puzzle -> puzzle.getGrid().getSize()
+                - Integer.bitCount(puzzle.getGrid().getOccupiedMask());
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Package holding the generation of new puzzles with a unique solution,
+ * and the rating of their difficulty.
+ */
+package ypa.generator;
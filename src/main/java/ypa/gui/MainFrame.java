@@ -1,14 +1,18 @@
 package ypa.gui;
 
-import ypa.command.Command;
 import ypa.command.CompoundCommand;
 import ypa.command.SetCommand;
 import ypa.command.UndoRedo;
+import ypa.generator.PuzzleGenerator;
 import ypa.model.YCell;
+import ypa.model.YGeometry;
 import ypa.model.YPuzzle;
 import ypa.model.YGrid;
 import ypa.reasoning.BasicEmptyCellByContradiction;
+import ypa.reasoning.CompoundReasoner;
 import ypa.reasoning.FixpointReasoner;
+import ypa.reasoning.HintEngine;
+import ypa.reasoning.PropagationReasoner;
 import ypa.reasoning.Reasoner;
 
 import javax.swing.*;
@@ -24,7 +28,13 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Scanner;
 import java.util.List;
-import ypa.solvers.SolverWorker;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import ypa.solvers.SolverService;
+import ypa.solvers.SolverStatistics;
+import ypa.solvers.ValidationService;
 import ypa.solvers.YAbstractSolver;
 import ypa.solvers.YBacktrackSolver;
 
@@ -80,9 +90,12 @@ public class MainFrame extends javax.swing.JFrame {
         jRadioButtonMenuItemEdit = new javax.swing.JRadioButtonMenuItem();
         jMenuPuzzle = new javax.swing.JMenu();
         jCheckBoxMenuItemHighlight = new javax.swing.JCheckBoxMenuItem();
+        jCheckBoxMenuItemPencilMarks = new javax.swing.JCheckBoxMenuItem();
         jSeparator1 = new javax.swing.JPopupMenu.Separator();
         jMenuItemApplyStrategies = new javax.swing.JMenuItem();
+        jMenuItemHint = new javax.swing.JMenuItem();
         jCheckBoxMenuItemStopAtFirstChange = new javax.swing.JCheckBoxMenuItem();
+        jCheckBoxMenuItemShowStatistics = new javax.swing.JCheckBoxMenuItem();
         jSeparator2 = new javax.swing.JPopupMenu.Separator();
         jMenuItemSolve = new javax.swing.JMenuItem();
         jMenuItem1 = new javax.swing.JMenuItem();
@@ -271,6 +284,14 @@ public class MainFrame extends javax.swing.JFrame {
             }
         });
         jMenuPuzzle.add(jCheckBoxMenuItemHighlight);
+
+        jCheckBoxMenuItemPencilMarks.setText("Pencil Marks");
+        jCheckBoxMenuItemPencilMarks.addItemListener(new java.awt.event.ItemListener() {
+            public void itemStateChanged(java.awt.event.ItemEvent evt) {
+                jCheckBoxMenuItemPencilMarksItemStateChanged(evt);
+            }
+        });
+        jMenuPuzzle.add(jCheckBoxMenuItemPencilMarks);
         jMenuPuzzle.add(jSeparator1);
 
         jMenuItemApplyStrategies.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_R,
@@ -283,6 +304,16 @@ public class MainFrame extends javax.swing.JFrame {
         });
         jMenuPuzzle.add(jMenuItemApplyStrategies);
 
+        jMenuItemHint.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_H,
+                java.awt.event.InputEvent.CTRL_DOWN_MASK));
+        jMenuItemHint.setText("Hint");
+        jMenuItemHint.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuItemHintActionPerformed(evt);
+            }
+        });
+        jMenuPuzzle.add(jMenuItemHint);
+
         jCheckBoxMenuItemStopAtFirstChange.setSelected(true);
         jCheckBoxMenuItemStopAtFirstChange.setText("Stop at First Change");
         jCheckBoxMenuItemStopAtFirstChange.addActionListener(new java.awt.event.ActionListener() {
@@ -291,6 +322,14 @@ public class MainFrame extends javax.swing.JFrame {
             }
         });
         jMenuPuzzle.add(jCheckBoxMenuItemStopAtFirstChange);
+
+        jCheckBoxMenuItemShowStatistics.setText("Show Statistics");
+        jCheckBoxMenuItemShowStatistics.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jCheckBoxMenuItemShowStatisticsActionPerformed(evt);
+            }
+        });
+        jMenuPuzzle.add(jCheckBoxMenuItemShowStatistics);
         jMenuPuzzle.add(jSeparator2);
 
         jMenuItemSolve.setText("Solve");
@@ -393,8 +432,8 @@ public class MainFrame extends javax.swing.JFrame {
             for (Object circle : puzzle.getCircles()) {
                 out.println(circle);
             }
-            for (int row = 0; row < 3; row++) {
-                for (int col = 0; col < 3; col++) {
+            for (int row = 0; row < puzzle.getRowCount(); row++) {
+                for (int col = 0; col < puzzle.getColumnCount(); col++) {
                     // Convert row index to corresponding letter
                     char rowChar = (char) ('a' + row);
                     YCell cell = puzzle.getCell(row, col);
@@ -452,8 +491,7 @@ public class MainFrame extends javax.swing.JFrame {
             }
             unsavedModifications = false;
             updateModeRadioButtons(YPuzzle.Mode.SOLVE);
-            worker = new SolverWorker(puzzle, null); // Null is the reasoner we use
-            worker.execute();
+            solution = solverService.submit(puzzle);
             updateFrame();
         } catch (IllegalArgumentException e) {
             jTextArea.append("File does not contain a puzzle description:\n");
@@ -462,6 +500,19 @@ public class MainFrame extends javax.swing.JFrame {
         }
     }// GEN-LAST:event_jMenuItemOpenActionPerformed
 
+    /**
+     * Reports the verdict of the background validation of an edit.
+     *
+     * @param verdict  the verdict for the latest edit
+     */
+    private void showVerdict(final ValidationService.Verdict verdict) {
+        switch (verdict) {
+            case NOT_SOLVABLE -> jTextArea.append("The entered puzzle is not solvable.\n");
+            case MULTIPLE -> jTextArea.append("The entered puzzle has multiple solutions.\n");
+            case UNIQUE -> jTextArea.append("The entered puzzle has a unique solution.\n");
+        }
+    }
+
     /**
      * Checks the solvability of the puzzle.
      *
@@ -487,16 +538,25 @@ public class MainFrame extends javax.swing.JFrame {
         }
 
         String circleValues = JOptionPane.showInputDialog(this,
-                "Enter the circle values for the new puzzle (comma-separated)", "New Puzzle Circle Values",
-                JOptionPane.INFORMATION_MESSAGE);
+                "Enter the circle values for the new puzzle (comma-separated),\n"
+                + "or leave empty to generate a puzzle with a unique solution",
+                "New Puzzle Circle Values", JOptionPane.INFORMATION_MESSAGE);
 
-        if (circleValues == null || circleValues.isEmpty()) {
+        if (circleValues == null) {
             jTextArea.append("No circle values entered for the new puzzle.\n");
             return;
         }
 
+        if (circleValues.isBlank()) {
+            // generate circles and givens, in the file format
+            PuzzleGenerator generator = new PuzzleGenerator(YGeometry.STANDARD, new Random());
+            circleValues = PuzzleGenerator.format(generator.generate());
+        }
+
         Scanner scanner = new Scanner(circleValues);
-        scanner.useDelimiter(",");
+        if (circleValues.contains(",")) {
+            scanner.useDelimiter(",");
+        }
 
         try {
             try {
@@ -531,8 +591,7 @@ public class MainFrame extends javax.swing.JFrame {
             }
             unsavedModifications = false;
             updateModeRadioButtons(YPuzzle.Mode.SOLVE);
-            worker = new SolverWorker(puzzle, reasoner); // Null is the reasoner we use
-            worker.execute();
+            solution = solverService.submit(puzzle);
             updateFrame();
         } catch (IllegalArgumentException e) {
             jTextArea.append("Invalid circle values entered for the new puzzle.\n");
@@ -567,6 +626,7 @@ public class MainFrame extends javax.swing.JFrame {
         }
         if (previousStateEdit) {
             PuzzlePanel.paintwhite = false;
+            validationService.cancel(); // verdicts on edits are stale now
 
             String puzzleName = puzzle.getName();
             String circleValues = Arrays.toString(puzzle.getCircles())
@@ -593,8 +653,7 @@ public class MainFrame extends javax.swing.JFrame {
                 undoRedo.clear();
             }
             unsavedModifications = false;
-            worker = new SolverWorker(puzzle, reasoner);
-            worker.execute();
+            solution = solverService.submit(puzzle);
 
             previousStateEdit = false;
         }
@@ -656,9 +715,7 @@ public class MainFrame extends javax.swing.JFrame {
                     try {
                         circles[circleIndex] = Integer.parseInt(input);
                         updateFrame();
-                        if (!checkPuzzleSolvability()) {
-                            jTextArea.append("The entered puzzle is not solvable.\n");
-                        }
+                        validationService.request(puzzle, this::showVerdict);
                     } catch (NumberFormatException e) {
                         jTextArea.append("Invalid input. Please enter a number.\n");
                     }
@@ -878,6 +935,11 @@ public class MainFrame extends javax.swing.JFrame {
         updateFrame();
     } // GEN-LAST:event_jCheckBoxMenuItemHighlightItemStateChanged
 
+    private void jCheckBoxMenuItemPencilMarksItemStateChanged(java.awt.event.ItemEvent evt) {
+        // GEN-FIRST:event_jCheckBoxMenuItemPencilMarksItemStateChanged
+        updateFrame();
+    } // GEN-LAST:event_jCheckBoxMenuItemPencilMarksItemStateChanged
+
     private void jMenuItemApplyReasoningActionPerformed(java.awt.event.ActionEvent evt) {
         // GEN-FIRST:event_jMenuItemApplyReasoningActionPerformed
         if (puzzle == null) {
@@ -897,9 +959,23 @@ public class MainFrame extends javax.swing.JFrame {
         // message = "Apply Reasoning is not yet implemented.";
         // } else {
         if (!jCheckBoxMenuItemStopAtFirstChange.isSelected()) {
-            reasoner = new FixpointReasoner(puzzle, reasoner);
+            // cheap propagation first; the costly reasoner only when it is stuck
+            CompoundReasoner pipeline = new CompoundReasoner(puzzle);
+            pipeline.add(new PropagationReasoner(puzzle));
+            pipeline.add(reasoner);
+            reasoner = new FixpointReasoner(puzzle, pipeline);
+        }
+        SolverStatistics statistics = null;
+        if (jCheckBoxMenuItemShowStatistics.isSelected()) {
+            statistics = new SolverStatistics();
+            reasoner.setStatistics(statistics);
+            statistics.start();
         }
         CompoundCommand command = reasoner.apply();
+        if (statistics != null) {
+            statistics.stop();
+            jTextArea.append("Reasoning: " + statistics + "\n");
+        }
         if (command == null) {
             message = "Puzzle is not solvable.";
         } else if (command.size() > 0) {
@@ -915,6 +991,29 @@ public class MainFrame extends javax.swing.JFrame {
 
     } // GEN-LAST:event_jMenuItemApplyReasoningActionPerformed
 
+    private void jMenuItemHintActionPerformed(java.awt.event.ActionEvent evt) {
+        // GEN-FIRST:event_jMenuItemHintActionPerformed
+        if (puzzle == null) {
+            return;
+        }
+        if (puzzle.getMode() != YPuzzle.Mode.SOLVE) {
+            jTextArea.append("Mode is " + puzzle.getMode() + "\n");
+            return;
+        }
+        if (hintEngine == null || hintEngine.getPuzzle() != puzzle) {
+            hintEngine = new HintEngine(puzzle);
+        }
+        final HintEngine.Hint hint = hintEngine.next();
+        if (hint == null) {
+            jTextArea.append(puzzle.isSolved() ? "Puzzle is already solved.\n"
+                    : "No hint: nothing is forced, or the puzzle is not solvable.\n");
+        } else {
+            puzzlePanel.setSelected(hint.getCell());
+            jTextArea.append(hint + "\n");
+        }
+        updateFrame();
+    } // GEN-LAST:event_jMenuItemHintActionPerformed
+
     private void jMenuItemSolveActionPerformed(java.awt.event.ActionEvent evt) {
         // GEN-FIRST:event_jMenuItemSolveActionPerformed
         if (puzzle == null) {
@@ -932,34 +1031,84 @@ public class MainFrame extends javax.swing.JFrame {
             return;
         }
 
-        String message;
+        if (solution == null) {
+            // normally submitted when the puzzle was loaded
+            jTextArea.append("Solving in the background...\n");
+            solution = solverService.submit(puzzle);
+        }
+        awaitSolution(puzzle);
+    } // GEN-LAST:event_jMenuItemSolveActionPerformed
 
-        // Configure and invoke solver
-        // reasoner = new EntryWithOneEmptyCell(puzzle);
-        // reasoner = new BasicEmptyCellByContradiction(puzzle);
-        // reasoner = new FixpointReasoner(puzzle, reasoner);
-        // solver = new BacktrackSolver(puzzle, reasoner);
-
-        if (worker == null) {
-            message = "Solve is not yet implemented.";
-        } else if (worker.solver.getBackgroundGrid() != null && worker.solved) {
-            worker.showSolution = true;
-            message = "Puzzle solved";
-            // handle result of solver
-            final Collection<Command> commands = worker.commands;
-            for (final Command command : commands) {
-                if (command instanceof CompoundCommand &&
-                        ((CompoundCommand) command).size() == 0) {
-                    continue;
-                }
-                undoRedo.did(command);
+    /**
+     * Shows the solution of the background solver once it is available,
+     * without blocking the event dispatch thread.
+     * A failed search is reported; a search cancelled by a newer
+     * submission is not, since the newer one is awaited instead.
+     * A solution that is already awaited is not awaited twice.
+     *
+     * @param solving  the puzzle to show the solution of
+     */
+    private void awaitSolution(final YPuzzle solving) {
+        if (awaited == solution) {
+            jTextArea.append("Still solving in the background...\n");
+            return;
+        }
+        final CompletableFuture<SolverService.Result> future = solution;
+        awaited = future;
+        future.whenCompleteAsync((result, failure) -> {
+            if (awaited == future) {
+                awaited = null;
+            }
+            if (failure == null) {
+                showSolution(solving, result);
+            } else if (!(failure instanceof CancellationException)) {
+                final Throwable cause = failure instanceof CompletionException
+                        && failure.getCause() != null ? failure.getCause() : failure;
+                jTextArea.append("Solving failed: " + cause + "\n");
+            }
+        }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Fills the empty cells of the puzzle from a result of the background
+     * solver, as one undoable command.
+     * If the cells were changed since the result was submitted,
+     * the current state is submitted and awaited instead.
+     *
+     * @param solving  the puzzle that was submitted
+     * @param result  the result for {@code solving}
+     */
+    private void showSolution(final YPuzzle solving, final SolverService.Result result) {
+        if (solving != puzzle) {
+            return; // another puzzle was loaded meanwhile
+        }
+        if (!result.isFor(puzzle.getGrid())) {
+            solution = solverService.submit(puzzle);
+            awaitSolution(puzzle);
+            return;
+        }
+        if (!result.isSolved()) {
+            jTextArea.append("Puzzle not solvable\n");
+            return;
+        }
+        final int[] digits = result.getSolution();
+        final CompoundCommand command = new CompoundCommand();
+        for (YCell cell : puzzle.getCells()) {
+            if (cell.isEmpty()) {
+                command.add(new SetCommand(cell, digits[cell.getIndex()]));
             }
+        }
+        if (command.size() > 0) {
+            undoRedo.did(command);
+        }
+        if (result.getStatistics() != null) {
+            jTextArea.append("Puzzle solved (" + result.getStatistics() + ")\n");
         } else {
-            message = "Puzzle not solvable";
+            jTextArea.append(String.format("Puzzle solved (%d nodes, %.1f ms)%n",
+                    result.getNodeCount(), result.getNanos() / 1e6));
         }
-        jTextArea.append(message + "\n");
         updateFrame();
-    } // GEN-LAST:event_jMenuItemSolveActionPerformed
+    }
 
     private void jCheckBoxMenuItemStopAtFirstChangeActionPerformed(java.awt.event.ActionEvent evt) {
         // GEN-FIRST:event_jCheckBoxMenuItemStopAtFirstChangeActionPerformed
@@ -973,6 +1122,11 @@ public class MainFrame extends javax.swing.JFrame {
         }
     } // GEN-LAST:event_jCheckBoxMenuItemStopAtFirstChangeActionPerformed
 
+    private void jCheckBoxMenuItemShowStatisticsActionPerformed(java.awt.event.ActionEvent evt) {
+        // GEN-FIRST:event_jCheckBoxMenuItemShowStatisticsActionPerformed
+        solverService.setStatisticsEnabled(jCheckBoxMenuItemShowStatistics.isSelected());
+    } // GEN-LAST:event_jCheckBoxMenuItemShowStatisticsActionPerformed
+
     /**
      * @param args the command line arguments.
      */
@@ -1143,6 +1297,8 @@ public class MainFrame extends javax.swing.JFrame {
     private javax.swing.JCheckBoxMenuItem jCheckBoxMenuItem1;
     private javax.swing.JCheckBoxMenuItem jCheckBoxMenuItem2;
     private javax.swing.JCheckBoxMenuItem jCheckBoxMenuItemHighlight;
+    private javax.swing.JCheckBoxMenuItem jCheckBoxMenuItemPencilMarks;
+    private javax.swing.JCheckBoxMenuItem jCheckBoxMenuItemShowStatistics;
     private javax.swing.JCheckBoxMenuItem jCheckBoxMenuItemStopAtFirstChange;
     private javax.swing.JMenuBar jMenuBar1;
     private javax.swing.JMenu jMenuEdit;
@@ -1151,6 +1307,7 @@ public class MainFrame extends javax.swing.JFrame {
     private javax.swing.JMenuItem jMenuItem1;
     private javax.swing.JMenuItem jMenuItemAbout;
     private javax.swing.JMenuItem jMenuItemApplyStrategies;
+    private javax.swing.JMenuItem jMenuItemHint;
     private javax.swing.JMenuItem jMenuItemClear;
     private javax.swing.JMenuItem jMenuItemClearTextArea;
     private javax.swing.JMenuItem jMenuItemCopy;
@@ -1203,12 +1360,25 @@ public class MainFrame extends javax.swing.JFrame {
     /** Undo-redo facility. */
     private final UndoRedo undoRedo = new UndoRedo();
 
-    // Creation of the worker, initialized later
-    SolverWorker worker;
+    /** Solves puzzles in the background. */
+    private final SolverService solverService = new SolverService();
+
+    /** Pending solution of the puzzle; null if no puzzle was submitted. */
+    private CompletableFuture<SolverService.Result> solution;
+
+    /** The solution whose result is awaited to be shown; null if none. */
+    private CompletableFuture<SolverService.Result> awaited;
+
+    /** Checks edits in the background, reporting on the event dispatch thread. */
+    private final ValidationService validationService = new ValidationService(
+            ValidationService.DEFAULT_DELAY_MILLIS, SwingUtilities::invokeLater);
 
     // Reasoner to use in the solver
     Reasoner reasoner = null;
 
+    /** Hint engine for the puzzle, created on the first hint. */
+    private HintEngine hintEngine;
+
     /**
      * Completes initialization of this frame.
      */
@@ -1239,13 +1409,14 @@ public class MainFrame extends javax.swing.JFrame {
 
             jPanelPuzzle.setHighlight(
                     jCheckBoxMenuItemHighlight.getState());
+            jPanelPuzzle.setPencilMarks(
+                    jCheckBoxMenuItemPencilMarks.getState());
 
             final Collection<YCell> markedCells = new HashSet<>();
             // If available, set markedCells to cells involved in last command
 
             // if (undoRedo.canUndo()) {
-            // final Command command = undoRedo.lastDone();
-            // markedCells.addAll(command.getCells());
+            // markedCells.addAll(undoRedo.lastDoneCells());
             // }
 
             puzzlePanel.setMarkedCells(markedCells);
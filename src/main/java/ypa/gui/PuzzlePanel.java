@@ -63,6 +63,9 @@ public class PuzzlePanel extends javax.swing.JPanel {
     /** Whether symbols are highlighted. */
     private boolean highlight;
 
+    /** Whether candidate digits (pencil marks) are shown in empty cells. */
+    private boolean pencilMarks;
+
     /** Whether clearing the previous violated cell is used or not. */
     private boolean clear;
 
@@ -142,6 +145,15 @@ public class PuzzlePanel extends javax.swing.JPanel {
         this.highlight = newState;
     }
 
+    /**
+     * Sets whether to show the candidate digits of empty cells.
+     *
+     * @param newState the new pencil marks state
+     */
+    public void setPencilMarks(final boolean newState) {
+        this.pencilMarks = newState;
+    }
+
     /**
      * Sets the marked cells, which will be highlighted if enabled.
      *
@@ -255,7 +267,39 @@ public class PuzzlePanel extends javax.swing.JPanel {
             g.setColor(color);
 
             g.drawString(cell.toString(), x + delta_x, y - delta_y);
+        } else if (pencilMarks) {
+            paintPencilMarks(g, cell, x, y);
+        }
+    }
+
+    /**
+     * Draws the candidate digits of an empty cell in a square layout,
+     * with {@code n} digits per row, {@code n} the ceiling of the square root
+     * of the largest digit: digit {@code d} at row {@code (d - 1) / n},
+     * column {@code (d - 1) % n}.
+     *
+     * @param g    Graphics object to draw on
+     * @param cell the empty cell
+     * @param x    x-coordinate for bottom left corner of cell
+     * @param y    y-coordinate for bottom left corner of cell
+     */
+    private void paintPencilMarks(final Graphics g, final YCell cell,
+            final int x, final int y) {
+        final int perRow = (int) Math.ceil(Math.sqrt(cell.getMaxDigit()));
+        final Font font = g.getFont();
+        g.setFont(font.deriveFont(Font.PLAIN, font.getSize2D() * 3 / (2 * perRow)));
+        g.setColor(Color.GRAY);
+        final int step = cellSize / perRow;
+        int candidates = cell.getCandidates();
+        while (candidates != 0) {
+            final int digit = Integer.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            final int row = (digit - 1) / perRow;
+            final int column = (digit - 1) % perRow;
+            g.drawString(String.valueOf(digit), x + column * step + step / 3,
+                    y - cellSize + (row + 1) * step - step / 4);
         }
+        g.setFont(font);
     }
 
     /**
@@ -279,8 +323,8 @@ public class PuzzlePanel extends javax.swing.JPanel {
         final int circleDiameter = cellSize - (int) (0.5 * cellSize); // Circle 50% of cell size
         final int circleOffsetAdjustment = 1;
 
-        for (int i = 1; i <= 2; i++) {
-            for (int j = 1; j <= 2; j++) {
+        for (int i = 1; i < puzzle.getRowCount(); i++) {
+            for (int j = 1; j < puzzle.getColumnCount(); j++) {
                 int x = j * cellSize + circleOffset;
                 int y = i * cellSize + circleOffset;
 
@@ -293,8 +337,9 @@ public class PuzzlePanel extends javax.swing.JPanel {
         }
 
         if (circle != -1) {
-            int x = (circle % 2 + 1) * cellSize + circleOffset;
-            int y = (circle / 2 + 1) * cellSize + circleOffset;
+            final int circleColumns = puzzle.getColumnCount() - 1;
+            int x = (circle % circleColumns + 1) * cellSize + circleOffset;
+            int y = (circle / circleColumns + 1) * cellSize + circleOffset;
 
             g.setColor(new Color(255, 153, 0));
             g.fillOval(x + circleOffsetAdjustment, y + circleOffsetAdjustment,
@@ -442,8 +487,8 @@ public class PuzzlePanel extends javax.swing.JPanel {
         final int circleOffset = (int) (0.75 * cellSize);
         final int circleDiameter = cellSize - (int) (0.5 * cellSize);
 
-        for (int i = 1; i <= 2; i++) {
-            for (int j = 1; j <= 2; j++) {
+        for (int i = 1; i < puzzle.getRowCount(); i++) {
+            for (int j = 1; j < puzzle.getColumnCount(); j++) {
                 int x = j * cellSize + circleOffset;
                 int y = i * cellSize + circleOffset;
 
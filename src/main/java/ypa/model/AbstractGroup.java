@@ -21,6 +21,9 @@ public abstract class AbstractGroup implements Iterable<YCell> {
     /** Total value in all non-blocked cells. */
     private int total;
 
+    /** Number of changes to this group so far, used to stamp derived data. */
+    private int modCount;
+
     // Private invariants
     //   (\forall state : CellState.values();
     //     counts[state] == (\num_of i; cells.has(i);
@@ -28,10 +31,11 @@ public abstract class AbstractGroup implements Iterable<YCell> {
 
     /**
      * Constructs an empty group.
+     * Its cells may hold any digit up to {@link YGeometry#MAX_SUPPORTED_DIGIT}.
      */
     public AbstractGroup() {
         cells = new ArrayList<>();
-        counts = new Histogram();
+        counts = new Histogram(YGeometry.MAX_SUPPORTED_DIGIT);
         total = 0;
     }
 
@@ -68,6 +72,24 @@ public abstract class AbstractGroup implements Iterable<YCell> {
         if (state != YCell.BLOCKED) {
             total += state;
         }
+        markModified();
+    }
+
+    /**
+     * Removes the cell at a given position from this group.
+     *
+     * @param index  position of the cell to remove
+     * @pre {@code 0 <= index < getCount()}
+     * @post {@code this == \old(this - [cells.get(index)])}
+     */
+    void remove(final int index) {
+        final YCell cell = cells.remove(index);
+        final int state = cell.getState();
+        counts.adjust(state, -1);
+        if (state != YCell.BLOCKED) {
+            total -= state;
+        }
+        markModified();
     }
 
     /**
@@ -83,6 +105,24 @@ public abstract class AbstractGroup implements Iterable<YCell> {
         counts.adjust(state, -1);
         counts.adjust(newState, +1);
         total += -state + newState;
+        markModified();
+    }
+
+    /**
+     * Records that the contents or the specification of this group changed,
+     * so that data derived from it will be recomputed.
+     */
+    void markModified() {
+        ++modCount;
+    }
+
+    /**
+     * Gets the number of changes made to this group so far.
+     *
+     * @return the modification count of this group
+     */
+    int getModCount() {
+        return modCount;
     }
 
     /**
@@ -107,6 +147,31 @@ public abstract class AbstractGroup implements Iterable<YCell> {
         return counts.get(state);
     }
 
+    /**
+     * Gets the digits that occur in this group.
+     *
+     * @return bitmask with bit {@code d} set iff some cell has state {@code d}
+     */
+    public int getPresentDigits() {
+        return counts.getPresentMask();
+    }
+
+    /**
+     * Returns whether some digit occurs more than once in this group.
+     *
+     * @return whether {@code this} has duplicate digits
+     */
+    public boolean hasDuplicates() {
+        return counts.getDuplicateMask() != 0;
+    }
+
+    /**
+     * Gets the sum that the digits of this group have to make.
+     *
+     * @return the expected sum of {@code this}
+     */
+    public abstract int getExpectedSum();
+
     /**
      * Returns whether this group is valid, according to the rules.
      * A state is called valid, when it can be extended into a solution,
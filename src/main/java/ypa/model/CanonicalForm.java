@@ -0,0 +1,181 @@
+package ypa.model;
+
+import java.util.Arrays;
+
+/**
+ * The canonical representative of a puzzle under the symmetries of its board.
+ * Puzzles that are rotations or reflections of each other have the same
+ * canonical form: of all images of the circle sums and given digits under
+ * the {@link Symmetry symmetries} that apply, the one that comes first
+ * in lexicographic order, comparing circle sums first.
+ * <p>
+ * The form records the symmetry that maps the puzzle onto it, so that a
+ * solution of the canonical puzzle can be mapped back to the puzzle,
+ * and caches and corpora can keep one entry per class of equivalent puzzles.
+ * Two forms are equal if they have equal geometry, circles and digits.
+ */
+public final class CanonicalForm {
+
+    /** The board geometry. */
+    private final YGeometry geometry;
+
+    /** The canonical circle sums. */
+    private final int[] circles;
+
+    /** The canonical given digits, {@code YCell.EMPTY} if not given. */
+    private final int[] digits;
+
+    /** The symmetry that maps the puzzle onto this form. */
+    private final Symmetry symmetry;
+
+    /**
+     * Constructs a form.
+     *
+     * @param geometry  the board geometry
+     * @param circles  the canonical circle sums
+     * @param digits  the canonical digits
+     * @param symmetry  the symmetry that maps the puzzle onto the form
+     */
+    private CanonicalForm(final YGeometry geometry, final int[] circles, final int[] digits,
+            final Symmetry symmetry) {
+        this.geometry = geometry;
+        this.circles = circles;
+        this.digits = digits;
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Gets the canonical form of given circle sums and digits.
+     *
+     * @param geometry  the board geometry
+     * @param circles  the circle sums
+     * @param digits  the digit of each cell, {@code YCell.EMPTY} if not given
+     * @return the canonical form
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code circles.length == geometry.getCircleCount()
+     *   && digits.length == geometry.getCellCount()}
+     */
+    public static CanonicalForm of(final YGeometry geometry, final int[] circles,
+            final int[] digits) {
+        CanonicalForm best = null;
+        for (Symmetry candidate : Symmetry.values()) {
+            if (candidate.appliesTo(geometry)) {
+                final CanonicalForm image = new CanonicalForm(geometry,
+                        candidate.applyToCircles(geometry, circles),
+                        candidate.applyToCells(geometry, digits), candidate);
+                if (best == null || image.compareTo(best) < 0) {
+                    best = image;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the canonical form of the current state of a puzzle.
+     *
+     * @param puzzle  the puzzle
+     * @return the canonical form of its circle sums and filled cells
+     */
+    public static CanonicalForm of(final YPuzzle puzzle) {
+        return of(puzzle.getCircles(), puzzle.getGrid());
+    }
+
+    /**
+     * Gets the canonical form of circle sums and the current state of a grid.
+     *
+     * @param circles  the circle sums
+     * @param grid  the grid
+     * @return the canonical form of {@code circles} and the filled cells
+     * @pre {@code circles.length == grid.getGeometry().getCircleCount()}
+     */
+    public static CanonicalForm of(final int[] circles, final YGrid grid) {
+        final int[] digits = new int[grid.getSize()];
+        for (int i = 0; i < digits.length; ++i) {
+            digits[i] = grid.getValue(i);
+        }
+        return of(grid.getGeometry(), circles, digits);
+    }
+
+    /**
+     * Compares with another form of the same geometry.
+     *
+     * @param other  the other form
+     * @return negative, zero or positive if this form comes before,
+     *     together with, or after {@code other}
+     */
+    private int compareTo(final CanonicalForm other) {
+        final int result = Arrays.compare(circles, other.circles);
+        return result != 0 ? result : Arrays.compare(digits, other.digits);
+    }
+
+    public YGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Gets the canonical circle sums.
+     *
+     * @return copy of the circle sums
+     */
+    public int[] getCircles() {
+        return circles.clone();
+    }
+
+    /**
+     * Gets the canonical given digits.
+     *
+     * @return copy of the digits, {@code YCell.EMPTY} if not given
+     */
+    public int[] getDigits() {
+        return digits.clone();
+    }
+
+    public Symmetry getSymmetry() {
+        return symmetry;
+    }
+
+    /**
+     * Maps the cells of the puzzle onto the canonical form,
+     * e.g., a solution of the puzzle to a solution of the form.
+     *
+     * @param cells  the value of each cell of the puzzle
+     * @return the value of each cell of the form
+     */
+    public int[] toCanonical(final int[] cells) {
+        return symmetry.applyToCells(geometry, cells);
+    }
+
+    /**
+     * Maps the cells of the canonical form back onto the puzzle,
+     * e.g., a solution of the form to a solution of the puzzle.
+     *
+     * @param cells  the value of each cell of the form
+     * @return the value of each cell of the puzzle
+     */
+    public int[] toOriginal(final int[] cells) {
+        return symmetry.inverse().applyToCells(geometry, cells);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof CanonicalForm)) {
+            return false;
+        }
+        final CanonicalForm other = (CanonicalForm) obj;
+        return geometry.equals(other.geometry) && Arrays.equals(circles, other.circles)
+                && Arrays.equals(digits, other.digits);
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * geometry.hashCode() + Arrays.hashCode(circles)) * 31
+                + Arrays.hashCode(digits);
+    }
+
+    @Override
+    public String toString() {
+        return geometry + " " + Arrays.toString(circles) + " " + Arrays.toString(digits);
+    }
+
+}
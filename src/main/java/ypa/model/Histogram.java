@@ -1,36 +1,57 @@
 package ypa.model;
 
-import java.util.HashMap;
-
 /**
  * A histogram of cell states, counting how often each state occurs in a group.
+ * The counts are kept in a primitive array indexed by state,
+ * together with bitmasks of the digits that occur at least once and
+ * of the digits that occur more than once.
  *
  * @inv For each possible cell state, a count is maintained
+ * @inv {@code present == (\bitor d; 1 <= d; get(d) > 0 ? 1 << d : 0)}
+ * @inv {@code duplicates == (\bitor d; 1 <= d; get(d) > 1 ? 1 << d : 0)}
  *
  * @author Tom Verhoeff (Eindhoven University of Technology)
  */
-public class Histogram extends HashMap<Integer, Integer> {
+public class Histogram {
+
+    /** Largest state counted by default. */
+    public static final int DEFAULT_MAX_STATE = 9;
+
+    /** Offset of state {@code s} in {@code counts}. */
+    private static final int OFFSET = -YCell.BLOCKED;
+
+    /** The count of each state, state {@code s} at index {@code s + OFFSET}. */
+    private final int[] counts;
+
+    /** Bitmask of the digits that occur. */
+    private int present;
+
+    /** Bitmask of the digits that occur more than once. */
+    private int duplicates;
 
     /** Constructs an empty histogram. */
     public Histogram() {
-        super();
-        put(YCell.BLOCKED, 0);
-        put(YCell.EMPTY, 0);
+        this(DEFAULT_MAX_STATE);
+    }
+
+    /**
+     * Constructs an empty histogram for states up to a given maximum.
+     *
+     * @param maxState  the largest state to count
+     * @pre {@code 0 <= maxState < Integer.SIZE}
+     */
+    public Histogram(final int maxState) {
+        counts = new int[maxState + 1 + OFFSET];
     }
 
     /**
      * Returns the occurrence count for a given cell state.
      *
-     * @param key  the given cell state
-     * @return how often {@code key} occurs
+     * @param state  the given cell state
+     * @return how often {@code state} occurs
      */
-    @Override
-    public Integer get(Object key) {
-        Integer current = super.get(key);
-        if (current == null) {
-            current = 0;
-        }
-        return current;
+    public int get(final int state) {
+        return counts[state + OFFSET];
     }
 
     /**
@@ -44,7 +65,31 @@ public class Histogram extends HashMap<Integer, Integer> {
      *   {@code (\forall CellState s; s != state; get(s) == \old(get(s)))}
      */
     public void adjust(final int state, final int delta) {
-        put(state, get(state) + delta);
+        final int count = counts[state + OFFSET] + delta;
+        counts[state + OFFSET] = count;
+        if (state > YCell.EMPTY) {
+            final int bit = 1 << state;
+            present = count > 0 ? present | bit : present & ~bit;
+            duplicates = count > 1 ? duplicates | bit : duplicates & ~bit;
+        }
+    }
+
+    /**
+     * Gets the digits that occur at least once.
+     *
+     * @return bitmask with bit {@code d} set iff {@code get(d) > 0}
+     */
+    public int getPresentMask() {
+        return present;
+    }
+
+    /**
+     * Gets the digits that occur more than once.
+     *
+     * @return bitmask with bit {@code d} set iff {@code get(d) > 1}
+     */
+    public int getDuplicateMask() {
+        return duplicates;
     }
 
 }
@@ -0,0 +1,221 @@
+package ypa.model;
+
+/**
+ * Lookup table of the digit sets that make a given sum.
+ * Both the circles of a Sujiko puzzle and Kakuro-style entries require
+ * a number of distinct digits to add up to a target.
+ * For a cell count, a target sum and a mask of digits that may not be used,
+ * the table gives the mask of all digits that occur in at least one
+ * set of that many distinct, unused digits making the target sum.
+ * <p>
+ * The table is immutable and built on first use; it covers all
+ * {@code 3^9} pairs of disjoint digit sets, so building it is cheap.
+ * For boards with digits beyond 9, the overloads with a {@code maxDigit}
+ * parameter fall back to a relaxation based on bounds: a digit is kept when
+ * the other cells can make the rest of the sum with their smallest and their
+ * largest unused digits. That never removes a digit of a real solution.
+ *
+ * @inv {@code candidates(k, s, u) == (\bitor S; S subset of 1..9,
+ *   |S| == k, sum(S) == s, S disjoint u; S)}
+ */
+public final class SumCombinations {
+
+    /** Largest digit covered by the table. */
+    public static final int MAX_DIGIT = 9;
+
+    /** Bitmask of all digits; bit {@code d} represents digit {@code d}. */
+    public static final int ALL_DIGITS = ((1 << (MAX_DIGIT + 1)) - 1) & ~1;
+
+    /**
+     * Gets the bitmask of the digits from 1 up to a given maximum.
+     *
+     * @param maxDigit  the largest digit
+     * @return mask with bits 1 to {@code maxDigit} set
+     * @pre {@code 0 <= maxDigit < Integer.SIZE - 1}
+     */
+    public static int allDigits(final int maxDigit) {
+        return ((1 << (maxDigit + 1)) - 1) & ~1;
+    }
+
+    /** Largest sum of distinct digits. */
+    public static final int MAX_SUM = MAX_DIGIT * (MAX_DIGIT + 1) / 2;
+
+    /** Number of distinct digit sets, indexed by mask shifted right by one. */
+    private static final int SET_COUNT = 1 << MAX_DIGIT;
+
+    /** Prevents instantiation. */
+    private SumCombinations() {
+    }
+
+    /**
+     * Holder of the table, so that it is built lazily and thread-safely
+     * by the class loader.
+     */
+    private static final class Table {
+
+        /** Candidate masks, indexed by {@link #index(int, int, int)}. */
+        static final short[] CANDIDATES = build();
+
+        /**
+         * Builds the table, by adding every digit set to the entries
+         * of all the sets of used digits it is disjoint with.
+         *
+         * @return the table
+         */
+        private static short[] build() {
+            final short[] table = new short[(MAX_DIGIT + 1) * (MAX_SUM + 1) * SET_COUNT];
+            for (int set = 0; set < SET_COUNT; ++set) {
+                final int count = Integer.bitCount(set);
+                final int sum = sumOf(set << 1);
+                final int rest = (SET_COUNT - 1) & ~set;
+                // enumerate all subsets of rest, including rest and 0
+                int used = rest;
+                while (true) {
+                    table[index(count, sum, used)] |= (short) (set << 1);
+                    if (used == 0) {
+                        break;
+                    }
+                    used = (used - 1) & rest;
+                }
+            }
+            return table;
+        }
+
+    }
+
+    /**
+     * Computes the table index for a cell count, target sum and used digits.
+     *
+     * @param count  number of cells
+     * @param sum  target sum
+     * @param usedSet  used digits, shifted right by one
+     * @return index into the table
+     */
+    private static int index(final int count, final int sum, final int usedSet) {
+        return (count * (MAX_SUM + 1) + sum) * SET_COUNT + usedSet;
+    }
+
+    /**
+     * Computes the sum of the digits in a mask.
+     *
+     * @param mask  bitmask of digits
+     * @return sum of the digits in {@code mask}
+     */
+    public static int sumOf(final int mask) {
+        int result = 0;
+        int rest = mask;
+        while (rest != 0) {
+            result += Integer.numberOfTrailingZeros(rest);
+            rest &= rest - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the digits that can occur in a set of {@code count} distinct digits,
+     * not in {@code used}, that adds up to {@code sum}.
+     *
+     * @param count  number of cells still to fill
+     * @param sum  sum the cells still have to make
+     * @param used  bitmask of digits that may not be used
+     * @return bitmask of candidate digits; 0 if no such set exists
+     */
+    public static int candidates(final int count, final int sum, final int used) {
+        if (count < 1 || count > MAX_DIGIT || sum < 1 || sum > MAX_SUM) {
+            return 0;
+        }
+        return Table.CANDIDATES[index(count, sum, (used & ALL_DIGITS) >> 1)];
+    }
+
+    /**
+     * Gets the digits up to {@code maxDigit} that can occur in a set of
+     * {@code count} distinct digits, not in {@code used}, adding up to {@code sum}.
+     * Exact for {@code maxDigit <= MAX_DIGIT}; a bounds-based relaxation otherwise.
+     *
+     * @param count  number of cells still to fill
+     * @param sum  sum the cells still have to make
+     * @param used  bitmask of digits that may not be used
+     * @param maxDigit  the largest digit
+     * @return bitmask of candidate digits; 0 if no such set exists
+     */
+    public static int candidates(final int count, final int sum, final int used,
+            final int maxDigit) {
+        final int free = allDigits(maxDigit) & ~used;
+        if (maxDigit <= MAX_DIGIT) {
+            return candidates(count, sum, ~free);
+        }
+        if (count < 1 || Integer.bitCount(free) < count) {
+            return 0;
+        }
+        int result = 0;
+        int rest = free;
+        while (rest != 0) {
+            final int bit = Integer.lowestOneBit(rest);
+            rest ^= bit;
+            if (withinBounds(count - 1, sum - Integer.numberOfTrailingZeros(bit), free ^ bit)) {
+                result |= bit;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether a sum lies between the sums of the {@code count}
+     * smallest and the {@code count} largest digits of a set.
+     *
+     * @param count  the number of digits
+     * @param sum  the sum
+     * @param free  bitmask of the available digits, at least {@code count}
+     * @return whether {@code sum} can possibly be made
+     */
+    private static boolean withinBounds(final int count, final int sum, final int free) {
+        int low = free;
+        int high = free;
+        int min = 0;
+        int max = 0;
+        for (int i = 0; i < count; ++i) {
+            final int lowBit = Integer.lowestOneBit(low);
+            low ^= lowBit;
+            min += Integer.numberOfTrailingZeros(lowBit);
+            final int highBit = Integer.highestOneBit(high);
+            high ^= highBit;
+            max += Integer.numberOfTrailingZeros(highBit);
+        }
+        return min <= sum && sum <= max;
+    }
+
+    /**
+     * Returns whether {@code count} distinct digits up to {@code maxDigit},
+     * not in {@code used}, can (possibly) add up to {@code sum}.
+     *
+     * @param count  number of cells still to fill
+     * @param sum  sum the cells still have to make
+     * @param used  bitmask of digits that may not be used
+     * @param maxDigit  the largest digit
+     * @return whether such a set of digits may exist
+     */
+    public static boolean isFeasible(final int count, final int sum, final int used,
+            final int maxDigit) {
+        if (count == 0) {
+            return sum == 0;
+        }
+        return candidates(count, sum, used, maxDigit) != 0;
+    }
+
+    /**
+     * Returns whether {@code count} distinct digits, not in {@code used},
+     * can add up to {@code sum}.
+     *
+     * @param count  number of cells still to fill
+     * @param sum  sum the cells still have to make
+     * @param used  bitmask of digits that may not be used
+     * @return whether such a set of digits exists
+     */
+    public static boolean isFeasible(final int count, final int sum, final int used) {
+        if (count == 0) {
+            return sum == 0;
+        }
+        return candidates(count, sum, used) != 0;
+    }
+
+}
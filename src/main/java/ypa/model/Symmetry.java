@@ -0,0 +1,162 @@
+package ypa.model;
+
+/**
+ * The symmetries of a Sujiko board: the rotations and reflections of the
+ * square (the dihedral group of order 8).
+ * A symmetry moves the cells and the circles of a board consistently,
+ * since the circles form a grid of their own, one row and one column smaller.
+ * The symmetries that swap rows and columns apply to square boards only;
+ * the other four apply to every board.
+ */
+public enum Symmetry {
+
+    /** Leaves every cell in place. */
+    IDENTITY(false),
+    /** Rotates a quarter turn clockwise. */
+    ROTATE_90(true),
+    /** Rotates a half turn. */
+    ROTATE_180(false),
+    /** Rotates a quarter turn counterclockwise. */
+    ROTATE_270(true),
+    /** Reverses the order of the rows (mirror in the horizontal axis). */
+    FLIP_ROWS(false),
+    /** Reverses the order of the columns (mirror in the vertical axis). */
+    FLIP_COLUMNS(false),
+    /** Mirrors in the main diagonal. */
+    TRANSPOSE(true),
+    /** Mirrors in the anti-diagonal. */
+    ANTI_TRANSPOSE(true);
+
+    /** Whether this symmetry swaps rows and columns. */
+    private final boolean swapsAxes;
+
+    /**
+     * Constructs a symmetry.
+     *
+     * @param swapsAxes  whether it swaps rows and columns
+     */
+    Symmetry(final boolean swapsAxes) {
+        this.swapsAxes = swapsAxes;
+    }
+
+    /**
+     * Returns whether this symmetry maps boards of a geometry onto themselves.
+     *
+     * @param geometry  the geometry
+     * @return whether {@code geometry} is square, or this symmetry keeps
+     *     rows and columns apart
+     */
+    public boolean appliesTo(final YGeometry geometry) {
+        return !swapsAxes || geometry.getRows() == geometry.getColumns();
+    }
+
+    /**
+     * Gets the symmetry that undoes this one.
+     *
+     * @return the inverse of this symmetry
+     */
+    public Symmetry inverse() {
+        switch (this) {
+            case ROTATE_90:
+                return ROTATE_270;
+            case ROTATE_270:
+                return ROTATE_90;
+            default:
+                return this;
+        }
+    }
+
+    /**
+     * Gets the position that an element of a grid is moved to.
+     *
+     * @param rows  the number of rows of the grid
+     * @param columns  the number of columns of the grid
+     * @param index  the position of the element, in reading order
+     * @return the position of its image, in reading order
+     * @pre {@code rows == columns || !swapsAxes}
+     */
+    private int map(final int rows, final int columns, final int index) {
+        final int r = index / columns;
+        final int c = index % columns;
+        final int lastRow = rows - 1;
+        final int lastColumn = columns - 1;
+        switch (this) {
+            case ROTATE_90:
+                return c * rows + lastRow - r;
+            case ROTATE_180:
+                return (lastRow - r) * columns + lastColumn - c;
+            case ROTATE_270:
+                return (lastColumn - c) * rows + r;
+            case FLIP_ROWS:
+                return (lastRow - r) * columns + c;
+            case FLIP_COLUMNS:
+                return r * columns + lastColumn - c;
+            case TRANSPOSE:
+                return c * rows + r;
+            case ANTI_TRANSPOSE:
+                return (lastColumn - c) * rows + lastRow - r;
+            default:
+                return index;
+        }
+    }
+
+    /**
+     * Moves the values of the elements of a grid.
+     *
+     * @param rows  the number of rows of the grid
+     * @param columns  the number of columns of the grid
+     * @param values  the value of each element, in reading order
+     * @return the value of each element of the image, in reading order
+     */
+    private int[] apply(final int rows, final int columns, final int[] values) {
+        final int[] result = new int[values.length];
+        for (int i = 0; i < values.length; ++i) {
+            result[map(rows, columns, i)] = values[i];
+        }
+        return result;
+    }
+
+    /**
+     * Moves the values of the cells of a board.
+     *
+     * @param geometry  the board geometry
+     * @param cells  the value of each cell, e.g., its digit
+     * @return the value of each cell of the image
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code appliesTo(geometry) && cells.length == geometry.getCellCount()}
+     */
+    public int[] applyToCells(final YGeometry geometry, final int[] cells) {
+        check(geometry, cells.length != geometry.getCellCount());
+        return apply(geometry.getRows(), geometry.getColumns(), cells);
+    }
+
+    /**
+     * Moves the values of the circles of a board.
+     *
+     * @param geometry  the board geometry
+     * @param circles  the value of each circle, e.g., its sum
+     * @return the value of each circle of the image
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code appliesTo(geometry) && circles.length == geometry.getCircleCount()}
+     */
+    public int[] applyToCircles(final YGeometry geometry, final int[] circles) {
+        check(geometry, circles.length != geometry.getCircleCount());
+        return apply(geometry.getRows() - 1, geometry.getColumns() - 1, circles);
+    }
+
+    /**
+     * Checks the precondition of applying this symmetry.
+     *
+     * @param geometry  the board geometry
+     * @param wrongLength  whether the values do not match {@code geometry}
+     * @throws IllegalArgumentException  if precondition failed
+     */
+    private void check(final YGeometry geometry, final boolean wrongLength) {
+        if (!appliesTo(geometry) || wrongLength) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + ".apply().pre failed: " + this + " on " + geometry
+                    + (wrongLength ? " with wrong number of values" : ""));
+        }
+    }
+
+}
@@ -5,6 +5,16 @@ import java.util.List;
 
 /**
  * A grid cell for a Sujiko puzzle.
+ * A cell either stands on its own, or is a view on a position
+ * in the compact state of a {@link YGrid}.
+ * <p>
+ * An empty cell carries a candidate mask (pencil marks):
+ * bit {@code d} is set when digit {@code d} may still go in the cell.
+ * The mask combines the digits that the rules still allow, derived from
+ * the grid and the groups of the cell, with the digits that were
+ * explicitly eliminated.
+ * The derived part is recomputed only when the grid or one of the groups
+ * changed since it was last computed, so queries take constant time.
  *
  */
 public class YCell {
@@ -18,13 +28,28 @@ public class YCell {
     /** String for empty state. */
     public static final String EMPTY_STR = ".";
 
-    /** The cell's state. */
+    /** The cell's state, when not part of a grid. */
     private int state;
 
+    /** The grid holding this cell's state, or {@code null} if stand-alone. */
+    private final YGrid grid;
+
+    /** Position of this cell in {@code grid}. */
+    private final int index;
+
     private int location;
 
     /** The 2 groups which the cell belongs to. **/
     private List<AbstractGroup> groups;
+
+    /** Bitmask of the digits explicitly eliminated from this cell. */
+    private int eliminated;
+
+    /** Cached bitmask of the digits the rules allow in this cell. */
+    private int derived;
+
+    /** Modification stamp of the grid and groups when {@code derived} was computed. */
+    private long derivedStamp = -1;
     
     /**
      * Constructs a cell with a given state.
@@ -33,16 +58,40 @@ public class YCell {
      * @pre {@code state} is a valid state
      */
     public YCell(final int state) {
-        if (state < EMPTY || state > 9) {
+        if (state < EMPTY || state > SumCombinations.MAX_DIGIT) {
             throw new IllegalArgumentException(getClass().getSimpleName()
                     + "(" + state + ").pre failed");
         }
         this.state = state;
+        this.grid = null;
+        this.index = -1;
+        groups = new ArrayList<>();
+    }
+
+    /**
+     * Constructs a cell that is a view on a position in a grid.
+     *
+     * @param grid  the grid holding the state
+     * @param index  the position in {@code grid}
+     */
+    YCell(final YGrid grid, final int index) {
+        this.grid = grid;
+        this.index = index;
         groups = new ArrayList<>();
     }
 
     public int getState() {
-        return state;
+        return grid == null ? state : grid.getValue(index);
+    }
+
+    /**
+     * Gets the largest digit this cell can hold: that of its grid,
+     * or 9 for a stand-alone cell.
+     *
+     * @return the largest digit
+     */
+    public int getMaxDigit() {
+        return grid == null ? SumCombinations.MAX_DIGIT : grid.getMaxDigit();
     }
 
     /**
@@ -52,12 +101,20 @@ public class YCell {
      * @pre {@code state} is valid
      */
     public void setState(int state) {
-        if (state < EMPTY || state > 9) {
+        if (state < EMPTY || state > getMaxDigit()) {
             throw new IllegalArgumentException(getClass().getSimpleName()
-                    + ".setState().pre failed: state == ");
+                    + ".setState().pre failed: state == " + state);
+        }
+
+        // push the change into the groups while the old state is still visible
+        for (AbstractGroup group : groups) {
+            group.update(this, state);
+        }
+        if (grid == null) {
+            this.state = state;
+        } else {
+            grid.store(index, state);
         }
-        
-        this.state = state;
     }
 
     /**
@@ -66,7 +123,7 @@ public class YCell {
      * @return whether {@code this} is empty
      */
     public boolean isEmpty() {
-        return state == EMPTY;
+        return getState() == EMPTY;
     }
 
     /**
@@ -75,7 +132,7 @@ public class YCell {
      * @return whether {@code this} is filled
      */
     public boolean isFilled() {
-        return state > EMPTY;
+        return getState() > EMPTY;
     }
 
     /**
@@ -84,7 +141,17 @@ public class YCell {
      * @return whether this cell conforms to the rules
      */
     public boolean isValid() {
-        return EMPTY <= state && state <= 9;
+        final int current = getState();
+        return EMPTY <= current && current <= getMaxDigit();
+    }
+
+    /**
+     * Gets the position of this cell in its grid.
+     *
+     * @return index of this cell in its grid, or -1 if stand-alone
+     */
+    public int getIndex() {
+        return index;
     }
 
     public int getLocation() {
@@ -95,15 +162,126 @@ public class YCell {
         this.location = location;
     }
 
+    /**
+     * Adds a group to the groups of this cell.
+     *
+     * @param group  the group to add
+     */
     public void setGroup(YGroup group) {
         this.groups.add(group);
+        derivedStamp = -1;
+    }
+
+    /**
+     * Removes a group from the groups of this cell.
+     *
+     * @param group  the group to remove
+     */
+    void removeGroup(AbstractGroup group) {
+        this.groups.remove(group);
+        derivedStamp = -1;
+    }
+
+    /**
+     * Gets the digits that the rules still allow in this cell:
+     * digits not used elsewhere in the grid that, for every group
+     * of the cell, occur in some completion of that group's sum.
+     * A filled cell allows just its own digit.
+     *
+     * @return bitmask of the digits allowed by the rules
+     */
+    public int getDerivedCandidates() {
+        final int current = getState();
+        if (current != EMPTY) {
+            return 1 << current;
+        }
+        final long stamp = stamp();
+        if (stamp != derivedStamp) {
+            derived = deriveCandidates();
+            derivedStamp = stamp;
+        }
+        return derived;
+    }
+
+    /**
+     * Computes the modification stamp of everything the derived
+     * candidates depend on.
+     * Each modification count only increases, hence so does their sum.
+     *
+     * @return the current stamp
+     */
+    private long stamp() {
+        long result = grid == null ? 0 : grid.getModCount();
+        for (AbstractGroup group : groups) {
+            result += group.getModCount();
+        }
+        return result;
+    }
+
+    /**
+     * Computes the digits that the rules allow in this empty cell.
+     *
+     * @return bitmask of the allowed digits
+     */
+    private int deriveCandidates() {
+        final int maxDigit = getMaxDigit();
+        final int used = grid == null ? 0 : grid.getUsedDigits();
+        int result = SumCombinations.allDigits(maxDigit) & ~used;
+        for (AbstractGroup group : groups) {
+            if (group.getExpectedSum() > 0) {
+                result &= SumCombinations.candidates(group.getStateCount(EMPTY),
+                        group.getExpectedSum() - group.getTotal(),
+                        used | group.getPresentDigits(), maxDigit);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the candidate digits (pencil marks) of this cell:
+     * the derived candidates, minus the eliminated digits.
+     *
+     * @return bitmask of the candidate digits
+     */
+    public int getCandidates() {
+        return getDerivedCandidates() & ~eliminated;
+    }
+
+    /**
+     * Returns whether a digit is a candidate for this cell.
+     *
+     * @param digit  the digit to check
+     * @return whether bit {@code digit} of {@link #getCandidates()} is set
+     */
+    public boolean isCandidate(int digit) {
+        return (getCandidates() & (1 << digit)) != 0;
+    }
+
+    public int getEliminated() {
+        return eliminated;
+    }
+
+    /**
+     * Sets the digits explicitly eliminated from this cell.
+     *
+     * @param mask  bitmask of the eliminated digits
+     * @pre {@code (mask & ~SumCombinations.allDigits(getMaxDigit())) == 0}
+     * @throws IllegalArgumentException  if precondition failed
+     */
+    public void setEliminated(int mask) {
+        if ((mask & ~SumCombinations.allDigits(getMaxDigit())) != 0) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + ".setEliminated().pre failed: mask == " + mask);
+        }
+        this.eliminated = mask;
     }
 
     @Override
     public String toString() {
-        return switch (state) {
+        final int current = getState();
+        return switch (current) {
             case EMPTY -> EMPTY_STR;
-            default -> String.valueOf(state);
+            default -> String.valueOf(current);
         };
     }
 
@@ -21,20 +21,37 @@ import java.util.Scanner;
  *
  * @inv NoBlocked: {@code (\forall cell : this; ! cell.isBlocked)}
  *
- * @inv <br>Size: {@code this.getCount() == 4}  // For Sujiko, each group has exactly 4 cells
+ * @inv <br>Size: {@code this.getCount() == getLength()}  // 4 for a Sujiko circle
  */
 public class YEntry extends AbstractGroup {
 
+    /** Number of cells of a Sujiko circle. */
+    public static final int DEFAULT_LENGTH = 4;
+
     /** The expected sum for this entry. */
     private final int expectedSum;
 
+    /** The number of cells of this entry. */
+    private final int length;
+
     /**
      * Constructs a {@code YEntry} from a given expected sum.
      *
      * @param expectedSum the given expected sum
      */
     public YEntry(final int expectedSum) {
+        this(expectedSum, DEFAULT_LENGTH);
+    }
+
+    /**
+     * Constructs a {@code YEntry} from a given expected sum and length.
+     *
+     * @param expectedSum the given expected sum
+     * @param length the number of cells
+     */
+    public YEntry(final int expectedSum, final int length) {
         this.expectedSum = expectedSum;
+        this.length = length;
     }
 
     /**
@@ -43,9 +60,10 @@ public class YEntry extends AbstractGroup {
      * @param scanner  the given scanner
      */
     public YEntry(final Scanner scanner) {
-        this.expectedSum = scanner.nextInt();
+        this(scanner.nextInt());
     }
 
+    @Override
     public int getExpectedSum() {
         return expectedSum;
     }
@@ -67,11 +85,9 @@ public class YEntry extends AbstractGroup {
 
     @Override
     public boolean isValid() {
-        for (YCell cell : this) {
-            if (!cell.isEmpty() && this.getStateCount(cell.getState()) > 1) {
-                // digit occurs more than once
-                return false;
-            }
+        if (hasDuplicates()) {
+            // digit occurs more than once
+            return false;
         }
         final int total = this.getTotal();
         final int emptyCount = this.getStateCount(YCell.EMPTY);
@@ -125,6 +141,6 @@ public class YEntry extends AbstractGroup {
     }
 
     public int getLength() {
-        return 4;
+        return length;
     }
 }
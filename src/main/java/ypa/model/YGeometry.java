@@ -0,0 +1,220 @@
+package ypa.model;
+
+import java.util.Arrays;
+
+/**
+ * Geometry of a Sujiko board: a grid of {@code rows} by {@code columns} cells,
+ * with a circle at every interior crossing of grid lines,
+ * covering the 2x2 block of cells around it.
+ * Each digit from 1 to {@code maxDigit} may occur at most once;
+ * by default {@code maxDigit} equals the number of cells,
+ * so that every digit occurs exactly once in a solution.
+ * Cells and circles are both numbered in reading order.
+ * <p>
+ * Instances are immutable; the standard puzzle is {@link #STANDARD}.
+ *
+ * @inv {@code 2 <= rows && 2 <= columns}
+ * @inv {@code rows * columns <= maxDigit <= MAX_SUPPORTED_DIGIT}
+ */
+public final class YGeometry {
+
+    /** Largest supported digit, so that digit sets fit in an {@code int} mask. */
+    public static final int MAX_SUPPORTED_DIGIT = 30;
+
+    /** The geometry of the standard 3x3 puzzle with 4 circles. */
+    public static final YGeometry STANDARD = new YGeometry(3, 3);
+
+    /** Number of rows of cells. */
+    private final int rows;
+
+    /** Number of columns of cells. */
+    private final int columns;
+
+    /** Largest digit that can be placed in a cell. */
+    private final int maxDigit;
+
+    /** For each circle, the indices of the cells around it. */
+    private final int[][] circleCells;
+
+    /** For each cell, the indices of the circles it belongs to. */
+    private final int[][] cellCircles;
+
+    /**
+     * Constructs a geometry in which every digit occurs exactly once.
+     *
+     * @param rows  the number of rows
+     * @param columns  the number of columns
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code 2 <= rows && 2 <= columns
+     *   && rows * columns <= MAX_SUPPORTED_DIGIT}
+     */
+    public YGeometry(final int rows, final int columns) {
+        this(rows, columns, rows * columns);
+    }
+
+    /**
+     * Constructs a geometry with a given digit range.
+     *
+     * @param rows  the number of rows
+     * @param columns  the number of columns
+     * @param maxDigit  the largest digit
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code 2 <= rows && 2 <= columns
+     *   && rows * columns <= maxDigit <= MAX_SUPPORTED_DIGIT}
+     */
+    public YGeometry(final int rows, final int columns, final int maxDigit) {
+        if (rows < 2 || columns < 2 || maxDigit < rows * columns
+                || maxDigit > MAX_SUPPORTED_DIGIT) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: " + rows + "x" + columns + ", digits up to " + maxDigit);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.maxDigit = maxDigit;
+        this.circleCells = new int[(rows - 1) * (columns - 1)][];
+        for (int c = 0; c < circleCells.length; ++c) {
+            final int topLeft = index(c / (columns - 1), c % (columns - 1));
+            circleCells[c] = new int[] {
+                topLeft, topLeft + 1, topLeft + columns, topLeft + columns + 1,
+            };
+        }
+        this.cellCircles = invert(circleCells, rows * columns);
+    }
+
+    /**
+     * Gets the square geometry with a given number of circles.
+     *
+     * @param circleCount  the number of circles
+     * @return the square geometry with {@code circleCount} circles
+     * @throws IllegalArgumentException  if {@code circleCount} is not
+     *   the square of a positive number
+     */
+    public static YGeometry forCircleCount(final int circleCount) {
+        final int side = (int) Math.round(Math.sqrt(circleCount));
+        if (circleCount < 1 || side * side != circleCount) {
+            throw new IllegalArgumentException(YGeometry.class.getSimpleName()
+                    + ".forCircleCount().pre failed: " + circleCount
+                    + " circles do not form a square board");
+        }
+        return side == 2 ? STANDARD : new YGeometry(side + 1, side + 1);
+    }
+
+    /**
+     * Computes, for every cell, the circles that contain it.
+     *
+     * @param circleCells  the cells of each circle
+     * @param cellCount  the number of cells
+     * @return the circles of each cell
+     */
+    private static int[][] invert(final int[][] circleCells, final int cellCount) {
+        final int[] counts = new int[cellCount];
+        for (int[] cells : circleCells) {
+            for (int cell : cells) {
+                ++counts[cell];
+            }
+        }
+        final int[][] result = new int[cellCount][];
+        for (int i = 0; i < cellCount; ++i) {
+            result[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int c = 0; c < circleCells.length; ++c) {
+            for (int cell : circleCells[c]) {
+                result[cell][counts[cell]++] = c;
+            }
+        }
+        return result;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getMaxDigit() {
+        return maxDigit;
+    }
+
+    public int getCellCount() {
+        return rows * columns;
+    }
+
+    public int getCircleCount() {
+        return circleCells.length;
+    }
+
+    /**
+     * Gets the bitmask of all digits; bit {@code d} represents digit {@code d}.
+     *
+     * @return mask with bits 1 to {@code getMaxDigit()} set
+     */
+    public int getAllDigits() {
+        return SumCombinations.allDigits(maxDigit);
+    }
+
+    /**
+     * Gets the index of the cell in a given row and column.
+     *
+     * @param row  the row
+     * @param column  the column
+     * @return the index of the cell, in reading order
+     */
+    public int index(final int row, final int column) {
+        return row * columns + column;
+    }
+
+    /**
+     * Gets the cells around each circle.
+     *
+     * @return a fresh array holding, per circle, the indices of its cells
+     */
+    public int[][] getCircleCells() {
+        return deepCopy(circleCells);
+    }
+
+    /**
+     * Gets the circles of each cell.
+     *
+     * @return a fresh array holding, per cell, the indices of its circles
+     */
+    public int[][] getCellCircles() {
+        return deepCopy(cellCircles);
+    }
+
+    /**
+     * Copies a two-dimensional array.
+     *
+     * @param array  the array to copy
+     * @return a copy of {@code array} sharing no rows with it
+     */
+    private static int[][] deepCopy(final int[][] array) {
+        final int[][] result = new int[array.length][];
+        for (int i = 0; i < array.length; ++i) {
+            result[i] = array[i].clone();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof YGeometry)) {
+            return false;
+        }
+        final YGeometry other = (YGeometry) obj;
+        return rows == other.rows && columns == other.columns && maxDigit == other.maxDigit;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new int[] {rows, columns, maxDigit});
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + columns + " (digits 1.." + maxDigit + ")";
+    }
+
+}
@@ -3,76 +3,181 @@ package ypa.model;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
- * A 3x3 grid of cells for a Sujiko puzzle,
+ * A grid of cells for a Sujiko puzzle,
  * representing the solution grid.
+ * Its dimensions, digit range and circle groups come from a {@link YGeometry};
+ * by default, the standard 3x3 geometry.
  *
+ * The state is kept in a compact form: one byte per cell, a bitmask of
+ * occupied cells, and a {@link Histogram} of the digits.
+ * The {@code YCell} objects of the grid are views on this state,
+ * so that solvers and reasoners can query and copy it cheaply.
+ *
+ * @inv {@code occupied == (\bitor i; digits[i] != EMPTY; 1 << i)}
+ * @inv {@code counts} holds the states of all cells
  */
 public class YGrid extends HashSet<YCell> {
 
-    /** The grid of cells as a list of 9 numbers. */
-    private final List<YCell> grid = new ArrayList<>();
+    /** Number of bits available in {@link #pack()}. */
+    private static final int PACK_BITS = Long.SIZE - 1;
+
+    /** The dimensions and circles of this grid. */
+    private final YGeometry geometry;
+
+    /** Bitmask with a bit for every cell of the grid. */
+    private final int allCells;
+
+    /** Number of bits per cell in {@link #pack()}. */
+    private final int bitsPerCell;
+
+    /** The digit in each cell, {@code YCell.EMPTY} if empty. */
+    private final byte[] digits;
+
+    /** Bitmask of the filled cells; bit {@code i} represents cell {@code i}. */
+    private int occupied;
+
+    /** Number of state changes so far, used to stamp derived data. */
+    private int modCount;
+
+    /** How often each state occurs in the grid. */
+    private final Histogram counts;
+
+    /** The grid of cells as a list of views. */
+    private final List<YCell> grid;
 
     /** Groups of 4 cell and 1 circle. */
     private List<YGroup> groups = new ArrayList<>();
-    
-    private Set<Integer> filledCell;
 
     /**
-     * Constructor for an empty grid.
+     * Constructor for an empty standard grid.
      */
     public YGrid() {
-        for (int i = 0; i < 9; i++) {
-            grid.add(new YCell(YCell.EMPTY));
-            grid.get(i).setLocation(i + 1);
-        }
+        this(YGeometry.STANDARD);
+    }
+
+    /**
+     * Constructor for an empty grid of a given geometry,
+     * with a group for every circle.
+     *
+     * @param geometry  the geometry of the grid
+     */
+    public YGrid(YGeometry geometry) {
+        this(geometry, true);
+    }
 
-        for (int i = 0; i < 4; i++) {
-            groups.add(new YGroup(i + 1));
+    /**
+     * Constructs an empty grid of a given geometry.
+     *
+     * @param geometry  the geometry of the grid
+     * @param withGroups  whether to create a group for every circle
+     */
+    private YGrid(YGeometry geometry, boolean withGroups) {
+        this.geometry = geometry;
+        final int size = geometry.getCellCount();
+        this.allCells = (1 << size) - 1;
+        this.bitsPerCell = Integer.SIZE - Integer.numberOfLeadingZeros(geometry.getMaxDigit());
+        this.digits = new byte[size];
+        this.counts = new Histogram(geometry.getMaxDigit());
+        this.grid = new ArrayList<>(size);
+        createCells();
+        if (withGroups) {
+            final int[][] circleCells = geometry.getCircleCells();
+            for (int c = 0; c < circleCells.length; c++) {
+                final YGroup group = new YGroup(c + 1);
+                for (int cell : circleCells[c]) {
+                    group.addCell(grid.get(cell));
+                }
+                groups.add(group);
+            }
         }
-        // 1 2 4 5
-        groups.get(0).addCell(grid.get(0));
-        groups.get(0).addCell(grid.get(1));
-        groups.get(0).addCell(grid.get(3));
-        groups.get(0).addCell(grid.get(4));
-
-        // 2 3 5 6
-        groups.get(1).addCell(grid.get(1));
-        groups.get(1).addCell(grid.get(2));
-        groups.get(1).addCell(grid.get(4));
-        groups.get(1).addCell(grid.get(5));
-        // 4 5 7 8
-        groups.get(2).addCell(grid.get(3));
-        groups.get(2).addCell(grid.get(4));
-        groups.get(2).addCell(grid.get(6));
-        groups.get(2).addCell(grid.get(7));
-        // 5 6 8 9
-        groups.get(3).addCell(grid.get(4));
-        groups.get(3).addCell(grid.get(5));
-        groups.get(3).addCell(grid.get(7));
-        groups.get(3).addCell(grid.get(8));
-
-        filledCell = new HashSet<>();
     }
 
     /**
      * Constructor that initializes the grid with a list of integers.
      * Each integer represents the state of a cell in the grid.
+     * The grid is square; no groups are created.
      *
      * @param initialStates the list of initial states for the cells.
-     * @throws IllegalArgumentException if the list does not contain exactly 9
-     *                                  elements.
+     * @throws IllegalArgumentException if the number of elements is not
+     *                                  the square of at least 2.
      */
     public YGrid(List<Integer> initialStates) {
-        if (initialStates == null || initialStates.size() != 9) {
-            throw new IllegalArgumentException("Initial states must contain exactly 9 elements.");
+        this(squareGeometry(initialStates), false);
+        for (int i = 0; i < initialStates.size(); i++) {
+            grid.get(i).setState(initialStates.get(i));
+        }
+    }
+
+    /**
+     * Copy constructor that initializes the grid with a copy of another YGrid.
+     * Only the geometry and the cell states are copied, not the groups.
+     *
+     * @param original the YGrid to copy.
+     */
+    public YGrid(YGrid original) {
+        this(checkedGeometry(original), false);
+        copyFrom(original);
+    }
+
+    /**
+     * Gets the square geometry for a list of cell states.
+     *
+     * @param states  the cell states
+     * @return the geometry with as many cells as {@code states}
+     * @throws IllegalArgumentException  if there is no such geometry
+     */
+    private static YGeometry squareGeometry(List<Integer> states) {
+        final int side = states == null ? 0 : (int) Math.round(Math.sqrt(states.size()));
+        if (side < 2 || side * side != states.size()) {
+            throw new IllegalArgumentException(
+                    "Initial states must contain exactly n * n elements, e.g. 9.");
+        }
+        return side == 3 ? YGeometry.STANDARD : new YGeometry(side, side);
+    }
+
+    /**
+     * Gets the geometry of a grid to copy.
+     *
+     * @param original  the grid to copy
+     * @return the geometry of {@code original}
+     * @throws IllegalArgumentException  if {@code original == null}
+     */
+    private static YGeometry checkedGeometry(YGrid original) {
+        if (original == null) {
+            throw new IllegalArgumentException("Original YGrid cannot be null.");
         }
-        for (int state : initialStates) {
-            grid.add(new YCell(state));
+        return original.geometry;
+    }
+
+    /**
+     * Creates the cell views on the compact state.
+     */
+    private void createCells() {
+        counts.adjust(YCell.EMPTY, digits.length);
+        for (int i = 0; i < digits.length; i++) {
+            YCell cell = new YCell(this, i);
+            cell.setLocation(i + 1);
+            grid.add(cell);
         }
-        filledCell = new HashSet<>();
+    }
+
+    public YGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Gets the number of cells of this grid.
+     *
+     * @return the number of cells
+     */
+    public int getSize() {
+        return digits.length;
+    }
+
+    public int getMaxDigit() {
+        return geometry.getMaxDigit();
     }
 
     public YCell getCell(int position) {
@@ -80,7 +185,7 @@ public class YGrid extends HashSet<YCell> {
     }
 
     public int getValue(int position) {
-        return grid.get(position).getState();
+        return digits[position];
     }
 
     public List<YGroup> getGroups() {
@@ -97,15 +202,111 @@ public class YGrid extends HashSet<YCell> {
         grid.get(position).setState(value);
     }
 
+    /**
+     * Stores a new state for a cell and updates the bookkeeping.
+     * Called by the cell views; clients use {@link YCell#setState(int)}.
+     *
+     * @param position  the position of the cell
+     * @param value  the new state, assumed valid
+     */
+    void store(int position, int value) {
+        final int old = digits[position];
+        if (old == value) {
+            return;
+        }
+        counts.adjust(old, -1);
+        counts.adjust(value, +1);
+        if (value != YCell.EMPTY) {
+            occupied |= 1 << position;
+        } else {
+            occupied &= ~(1 << position);
+        }
+        digits[position] = (byte) value;
+        ++modCount;
+    }
+
+    /**
+     * Gets the number of state changes made to this grid so far.
+     *
+     * @return the modification count of this grid
+     */
+    int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Copies the cell states of another grid into this grid,
+     * without allocating.
+     *
+     * @param other  the grid to copy from
+     * @pre {@code other != null}
+     * @modifies {@code this}
+     */
+    public void copyFrom(YGrid other) {
+        for (int i = 0; i < digits.length; i++) {
+            grid.get(i).setState(other.digits[i]);
+        }
+    }
+
+    /**
+     * Gets the bitmask of the filled cells.
+     *
+     * @return bitmask with bit {@code i} set iff cell {@code i} is filled
+     */
+    public int getOccupiedMask() {
+        return occupied;
+    }
+
+    /**
+     * Gets the bitmask of the digits present in this grid.
+     *
+     * @return bitmask with bit {@code d} set iff digit {@code d} occurs
+     */
+    public int getUsedDigits() {
+        return counts.getPresentMask();
+    }
+
+    /**
+     * Returns whether the digits of this grid fit in {@link #pack()}.
+     *
+     * @return whether this grid can be packed
+     */
+    public boolean canPack() {
+        return digits.length * bitsPerCell <= PACK_BITS;
+    }
+
+    /**
+     * Gets the number of bits per cell used by {@link #pack()}.
+     *
+     * @return the bits needed for the largest digit
+     */
+    public int getBitsPerCell() {
+        return bitsPerCell;
+    }
+
+    /**
+     * Packs the digits of all cells into a single number,
+     * {@code getBitsPerCell()} bits per cell, cell 0 in the lowest bits;
+     * four bits per cell for the standard grid.
+     *
+     * @return the packed digits of this grid
+     * @throws IllegalStateException  if {@code !canPack()}
+     */
+    public long pack() {
+        if (!canPack()) {
+            throw new IllegalStateException(getClass().getSimpleName()
+                    + ".pack(): " + geometry + " does not fit");
+        }
+        long result = 0;
+        for (int i = digits.length - 1; 0 <= i; i--) {
+            result = (result << bitsPerCell) | digits[i];
+        }
+        return result;
+    }
+
     /** Used for duplicate checking. */
     public boolean isValuePresent(int value) {
-        filledCell.clear();
-        for (YCell cell: grid) {
-            if (cell.getState() != 0) {
-                filledCell.add(cell.getState());
-            }
-        }
-        return filledCell.contains(value);
+        return (counts.getPresentMask() & (1 << value)) != 0;
     }
 
     /**
@@ -114,22 +315,8 @@ public class YGrid extends HashSet<YCell> {
      * @return whether this is valid
      */
     public boolean isValid() {
-        HashSet<Integer> seen = new HashSet<>();
-        for (YCell cell : grid) {
-            // Check if every value is between 0 and 9 (both included)
-            if (!cell.isValid()) {
-                return false;
-            }
-
-            // Check for duplicates between 1 and 9 (there shouldn't be any)
-            int value = cell.getState();
-            if (value > 0) {
-                if (!seen.add(value)) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        // cell states are range-checked on entry, so only duplicates remain
+        return counts.getDuplicateMask() == 0;
     }
 
     /**
@@ -138,12 +325,7 @@ public class YGrid extends HashSet<YCell> {
      * @return whether this is full
      */
     public boolean isFull() {
-        for (YCell cell : grid) {
-            if (cell.isEmpty()) {
-                return false;
-            }
-        }
-        return true;
+        return occupied == allCells;
     }
 
     /**
@@ -166,38 +348,20 @@ public class YGrid extends HashSet<YCell> {
         StringBuilder builder = new StringBuilder();
         for (int i = 0; i < grid.size(); i++) {
             builder.append(grid.get(i).toString()).append(" ");
-            if ((i + 1) % 3 == 0 && i != grid.size() - 1) {
+            if ((i + 1) % geometry.getColumns() == 0 && i != grid.size() - 1) {
                 builder.append("\n");
             }
         }
         return builder.toString();
     }
 
-    /**
-     * Copy constructor that initializes the grid with a copy of another YGrid.
-     *
-     * @param original the YGrid to copy.
-     */
-    public YGrid(YGrid original) {
-        if (original == null) {
-            throw new IllegalArgumentException("Original YGrid cannot be null.");
-        }
-        for (YCell cell : original.grid) {
-            this.grid.add(new YCell(cell.getState()));
-        }
-    }
-
     /**
      * Creates a deep copy of this YGrid for the background worker.
-     * 
+     *
      * @return a cloned instance of this YGrid.
      */
     @Override
     public YGrid clone() {
-        List<Integer> initialStates = new ArrayList<>();
-        for (YCell cell : this.grid) {
-            initialStates.add(cell.getState());
-        }
-        return new YGrid(initialStates);
+        return new YGrid(this);
     }
 }
@@ -4,6 +4,9 @@ import java.util.*;
 
 /**
  * A group of cells, without validity condition.
+ * The sum and the number of filled cells are maintained incrementally
+ * by {@link AbstractGroup}, as cells push their state changes into it,
+ * so all queries below take constant time.
  *
  */
 public class YGroup extends AbstractGroup {
@@ -13,69 +16,96 @@ public class YGroup extends AbstractGroup {
     }
 
     public int groupNum;
-    List<YCell> cellGroup;
     private int expectedSum;
 
     /** Constructs a group of cell. */
     public YGroup(int groupNum) {
-        cellGroup = new ArrayList<>(4);
         this.groupNum = groupNum;
-    
     }
-    
+
+    /**
+     * Sets the sum that the cells of this group have to make.
+     *
+     * @param expectedSum  the new expected sum
+     */
     public void setExpectedSum(int expectedSum) {
         this.expectedSum = expectedSum;
+        markModified();
+    }
+
+    @Override
+    public int getExpectedSum() {
+        return expectedSum;
     }
 
-    /** Add a cell to the current group. */    
+    /** Add a cell to the current group. */
     public void addCell(YCell cell) {
-        cellGroup.add(cell);
+        add(cell);
         cell.setGroup(this);
     }
-    
+
+    /**
+     * Removes the cell at a given position from this group.
+     *
+     * @param index  position of the cell to remove
+     */
     public void removeCell(int index) {
-        cellGroup.remove(index);
+        final YCell cell = getCells().get(index);
+        remove(index);
+        cell.removeGroup(this);
     }
 
     /** Check the current sum of cells against the expected sum. */
     public boolean equalsExpectedSum() {
-        if (isFull()) {
-            int currSum = 0;
-            for (YCell cell: cellGroup) {
-                currSum += cell.getState();
-            }
-            return currSum == expectedSum;
-        } else {
-            return false;
-        }
+        return isFull() && getTotal() == expectedSum;
+    }
+
+    /**
+     * Returns whether this group is full, but does not make its expected sum.
+     *
+     * @return whether the cells of this group violate the circle
+     */
+    public boolean isViolated() {
+        return isFull() && getTotal() != expectedSum;
+    }
+
+    /**
+     * Gets the sum that the empty cells of this group still have to make.
+     *
+     * @return {@code getExpectedSum() - getTotal()}
+     */
+    public int getRemainingSum() {
+        return expectedSum - getTotal();
+    }
+
+    /**
+     * Gets the number of filled cells in this group.
+     *
+     * @return number of non-empty cells
+     */
+    public int getFilledCount() {
+        return getCount() - getStateCount(YCell.EMPTY);
+    }
 
-    } 
-    
     /** Get this list of the loations of the cells whose sum do not equal the target. */
     public List<YCell> getCells() {
         List<YCell> list = new ArrayList<>();
-        for (YCell cell: cellGroup) {
+        for (YCell cell: this) {
             list.add(cell);
         }
         return list;
     }
-    
-    /** Checks if all 4 cells has been filled out. */
+
+    /** Checks if all cells of the group have been filled out. */
     public boolean isFull() {
-        int filledCell = 0;
-        for (YCell cell: cellGroup) {
-            if (cell.getState() != YCell.EMPTY) {
-                filledCell++;
-            }
-        }
-        return filledCell == 4;
+        return getFilledCount() == getCount();
     }
 
     @Override
     public String toString() {
-        String res = "ID:" + String.valueOf(groupNum) + ", Expected Sum: " 
+        String res = "ID:" + String.valueOf(groupNum) + ", Expected Sum: "
             + String.valueOf(expectedSum) + "\n";
-        for (YCell yc: cellGroup) {
+        for (YCell yc: this) {
             res += yc.toString() + "\n";
         }
         return res;
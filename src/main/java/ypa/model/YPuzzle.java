@@ -18,8 +18,11 @@ import ypa.solvers.YBacktrackSolver;
  * <li>a name;
  * <li>a mode of operation;
  * <li>a grid of cells YGrid representing the solution;
- * <li>an array of 4 numbers representing the 4 given hints / circles;
+ * <li>an array of numbers representing the given hints / circles,
+ *     4 for the standard 3x3 board;
  * </ul>
+ * The board geometry follows from the number of circles read:
+ * {@code (n - 1) * (n - 1)} circles make an {@code n} by {@code n} board.
  *
  */
 public class YPuzzle {
@@ -44,7 +47,7 @@ public class YPuzzle {
 
     private YGrid grid;
 
-    /** The array of 4 numbers representing the 4 given hints. */
+    /** The numbers representing the given hints, one per circle. */
     private final int[] circles;
 
     /** Error message to display. */
@@ -53,40 +56,79 @@ public class YPuzzle {
     /**
      * Constructs a new puzzle with initial state read from given scanner
      * and with a given name.
-     * The actual dimensions are determined from the input.
+     * The actual dimensions are determined from the input:
+     * the circle sums come first, followed by the given cells,
+     * each as row letter, column number and digit.
      *
      * @param scanner the given scanner
      * @param name    the given name
+     * @throws IllegalArgumentException if the circles do not form a square board
      */
     public YPuzzle(final Scanner scanner, final String name) {
-        this.name = name;
-        this.mode = Mode.VIEW;
-        this.grid = new YGrid();
-        this.circles = createCircles(scanner);
-        List<YGroup> list = grid.getGroups();
-        for (int i = 0; i < 4; i++) {
-            list.get(i).setExpectedSum(circles[i]);
-        }
+        this(name, createCircles(scanner));
+        final YGeometry geometry = grid.getGeometry();
         while (scanner.hasNext()) {
             String rowChar = scanner.next();
             int row = rowChar.charAt(0) - 'a';
             int col = scanner.nextInt();
             int value = scanner.nextInt();
 
-            int position = row * 3 + col; // Convert row and column to position
+            int position = geometry.index(row, col); // Convert row and column to position
             this.grid.setCell(position, value);
         }
         scanner.close();
     }
 
-    private static int[] createCircles(Scanner sc) {
-        int[] circles = new int[4];
-
-        for (int i = 0; i < 4; i++) {
-            circles[i] = sc.nextInt();
+    /**
+     * Constructs a new, empty puzzle of a given geometry.
+     *
+     * @param geometry the board geometry
+     * @param circles  the circle sums, in reading order
+     * @param name     the given name
+     * @throws IllegalArgumentException if the number of circles does not match
+     * @pre {@code circles.length == geometry.getCircleCount()}
+     */
+    public YPuzzle(final YGeometry geometry, final int[] circles, final String name) {
+        if (circles.length != geometry.getCircleCount()) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + "().pre failed: " + circles.length + " circles for " + geometry);
+        }
+        this.name = name;
+        this.mode = Mode.VIEW;
+        this.grid = new YGrid(geometry);
+        this.circles = circles.clone();
+        List<YGroup> list = grid.getGroups();
+        for (int i = 0; i < circles.length; i++) {
+            list.get(i).setExpectedSum(circles[i]);
         }
-        // sc.close();
+    }
 
+    /**
+     * Constructs a new, empty puzzle with the square geometry
+     * that has the given number of circles.
+     *
+     * @param name    the given name
+     * @param circles the circle sums, in reading order
+     */
+    private YPuzzle(final String name, final int[] circles) {
+        this(YGeometry.forCircleCount(circles.length), circles, name);
+    }
+
+    /**
+     * Reads the circle sums: all integers up to the first given cell.
+     *
+     * @param sc the scanner to read from
+     * @return the circle sums
+     */
+    private static int[] createCircles(Scanner sc) {
+        List<Integer> list = new ArrayList<>();
+        while (sc.hasNextInt()) {
+            list.add(sc.nextInt());
+        }
+        int[] circles = new int[list.size()];
+        for (int i = 0; i < circles.length; i++) {
+            circles[i] = list.get(i);
+        }
         return circles;
     }
 
@@ -234,12 +276,16 @@ public class YPuzzle {
         grid.clear();
     }
 
+    public YGeometry getGeometry() {
+        return grid.getGeometry();
+    }
+
     public int getRowCount() {
-        return 3;
+        return grid.getGeometry().getRows();
     }
 
     public int getColumnCount() {
-        return 3;
+        return grid.getGeometry().getColumns();
     }
 
     /**
@@ -250,8 +296,7 @@ public class YPuzzle {
      * @return YCell
      */
     public YCell getCell(int r, int c) {
-        int index = 3 * r + c;
-        return grid.getCell(index);
+        return grid.getCell(grid.getGeometry().index(r, c));
     }
 
     /**
@@ -293,7 +338,7 @@ public class YPuzzle {
         List<YGroup> groups = grid.getGroups();
         List<YCell> violated = new ArrayList<>();
         for (YGroup yg : groups) {
-            if (!yg.equalsExpectedSum() && yg.isFull()) {
+            if (yg.isViolated()) {
                 violated.addAll(yg.getCells());
             }
         }
@@ -308,8 +353,10 @@ public class YPuzzle {
         sb.append(grid.toString()).append("\n");
 
         sb.append("Circles:\n");
-        sb.append(circles[0]).append(" ").append(circles[1]).append("\n");
-        sb.append(circles[2]).append(" ").append(circles[3]).append("\n");
+        final int perRow = getColumnCount() - 1;
+        for (int i = 0; i < circles.length; i++) {
+            sb.append(circles[i]).append((i + 1) % perRow == 0 ? "\n" : " ");
+        }
 
         return sb.toString();
     }
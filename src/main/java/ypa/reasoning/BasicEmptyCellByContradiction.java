@@ -1,12 +1,12 @@
 package ypa.reasoning;
 
-import ypa.command.Command;
 import ypa.command.CompoundCommand;
 import ypa.command.SetCommand;
 import ypa.model.YCell;
+import ypa.model.YGeometry;
 import ypa.model.YPuzzle;
-import ypa.solvers.YAbstractSolver;
-import ypa.solvers.YBacktrackSolver;
+import ypa.solvers.SolvabilityChecker;
+import ypa.solvers.SolverStatistics;
 import ypa.model.YGrid;
 
 /**
@@ -14,61 +14,100 @@ import ypa.model.YGrid;
  * then that one way of filling is forced.
  * This is slightly more general (and possibly more costly) than
  * the {@link EntryWithOneEmptyCell} reasoner.
+ * <p>
+ * Trials are checked by one {@link SolvabilityChecker}, kept across
+ * applications, so that results proven in earlier trials are reused
+ * and the puzzle is not modified while trying.
  *
  * @author Tom Verhoeff (Eindhoven University of Technology)
  */
 public class BasicEmptyCellByContradiction extends EmptyCellReasoner {
 
+    /** Checker for the circles of the puzzle; replaced when they change. */
+    private SolvabilityChecker checker;
+
     public BasicEmptyCellByContradiction(YPuzzle puzzle) {
         super(puzzle);
     }
 
     /**
-     * Checks the solvability of a given grid using a backtracking solver.
+     * Gets the checker for the current circles of the puzzle.
+     *
+     * @return the checker
+     */
+    private SolvabilityChecker getChecker() {
+        final int[] circles = puzzle.getCircles();
+        final YGeometry geometry = puzzle.getGeometry();
+        if (checker == null || !checker.hasCircles(geometry, circles)) {
+            checker = new SolvabilityChecker(geometry, circles);
+            checker.setStatistics(statistics);
+        }
+        return checker;
+    }
+
+    @Override
+    public void setStatistics(final SolverStatistics statistics) {
+        super.setStatistics(statistics);
+        if (checker != null) {
+            checker.setStatistics(statistics);
+        }
+    }
+
+    /**
+     * Gets the number of search nodes explored by the trials so far,
+     * for the current circles of the puzzle.
+     *
+     * @return the number of nodes, see {@link SolvabilityChecker#getNodeCount()}
+     */
+    public long getNodeCount() {
+        return checker == null ? 0 : checker.getNodeCount();
+    }
+
+    /**
+     * Checks the solvability of a given grid for the circles of the puzzle.
      *
      * @param grid The grid to be checked for solvability.
      * @return {@code true} if the grid is solvable, {@code false} otherwise.
      */
     protected boolean checkSolvability(YGrid grid) {
-        Reasoner reasoner = null;
-        YAbstractSolver solver = new YBacktrackSolver(puzzle, reasoner);
-
-        return solver.isSolvableFromExisting(grid);
+        return getChecker().isSolvable(grid);
     }
 
     @Override
     CompoundCommand applyToCell(final YCell cell) throws NullPointerException {
         CompoundCommand result = super.applyToCell(cell);
-        Command candidateForcedCommand = null; // command that worked, if any
+        final YGrid grid = puzzle.getGrid();
+        final SolvabilityChecker trials = getChecker();
+        int forcedState = YCell.EMPTY; // state that worked, if any
 
-        for (int state = 1; state <= 9; ++state) {
-            Command command = new SetCommand(cell, state);
-            command.execute();
-            boolean check = checkSolvability(puzzle.getGrid());
-            boolean valid = puzzle.isValid() && check;
-            command.revert();
-            if (valid) {
-                // no contraction; command is a candidate
-                if (candidateForcedCommand == null) {
-                    // first command that is valid; memorize it
-                    candidateForcedCommand = command;
+        // digits outside the derived candidates lead to a contradiction anyway
+        int candidates = cell.getDerivedCandidates();
+        while (candidates != 0) {
+            final int state = Integer.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            if (trials.isSolvable(grid, cell.getIndex(), state)) {
+                // no contradiction; state is a candidate
+                if (forcedState == YCell.EMPTY) {
+                    // first state that is valid; memorize it
+                    forcedState = state;
                 } else {
                     // multiple valid ways of filling cell; no forced command
-                    result.add(command); // Add the command to the result
                     return result;
                 }
+            } else if (statistics != null) {
+                statistics.prune(SolverStatistics.Prune.CONTRADICTION);
             }
         }
-        // at most one command worked
+        // at most one state worked
 
-        if (candidateForcedCommand == null) {
-            // all commands failed: puzzle not solvable
+        if (forcedState == YCell.EMPTY) {
+            // all states failed: puzzle not solvable
             return null;
         } else {
-            // exactly one command worked
-            result.add(candidateForcedCommand);
+            // exactly one state worked
+            result.add(new SetCommand(cell, forcedState));
             return result;
         }
     }
 
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package ypa.reasoning;
 
 import ypa.command.CompoundCommand;
 import ypa.model.YPuzzle;
+import ypa.solvers.SolverStatistics;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -36,6 +37,21 @@ public class CompoundReasoner extends Reasoner {
                     + ".add().pre failed: reasoning == null");
         }
         reasoners.add(reasoner);
+        if (statistics != null) {
+            reasoner.setStatistics(statistics);
+        }
+    }
+
+    @Override
+    public void setStatistics(final SolverStatistics statistics) {
+        if (statistics == this.statistics) {
+            // also ends cycles of reasoners
+            return;
+        }
+        super.setStatistics(statistics);
+        for (Reasoner reasoner : reasoners) {
+            reasoner.setStatistics(statistics);
+        }
     }
 
     @Override
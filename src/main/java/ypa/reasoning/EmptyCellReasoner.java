@@ -1,5 +1,6 @@
 package ypa.reasoning;
 
+import java.util.List;
 import ypa.command.CompoundCommand;
 import ypa.model.YCell;
 import ypa.model.YPuzzle;
@@ -13,12 +14,17 @@ import ypa.model.YPuzzle;
  * {@code applyToCell()}.
  * It stops on the first cell where it either finds a forced command
  * or a contradiction.
+ * Each scan starts where the previous deduction was made, wrapping around,
+ * so that repeated application does not rescan the same cells first.
  * If no such cell is found, then it returns an empty list.
  *
  * @author Tom Verhoeff (Eindhoven University of Technology)
  */
 public abstract class EmptyCellReasoner extends Reasoner {
 
+    /** Index of the cell where the next scan starts. */
+    private int cursor;
+
     public EmptyCellReasoner(YPuzzle puzzle) {
         super(puzzle);
     }
@@ -27,15 +33,22 @@ public abstract class EmptyCellReasoner extends Reasoner {
     public CompoundCommand apply() {
         final CompoundCommand result = super.apply();
 
-        // Apply reasoner to all empty cells, execute and return command
-        for (YCell cell : puzzle.getCells()) {
+        // Apply reasoner to all empty cells, execute and return command.
+        // The scan resumes at the cell of the previous deduction, since
+        // the cells before it were found not to force anything then.
+        final List<YCell> cells = puzzle.getCells();
+        final int count = cells.size();
+        for (int k = 0; k < count; ++k) {
+            final int i = (cursor + k) % count;
+            final YCell cell = cells.get(i);
             if (cell.isEmpty()) {
                 CompoundCommand command = applyToCell(cell);
                 if (command == null) {
                     return command;
                 } else if (command.size() > 0) {
                     command.execute();
-                    return command;
+                    cursor = i;
+                    return recorded(command);
                 }
             }
         }
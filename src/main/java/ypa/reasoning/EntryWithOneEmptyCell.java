@@ -1,17 +1,20 @@
 package ypa.reasoning;
 
-import ypa.command.Command;
 import ypa.command.CompoundCommand;
 import ypa.command.SetCommand;
 import ypa.model.AbstractGroup;
+import ypa.model.SumCombinations;
 import ypa.model.YCell;
-import ypa.model.YEntry;
 import ypa.model.YPuzzle;
-import ypa.model.YGroup;
 
 /**
  * When all cells but one of an entry have been filled,
  * then the last empty cell remaining can be calculated.
+ * This applies to every group with an expected sum,
+ * both circles and entries.
+ * The digit is looked up in {@link SumCombinations}, intersected with
+ * what the other groups of the cell still allow,
+ * so no trial execution of commands is needed.
  *
  * @author Tom Verhoeff (Eindhoven University of Technology)
  */
@@ -29,28 +32,25 @@ public class EntryWithOneEmptyCell extends EmptyCellReasoner {
         }
         CompoundCommand result = super.applyToCell(cell);
 
+        final int used = puzzle.getGrid().getUsedDigits();
+        final int maxDigit = cell.getMaxDigit();
+        int candidates = SumCombinations.allDigits(maxDigit) & ~used;
+        boolean forced = false;
         for (AbstractGroup g : cell.groups()) {
-            if (g instanceof YEntry && g.getStateCount(YCell.EMPTY) == 1) {
-                // g is a horizontal or vertical entry with one empty cell
-                int sum = ((YEntry) g).getSpecification().getSum();
-                int newState = sum - g.getTotal();
-                if (!puzzle.isValid()) {
-                    return null;
-                }
-                final Command command = new SetCommand(cell, newState);
-                command.execute();
-                final boolean valid = puzzle.isValid();
-                command.revert();
-                if (valid) {
-                    result.add(command);
-                    return result;
-                } else {
-                    return null;
-                }
-            }
+            final int empty = g.getStateCount(YCell.EMPTY);
+            candidates &= SumCombinations.candidates(empty,
+                    g.getExpectedSum() - g.getTotal(), used | g.getPresentDigits(), maxDigit);
+            forced |= empty == 1;
         }
-
+        if (!forced) {
+            return result;
+        }
+        // some group of cell has cell as its only empty cell
+        if (candidates == 0 || !puzzle.isValid()) {
+            return null;
+        }
+        result.add(new SetCommand(cell, Integer.numberOfTrailingZeros(candidates)));
         return result;
     }
 
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import ypa.command.CompoundCommand;
 import ypa.command.SetCommand;
 import ypa.model.YPuzzle;
 import ypa.model.YCell;
+import ypa.solvers.SolverStatistics;
 
 /**
  * When only one way of filling an empty cell does not lead to an invalid state
@@ -22,6 +23,9 @@ public class GeneralizedEmptyCellByContradiction extends EmptyCellReasoner {
     /** The reasoner to apply before checking validity. */
     private final Reasoner reasoner;
 
+    /** Number of trials in progress, nested through the reasoner. */
+    private int trialDepth;
+
     /**
      * Constructs a reasoner for the given puzzle and reasoner.
      *
@@ -55,6 +59,16 @@ public class GeneralizedEmptyCellByContradiction extends EmptyCellReasoner {
         reasoner = this;
     }
 
+    @Override
+    public void setStatistics(final SolverStatistics statistics) {
+        if (statistics == this.statistics) {
+            // also ends cycles of reasoners
+            return;
+        }
+        super.setStatistics(statistics);
+        reasoner.setStatistics(statistics);
+    }
+
     @Override
     CompoundCommand applyToCell(final YCell cell) throws NullPointerException {
         if (!puzzle.isValid()) {
@@ -63,11 +77,15 @@ public class GeneralizedEmptyCellByContradiction extends EmptyCellReasoner {
         CompoundCommand result = super.applyToCell(cell);
         CompoundCommand candidateForcedCommand = null; // command that worked, if any
 
-        for (int state = 1; state <= 9; ++state) {
+        // digits outside the derived candidates lead to a contradiction anyway
+        int candidates = cell.getDerivedCandidates();
+        while (candidates != 0) {
+            final int state = Integer.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
             CompoundCommand command = new CompoundCommand();
             command.add(new SetCommand(cell, state));
             command.execute();
-            CompoundCommand compound = reasoner.apply();
+            CompoundCommand compound = trial();
             if (compound != null) {
                 // no contradiction
                 command.add(compound);
@@ -96,4 +114,29 @@ public class GeneralizedEmptyCellByContradiction extends EmptyCellReasoner {
         }
     }
 
+    /**
+     * Applies the reasoner to a trial digit, recording the trial as a node,
+     * a refutation as a prune, and taking it back as a backtrack.
+     *
+     * @return the result of the reasoner, see {@link Reasoner#apply()}
+     */
+    private CompoundCommand trial() {
+        if (statistics == null) {
+            return reasoner.apply();
+        }
+        ++trialDepth;
+        statistics.node(trialDepth);
+        final CompoundCommand result;
+        try {
+            result = reasoner.apply();
+        } finally {
+            --trialDepth;
+        }
+        if (result == null) {
+            statistics.prune(SolverStatistics.Prune.CONTRADICTION);
+        }
+        statistics.backtrack();
+        return result;
+    }
+
 }
\ No newline at end of file
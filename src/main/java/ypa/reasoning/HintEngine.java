@@ -0,0 +1,298 @@
+package ypa.reasoning;
+
+import java.util.Arrays;
+import ypa.command.CompoundCommand;
+import ypa.model.AbstractGroup;
+import ypa.model.YCell;
+import ypa.model.YGrid;
+import ypa.model.YGroup;
+import ypa.model.YPuzzle;
+
+/**
+ * Finds the next forced deduction of a puzzle, with its justification,
+ * without filling it in.
+ * The deductions are tried from cheap to costly:
+ * <ol>
+ * <li>the only empty cell of a circle ({@link EntryWithOneEmptyCell});</li>
+ * <li>a cell that allows just one digit (naked single, as in
+ *   {@link PropagationReasoner});</li>
+ * <li>a digit that fits in just one cell (hidden single, as in
+ *   {@link PropagationReasoner});</li>
+ * <li>a cell where every other digit leads to a contradiction by
+ *   single entries ({@link GeneralizedEmptyCellByContradiction});</li>
+ * <li>a cell where every other digit leaves the puzzle unsolvable
+ *   ({@link BasicEmptyCellByContradiction}).</li>
+ * </ol>
+ * The first three are read off the derived candidates of the cells.
+ * The last two are reasoners that are applied and reverted, so the puzzle
+ * ends up unchanged; they are kept across requests, so that what their
+ * trials proved is reused.
+ * <p>
+ * The hint for the latest state is remembered, so repeated requests
+ * for the same circles and cells cost one comparison.
+ */
+public class HintEngine {
+
+    /** The puzzle to give hints for. */
+    private final YPuzzle puzzle;
+
+    /** The reasoners by contradiction, cheapest first. */
+    private final Reasoner[] trials;
+
+    /** Justification of a deduction by each of {@code trials}. */
+    private static final String[] TRIAL_REASONS = {
+        "every other digit leads to a contradiction by single entries",
+        "every other digit leaves the puzzle unsolvable",
+    };
+
+    /** The circles and cells for which {@code hint} holds, or {@code null}. */
+    private int[] hintState;
+
+    /** The hint for {@code hintState}. */
+    private Hint hint;
+
+    /**
+     * Constructs a hint engine for a puzzle.
+     *
+     * @param puzzle  the puzzle
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code puzzle != null}
+     */
+    public HintEngine(final YPuzzle puzzle) {
+        if (puzzle == null) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: puzzle == null");
+        }
+        this.puzzle = puzzle;
+        this.trials = new Reasoner[] {
+            new GeneralizedEmptyCellByContradiction(puzzle,
+                    new FixpointReasoner(puzzle, new EntryWithOneEmptyCell(puzzle))),
+            new BasicEmptyCellByContradiction(puzzle),
+        };
+    }
+
+    public YPuzzle getPuzzle() {
+        return puzzle;
+    }
+
+    /**
+     * Gets the next forced deduction for the current state of the puzzle.
+     *
+     * @return the cheapest deduction, or {@code null} if the puzzle is full,
+     *     cannot be solved, or nothing is forced
+     * @post puzzle unchanged
+     */
+    public Hint next() {
+        final int[] state = snapshot();
+        if (!Arrays.equals(state, hintState)) {
+            hint = puzzle.isValid() ? find() : null;
+            hintState = state;
+        }
+        return hint;
+    }
+
+    /**
+     * Gets the circle sums followed by the cell digits of the puzzle.
+     *
+     * @return the state that determines the hint
+     */
+    private int[] snapshot() {
+        final int[] circles = puzzle.getCircles();
+        final YGrid grid = puzzle.getGrid();
+        final int[] state = Arrays.copyOf(circles, circles.length + grid.getSize());
+        for (int i = 0; i < grid.getSize(); ++i) {
+            state[circles.length + i] = grid.getValue(i);
+        }
+        return state;
+    }
+
+    /**
+     * Finds the cheapest deduction.
+     *
+     * @return the deduction, or {@code null} if none
+     */
+    private Hint find() {
+        Hint result = findSingleEntry();
+        if (result == null) {
+            result = findNakedSingle();
+        }
+        if (result == null) {
+            result = findHiddenSingle();
+        }
+        for (int i = 0; result == null && i < trials.length; ++i) {
+            result = tryReasoner(trials[i], TRIAL_REASONS[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Finds a circle with one empty cell, whose digit is then forced.
+     *
+     * @return the deduction, or {@code null} if none
+     */
+    private Hint findSingleEntry() {
+        for (YGroup group : puzzle.getGrid().getGroups()) {
+            if (group.getExpectedSum() > 0 && group.getStateCount(YCell.EMPTY) == 1) {
+                final YCell cell = emptyCellOf(group);
+                final int candidates = cell.getDerivedCandidates();
+                if (Integer.bitCount(candidates) == 1) {
+                    return new Hint(cell, Integer.numberOfTrailingZeros(candidates),
+                            EntryWithOneEmptyCell.class.getSimpleName(), group,
+                            "it is the only empty cell of circle " + group.groupNum
+                            + ", which needs " + (group.getExpectedSum() - group.getTotal())
+                            + " more");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the empty cell of a group.
+     *
+     * @param group  the group
+     * @return an empty cell of {@code group}
+     * @pre {@code group.getStateCount(YCell.EMPTY) > 0}
+     */
+    private static YCell emptyCellOf(final AbstractGroup group) {
+        for (YCell cell : group) {
+            if (cell.isEmpty()) {
+                return cell;
+            }
+        }
+        throw new IllegalStateException("no empty cell");
+    }
+
+    /**
+     * Finds an empty cell that allows just one digit.
+     *
+     * @return the deduction, or {@code null} if none
+     */
+    private Hint findNakedSingle() {
+        for (YCell cell : puzzle.getCells()) {
+            if (cell.isEmpty() && Integer.bitCount(cell.getDerivedCandidates()) == 1) {
+                return new Hint(cell, Integer.numberOfTrailingZeros(cell.getDerivedCandidates()),
+                        PropagationReasoner.class.getSimpleName(), null,
+                        "it is the only unused digit that all its circles allow");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds an unused digit that fits in just one empty cell,
+     * if every digit has to occur.
+     *
+     * @return the deduction, or {@code null} if none
+     */
+    private Hint findHiddenSingle() {
+        final YGrid grid = puzzle.getGrid();
+        if (grid.getSize() != grid.getMaxDigit()) {
+            return null;
+        }
+        int unused = grid.getGeometry().getAllDigits() & ~grid.getUsedDigits();
+        while (unused != 0) {
+            final int digit = Integer.numberOfTrailingZeros(unused);
+            unused &= unused - 1;
+            YCell only = null;
+            int count = 0;
+            for (YCell cell : puzzle.getCells()) {
+                if (cell.isEmpty() && (cell.getDerivedCandidates() & 1 << digit) != 0) {
+                    only = cell;
+                    ++count;
+                }
+            }
+            if (count == 1) {
+                return new Hint(only, digit, PropagationReasoner.class.getSimpleName(), null,
+                        "digit " + digit + " fits in no other cell");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies a reasoner, and reverts its deduction.
+     *
+     * @param reasoner  the reasoner
+     * @param reason  the justification of a deduction by {@code reasoner}
+     * @return the deduction for the cell the reasoner made it for,
+     *     rather than for one of its consequences, or {@code null} if none
+     */
+    private Hint tryReasoner(final Reasoner reasoner, final String reason) {
+        final CompoundCommand command = reasoner.apply();
+        if (command == null || command.size() == 0) {
+            return null;
+        }
+        final YCell cell = command.getFirstCell();
+        final int digit = cell.getState();
+        command.revert();
+        return new Hint(cell, digit, reasoner.getClass().getSimpleName(), null, reason);
+    }
+
+    /**
+     * A forced deduction: a digit for an empty cell, with its justification.
+     */
+    public static final class Hint {
+
+        /** The empty cell. */
+        private final YCell cell;
+
+        /** The digit forced in {@code cell}. */
+        private final int digit;
+
+        /** Simple name of the reasoner that makes the deduction. */
+        private final String reasoner;
+
+        /** The circle that forces the digit, or {@code null} if not one circle. */
+        private final AbstractGroup group;
+
+        /** Why the digit is forced. */
+        private final String reason;
+
+        /**
+         * Constructs a hint.
+         *
+         * @param cell  the empty cell
+         * @param digit  the digit forced in {@code cell}
+         * @param reasoner  simple name of the reasoner that makes the deduction
+         * @param group  the circle that forces the digit, or {@code null}
+         * @param reason  why the digit is forced
+         */
+        Hint(final YCell cell, final int digit, final String reasoner,
+                final AbstractGroup group, final String reason) {
+            this.cell = cell;
+            this.digit = digit;
+            this.reasoner = reasoner;
+            this.group = group;
+            this.reason = reason;
+        }
+
+        public YCell getCell() {
+            return cell;
+        }
+
+        public int getDigit() {
+            return digit;
+        }
+
+        public String getReasoner() {
+            return reasoner;
+        }
+
+        public AbstractGroup getGroup() {
+            return group;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Cell " + cell.getLocation() + " must be " + digit + ": " + reason
+                    + " (" + reasoner + ")";
+        }
+
+    }
+
+}
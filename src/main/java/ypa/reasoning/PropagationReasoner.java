@@ -0,0 +1,281 @@
+package ypa.reasoning;
+
+import java.util.List;
+import ypa.command.CompoundCommand;
+import ypa.command.SetCommand;
+import ypa.model.AbstractGroup;
+import ypa.model.YCell;
+import ypa.model.YGrid;
+import ypa.model.YGroup;
+import ypa.model.YPuzzle;
+import ypa.solvers.SolverStatistics;
+
+/**
+ * Propagates the candidate masks of the cells to a fixpoint,
+ * using a worklist of dirty groups.
+ * Initially all groups are dirty.
+ * A dirty group is examined by inspecting the candidates of its empty cells:
+ * <ul>
+ * <li>a cell without candidates is a contradiction;</li>
+ * <li>a cell with a single candidate is filled with it
+ *   (naked single).</li>
+ * </ul>
+ * Placing a digit makes the groups of that cell dirty, and, since the digits
+ * of the grid are distinct, also the groups of every empty cell that had
+ * that digit as a candidate.
+ * When no group is dirty, the whole grid is checked once more: for cells
+ * without candidates or with a single one, whose candidates can also shrink
+ * when a digit used elsewhere rules out sum combinations of their circles,
+ * and, if every digit occurs exactly once in the grid, for digits that
+ * fit in just one cell (hidden single).
+ * Only when that check places nothing is the grid at a fixpoint.
+ * The work done is thus proportional to the changes made,
+ * instead of rescanning every cell after every deduction,
+ * as {@link FixpointReasoner} around an {@link EmptyCellReasoner} does.
+ */
+public class PropagationReasoner extends Reasoner {
+
+    public PropagationReasoner(YPuzzle puzzle) {
+        super(puzzle);
+    }
+
+    @Override
+    public CompoundCommand apply() {
+        final CompoundCommand result = super.apply();
+        if (!puzzle.isValid()) {
+            return null;
+        }
+        final Worklist worklist = new Worklist(puzzle.getGrid().getGroups());
+        boolean progress = true;
+        while (progress) {
+            while (!worklist.isEmpty()) {
+                if (!examine(worklist.poll(), worklist, result)) {
+                    result.revert();
+                    return null;
+                }
+            }
+            final int placed = sweep(worklist, result);
+            if (placed < 0) {
+                result.revert();
+                return null;
+            }
+            progress = placed > 0;
+        }
+        return recorded(result);
+    }
+
+    /**
+     * Examines the empty cells of a dirty group, filling naked singles.
+     *
+     * @param group  the group to examine
+     * @param worklist  the worklist to add newly dirty groups to
+     * @param result  the command to add executed commands to
+     * @return whether no contradiction was found
+     */
+    private boolean examine(final AbstractGroup group, final Worklist worklist,
+            final CompoundCommand result) {
+        for (YCell cell : group) {
+            if (cell.isEmpty() && !examine(cell, worklist, result)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Examines an empty cell, filling it if it is a naked single.
+     *
+     * @param cell  the empty cell to examine
+     * @param worklist  the worklist to add newly dirty groups to
+     * @param result  the command to add executed commands to
+     * @return whether {@code cell} has a candidate
+     */
+    private boolean examine(final YCell cell, final Worklist worklist,
+            final CompoundCommand result) {
+        final int candidates = cell.getDerivedCandidates();
+        if (candidates == 0) {
+            if (statistics != null) {
+                statistics.prune(SolverStatistics.Prune.NO_CANDIDATES);
+            }
+            return false;
+        }
+        if (Integer.bitCount(candidates) == 1) {
+            place(cell, Integer.numberOfTrailingZeros(candidates), worklist, result);
+        }
+        return true;
+    }
+
+    /**
+     * Checks every empty cell of the grid, and places the first naked
+     * single found, or else the first hidden single.
+     *
+     * @param worklist  the worklist to add newly dirty groups to
+     * @param result  the command to add executed commands to
+     * @return 1 if a digit was placed, 0 if none was found,
+     *     and -1 on a contradiction (a cell or an unused digit fits nowhere)
+     */
+    private int sweep(final Worklist worklist, final CompoundCommand result) {
+        final YGrid grid = puzzle.getGrid();
+        int once = 0;
+        int twice = 0;
+        for (int i = 0; i < grid.getSize(); ++i) {
+            final YCell cell = grid.getCell(i);
+            if (cell.isEmpty()) {
+                final int candidates = cell.getDerivedCandidates();
+                if (Integer.bitCount(candidates) <= 1) {
+                    return examine(cell, worklist, result) ? 1 : -1;
+                }
+                twice |= once & candidates;
+                once |= candidates;
+            }
+        }
+        return findHiddenSingle(once, twice, worklist, result);
+    }
+
+    /**
+     * Looks for an unused digit that fits in exactly one empty cell
+     * of the grid, and places the first one found.
+     *
+     * @param once  the digits that are a candidate of some empty cell
+     * @param twice  the digits that are a candidate of two or more empty cells
+     * @param worklist  the worklist to add newly dirty groups to
+     * @param result  the command to add executed commands to
+     * @return 1 if a digit was placed, 0 if none was found,
+     *     and -1 on a contradiction (an unused digit fits nowhere)
+     */
+    private int findHiddenSingle(final int once, final int twice, final Worklist worklist,
+            final CompoundCommand result) {
+        final YGrid grid = puzzle.getGrid();
+        if (grid.getSize() != grid.getMaxDigit()) {
+            return 0; // not every digit needs to occur
+        }
+        final int unused = grid.getGeometry().getAllDigits() & ~grid.getUsedDigits();
+        if ((unused & ~once) != 0) {
+            return -1;
+        }
+        final int single = unused & ~twice;
+        if (single == 0) {
+            return 0;
+        }
+        final int digit = Integer.numberOfTrailingZeros(single);
+        for (int i = 0; i < grid.getSize(); ++i) {
+            final YCell cell = grid.getCell(i);
+            if (cell.isEmpty() && (cell.getDerivedCandidates() & 1 << digit) != 0) {
+                place(cell, digit, worklist, result);
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Fills a cell and marks dirty its groups and those of the other empty
+     * cells that lose {@code digit} as a candidate.
+     *
+     * @param cell  the empty cell to fill
+     * @param digit  the digit to place
+     * @param worklist  the worklist to add the dirty groups to
+     * @param result  the command to add the executed command to
+     */
+    private void place(final YCell cell, final int digit, final Worklist worklist,
+            final CompoundCommand result) {
+        final YGrid grid = puzzle.getGrid();
+        for (int i = 0; i < grid.getSize(); ++i) {
+            final YCell other = grid.getCell(i);
+            if (other.isEmpty() && (other.getDerivedCandidates() & 1 << digit) != 0) {
+                for (AbstractGroup group : other.groups()) {
+                    worklist.offer(group);
+                }
+            }
+        }
+        final SetCommand command = new SetCommand(cell, digit);
+        command.execute();
+        result.add(command);
+    }
+
+    /**
+     * Queue of dirty groups, in which each group occurs at most once.
+     */
+    private static final class Worklist {
+
+        /** The groups that can be queued. */
+        private final List<YGroup> groups;
+
+        /** Ring buffer of indices into {@code groups}. */
+        private final int[] queue;
+
+        /** Whether each group is in the queue. */
+        private final boolean[] inQueue;
+
+        /** Position of the head in {@code queue}. */
+        private int head;
+
+        /** Number of queued groups. */
+        private int size;
+
+        /**
+         * Constructs a worklist holding all given groups.
+         *
+         * @param groups  the groups
+         */
+        Worklist(final List<YGroup> groups) {
+            this.groups = groups;
+            this.queue = new int[groups.size()];
+            this.inQueue = new boolean[groups.size()];
+            for (int g = 0; g < groups.size(); ++g) {
+                queue[g] = g;
+                inQueue[g] = true;
+            }
+            this.size = groups.size();
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Adds a group, unless it is already queued or unknown.
+         *
+         * @param group  the group to add
+         */
+        void offer(final AbstractGroup group) {
+            final int g = indexOf(group);
+            if (g >= 0 && !inQueue[g]) {
+                inQueue[g] = true;
+                queue[(head + size) % queue.length] = g;
+                ++size;
+            }
+        }
+
+        /**
+         * Finds the position of a group in {@code groups} in constant time:
+         * the circles of a grid are numbered from 1 in list order.
+         *
+         * @param group  the group
+         * @return its position, or -1 if it is not one of {@code groups}
+         */
+        private int indexOf(final AbstractGroup group) {
+            if (!(group instanceof YGroup)) {
+                return -1;
+            }
+            final int g = ((YGroup) group).groupNum - 1;
+            return 0 <= g && g < groups.size() && groups.get(g) == group ? g : -1;
+        }
+
+        /**
+         * Removes the group at the head.
+         *
+         * @return the removed group
+         * @pre {@code !isEmpty()}
+         */
+        AbstractGroup poll() {
+            final int g = queue[head];
+            head = (head + 1) % queue.length;
+            --size;
+            inQueue[g] = false;
+            return groups.get(g);
+        }
+
+    }
+
+}
@@ -2,6 +2,7 @@ package ypa.reasoning;
 
 import ypa.command.CompoundCommand;
 import ypa.model.YPuzzle;
+import ypa.solvers.SolverStatistics;
 
 /**
  * Base class for reasoning strategies (reasoners).
@@ -13,6 +14,10 @@ import ypa.model.YPuzzle;
  * the puzzle from the given state (signaled by returning null).
  * <p>
  * The base class can be instantiated to get a reasoner that does nothing.
+ * <p>
+ * A reasoner given {@link SolverStatistics} records in them what its
+ * applications do, e.g., cells deduced and trials refuted;
+ * reasoners built from other reasoners pass them on.
  *
  * @author Tom Verhoeff (Eindhoven University of Technology)
  */
@@ -21,6 +26,9 @@ public class Reasoner {
     /** The puzzle to apply the reasoner to. */
     protected YPuzzle puzzle;
 
+    /** The statistics to fill in; {@code null} if disabled. */
+    protected SolverStatistics statistics;
+
     // Initially there was, on purpose, no constructor that sets the puzzle,
     // because then every subclass must define that constructor as well.
     // The small price for this is that after construction,
@@ -53,6 +61,37 @@ public class Reasoner {
         this.puzzle = puzzle;
     }
 
+    /**
+     * Sets the statistics that applications fill in,
+     * also for the reasoners this one uses.
+     * The statistics are not reset, so they accumulate until the caller
+     * resets them; start and stop them around {@link #apply()} to measure
+     * time and allocation.
+     *
+     * @param statistics  the statistics, or {@code null} to disable them
+     * @modifies {@code statistics}
+     */
+    public void setStatistics(final SolverStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Records the cells set by a command as deductions, if enabled.
+     *
+     * @param command  the command returned by an application, or {@code null}
+     * @return {@code command}
+     */
+    protected CompoundCommand recorded(final CompoundCommand command) {
+        if (statistics != null && command != null && command.size() > 0) {
+            statistics.deduction(command.getCells().size());
+        }
+        return command;
+    }
+
     /**
      * Applies the reasoning strategy to the given puzzle, once.
      * There are three possible outcomes:
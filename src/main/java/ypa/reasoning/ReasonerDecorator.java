@@ -1,6 +1,7 @@
 package ypa.reasoning;
 
 import ypa.model.YPuzzle;
+import ypa.solvers.SolverStatistics;
 
 /**
  * Abstract base class for reasoner decorators, holding common code.
@@ -37,4 +38,14 @@ public abstract class ReasonerDecorator extends Reasoner {
         this.reasoner = reasoner;
     }
 
+    @Override
+    public void setStatistics(final SolverStatistics statistics) {
+        if (statistics == this.statistics) {
+            // also ends cycles of reasoners
+            return;
+        }
+        super.setStatistics(statistics);
+        reasoner.setStatistics(statistics);
+    }
+
 }
\ No newline at end of file
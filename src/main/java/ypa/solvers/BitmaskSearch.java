@@ -0,0 +1,573 @@
+package ypa.solvers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import ypa.model.SumCombinations;
+import ypa.model.YCell;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+
+/**
+ * Constraint-propagating search engine for Sujiko puzzles.
+ * Instead of scanning the grid for used digits and checking the circle sums
+ * only at the leaves, the engine keeps
+ * <ul>
+ * <li>a bitmask of the digits already used in the grid;</li>
+ * <li>per circle, the sum that still has to be made;</li>
+ * <li>per circle, the number of cells that are still empty.</li>
+ * </ul>
+ * A branch is pruned as soon as some circle can no longer reach its sum
+ * with the digits that are still unused, as looked up in
+ * {@link SumCombinations}.
+ * Cells are filled either in index order, or with dynamic ordering:
+ * every node then fills the empty cell with the fewest candidates (minimum
+ * remaining values, ties going to the cell in most circles), and a first
+ * solution is looked for by trying the digits closest to the average that
+ * the circles of the cell still need first.
+ * Dynamic ordering costs more per node, but explores orders of magnitude
+ * fewer nodes on boards larger than the classic 3x3 one; it is the default
+ * for those boards.
+ * The board, of any size, is described by a {@link YGeometry}.
+ * An engine is reusable: call {@link #load(int[])} to start a new search.
+ *
+ * @inv {@code used == (\bitor i; values[i] != EMPTY; 1 << values[i])}
+ */
+public class BitmaskSearch {
+
+    /** Bound on the number of circles of a cell, used to break ties. */
+    private static final int CIRCLES_PER_CELL_BOUND = 5;
+
+    /** Common multiple of the possible numbers of open cells of a circle. */
+    private static final int AVERAGE_SCALE = 12;
+
+    /** The board geometry. */
+    private final YGeometry geometry;
+
+    /** Number of cells in the grid. */
+    private final int cellCount;
+
+    /** Largest digit that can be placed in a cell. */
+    private final int maxDigit;
+
+    /** Bitmask of all digits; bit {@code d} represents digit {@code d}. */
+    private final int allDigits;
+
+    /** For each circle, the indices of the cells around it. */
+    private final int[][] circleCells;
+
+    /** For each cell, the indices of the circles it belongs to. */
+    private final int[][] cellCircles;
+
+    /** The expected sum of each circle. */
+    private final int[] targets;
+
+    /** Current digit of each cell, or {@code YCell.EMPTY}. */
+    private final int[] values;
+
+    /** Per circle, the sum still to be made by its empty cells. */
+    private final int[] remaining;
+
+    /** Per circle, the number of empty cells. */
+    private final int[] open;
+
+    /** Bitmask of the digits present in the grid. */
+    private int used;
+
+    /** Whether a listener asked to stop the current enumeration. */
+    private boolean stopped;
+
+    /** Flag that, once set, makes searches give up; {@code null} if none. */
+    private AtomicBoolean cancel;
+
+    /** Number of digits tried by searches of this engine. */
+    private long nodeCount;
+
+    /** Whether to fill the most constrained empty cell first. */
+    private boolean dynamicOrdering;
+
+    /** The statistics to fill in; {@code null} if disabled. */
+    private SolverStatistics statistics;
+
+    /** Number of cells filled by the latest load. */
+    private int loaded;
+
+    /**
+     * Constructs an engine for the given board geometry and circle sums.
+     *
+     * @param geometry  the board geometry
+     * @param circles  the expected sum of each circle
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code geometry != null && circles != null
+     *   && circles.length == geometry.getCircleCount()}
+     */
+    public BitmaskSearch(final YGeometry geometry, final int[] circles) {
+        if (geometry == null || circles == null
+                || circles.length != geometry.getCircleCount()) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: circles do not match the geometry");
+        }
+        this.geometry = geometry;
+        this.cellCount = geometry.getCellCount();
+        this.maxDigit = geometry.getMaxDigit();
+        this.allDigits = geometry.getAllDigits();
+        this.circleCells = geometry.getCircleCells();
+        this.cellCircles = geometry.getCellCircles();
+        this.targets = circles.clone();
+        this.values = new int[cellCount];
+        this.remaining = new int[targets.length];
+        this.open = new int[targets.length];
+        this.dynamicOrdering = !YGeometry.STANDARD.equals(geometry);
+    }
+
+    public YGeometry getGeometry() {
+        return geometry;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Sets a flag that is checked at every node of a search.
+     * Once the flag is set, running and later searches give up
+     * as if no (further) solution exists.
+     * The flag may be shared with, and set by, other threads.
+     *
+     * @param cancel  the flag, or {@code null} to not check any
+     */
+    public void setCancelFlag(final AtomicBoolean cancel) {
+        this.cancel = cancel;
+    }
+
+    /**
+     * Sets whether searches fill the empty cell with the fewest candidates
+     * first, rather than the first empty cell.
+     * Either way, the same solutions are found, possibly in another order.
+     *
+     * @param dynamicOrdering  whether to order the cells dynamically
+     */
+    public void setDynamicOrdering(final boolean dynamicOrdering) {
+        this.dynamicOrdering = dynamicOrdering;
+    }
+
+    public boolean isDynamicOrdering() {
+        return dynamicOrdering;
+    }
+
+    /**
+     * Sets the statistics that searches fill in: a node per digit tried,
+     * its decision level, prunes and backtracks.
+     * Without statistics, a node costs only a check of the field.
+     *
+     * @param statistics  the statistics, or {@code null} to disable them
+     */
+    public void setStatistics(final SolverStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Gets the number of search nodes explored so far: the number of
+     * digits tried in empty cells, by all searches of this engine.
+     *
+     * @return the number of nodes
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns whether the cancel flag has been set.
+     *
+     * @return whether the search should give up
+     */
+    private boolean isCancelled() {
+        return cancel != null && cancel.get();
+    }
+
+    /**
+     * Loads the state of a grid as the starting point of a search.
+     *
+     * @param grid  the grid to load
+     * @return whether the filled cells are consistent with the rules
+     * @pre {@code grid != null}
+     */
+    public boolean load(final YGrid grid) {
+        final int[] digits = new int[cellCount];
+        for (int i = 0; i < cellCount; ++i) {
+            digits[i] = grid.getValue(i);
+        }
+        return load(digits);
+    }
+
+    /**
+     * Loads the given cell digits as the starting point of a search.
+     *
+     * @param digits  the digit of each cell, {@code YCell.EMPTY} if empty
+     * @return whether the given digits are consistent with the rules
+     * @pre {@code digits != null && digits.length == getCellCount()}
+     */
+    public boolean load(final int[] digits) {
+        used = 0;
+        for (int c = 0; c < targets.length; ++c) {
+            remaining[c] = targets[c];
+            open[c] = circleCells[c].length;
+        }
+        boolean consistent = true;
+        for (int i = 0; i < cellCount; ++i) {
+            values[i] = YCell.EMPTY;
+            final int digit = digits[i];
+            if (digit == YCell.EMPTY) {
+                continue;
+            }
+            if (digit < 1 || digit > maxDigit || (used & (1 << digit)) != 0) {
+                consistent = false;
+                continue;
+            }
+            place(i, digit);
+        }
+        loaded = Integer.bitCount(used);
+        return consistent && allFeasible();
+    }
+
+    /**
+     * Searches for the first completion of the loaded state.
+     * When found, the completion can be read with {@link #getValue(int)}.
+     * Otherwise, the loaded state is restored.
+     *
+     * @return whether a completion exists
+     */
+    public boolean findFirst() {
+        return search(0);
+    }
+
+    /**
+     * Counts the completions of the loaded state, up to a limit.
+     * Nothing is allocated per solution, and the loaded state is restored.
+     * A limit of 2 suffices to check uniqueness.
+     *
+     * @param limit  the number of solutions after which to stop
+     * @return the number of completions, or {@code limit} if there are more
+     * @pre {@code limit > 0}
+     */
+    public int countSolutions(final int limit) {
+        stopped = false;
+        return enumerate(0, limit, null);
+    }
+
+    /**
+     * Passes every completion of the loaded state to a listener,
+     * until the listener asks to stop.
+     * The loaded state is restored afterwards.
+     *
+     * @param listener  the listener to receive the solutions
+     * @return the number of solutions passed to {@code listener}
+     * @pre {@code listener != null}
+     */
+    public int forEachSolution(final SolutionListener listener) {
+        stopped = false;
+        return enumerate(0, Integer.MAX_VALUE, listener);
+    }
+
+    /**
+     * Recursively enumerates the completions from a given index onwards.
+     *
+     * @param from  index of the first cell that may still be empty
+     * @param limit  the number of solutions after which to stop
+     * @param listener  listener to pass solutions to, or {@code null}
+     * @return the number of solutions found, at most {@code limit}
+     */
+    private int enumerate(final int from, final int limit, final SolutionListener listener) {
+        final int index = nextCell(from);
+        if (index == cellCount) {
+            stopped = listener != null && !listener.onSolution(values);
+            return 1;
+        }
+        int count = 0;
+        int candidates = branch(candidates(index));
+        while (candidates != 0 && count < limit && !stopped && !isCancelled()) {
+            final int bit = Integer.lowestOneBit(candidates);
+            candidates ^= bit;
+            ++nodeCount;
+            place(index, Integer.numberOfTrailingZeros(bit));
+            if (visit()) {
+                count += enumerate(index + 1, limit - count, listener);
+            }
+            retract(index);
+        }
+        return count;
+    }
+
+    /**
+     * Recursively fills the empty cells from a given index onwards.
+     *
+     * @param from  index of the first cell that may still be empty
+     * @return whether a solution was found
+     */
+    private boolean search(final int from) {
+        final int index = nextCell(from);
+        if (index == cellCount) {
+            return true;
+        }
+        if (!dynamicOrdering) {
+            // ascending digits, straight from the bitmask; nothing allocated
+            int candidates = branch(candidates(index));
+            while (candidates != 0 && !isCancelled()) {
+                final int bit = Integer.lowestOneBit(candidates);
+                candidates ^= bit;
+                if (tryDigit(index, Integer.numberOfTrailingZeros(bit))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        final int[] digits = orderedCandidates(index);
+        branch(digits.length);
+        for (int k = 0; k < digits.length && !isCancelled(); ++k) {
+            if (tryDigit(index, digits[k])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places a digit in an empty cell and searches on from there;
+     * takes the digit back if that finds no solution.
+     *
+     * @param cell  index of the empty cell
+     * @param digit  the digit to try
+     * @return whether a solution was found
+     */
+    private boolean tryDigit(final int cell, final int digit) {
+        ++nodeCount;
+        place(cell, digit);
+        if (visit() && search(cell + 1)) {
+            return true;
+        }
+        retract(cell);
+        return false;
+    }
+
+    /**
+     * Checks the circles after a digit was placed, recording the node.
+     *
+     * @return whether all circles are feasible
+     */
+    private boolean visit() {
+        final boolean result = allFeasible();
+        if (statistics != null) {
+            statistics.node(Integer.bitCount(used) - loaded);
+            if (!result) {
+                statistics.prune(SolverStatistics.Prune.CIRCLE_SUM);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Takes back the digit placed in a cell, recording the backtrack.
+     *
+     * @param cell  the cell index
+     */
+    private void retract(final int cell) {
+        unplace(cell);
+        if (statistics != null) {
+            statistics.backtrack();
+        }
+    }
+
+    /**
+     * Records a dead end if an empty cell has no candidates.
+     *
+     * @param candidates  the candidates of the cell, as a bitmask or count
+     * @return {@code candidates}
+     */
+    private int branch(final int candidates) {
+        if (candidates == 0 && statistics != null) {
+            statistics.prune(SolverStatistics.Prune.NO_CANDIDATES);
+        }
+        return candidates;
+    }
+
+    /**
+     * Chooses the empty cell to fill next.
+     *
+     * @param from  index before which no cell is empty, if ordered by index
+     * @return index of the cell to fill, or {@code getCellCount()} if none is empty
+     */
+    int nextCell(final int from) {
+        return dynamicOrdering ? mostConstrained() : nextEmpty(from);
+    }
+
+    /**
+     * Finds the empty cell with the fewest candidates, preferring
+     * cells in more circles; a cell without candidates ends the search.
+     *
+     * @return index of that cell, or {@code getCellCount()} if none is empty
+     */
+    private int mostConstrained() {
+        int best = cellCount;
+        int bestScore = Integer.MAX_VALUE;
+        for (int i = 0; i < cellCount; ++i) {
+            if (values[i] == YCell.EMPTY) {
+                final int count = Integer.bitCount(candidates(i));
+                if (count == 0) {
+                    return i;
+                }
+                // circles per cell are at most 4, so the count decides first
+                final int score = count * CIRCLES_PER_CELL_BOUND - cellCircles[i].length;
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the candidates of an empty cell in the order to try them,
+     * for dynamic ordering: the digits closest to the average that the
+     * circles of the cell still need come first, since they leave the most
+     * ways to complete those circles.
+     *
+     * @param cell  index of the empty cell
+     * @return the candidate digits
+     */
+    private int[] orderedCandidates(final int cell) {
+        int candidates = candidates(cell);
+        final int[] digits = new int[Integer.bitCount(candidates)];
+        final int[] distances = new int[digits.length];
+        for (int k = 0; candidates != 0; ++k) {
+            final int bit = Integer.lowestOneBit(candidates);
+            candidates ^= bit;
+            final int digit = Integer.numberOfTrailingZeros(bit);
+            final int distance = distanceFromAverage(cell, digit);
+            // insertion sort; stable, so equal distances keep ascending digits
+            int j = k;
+            while (j > 0 && distances[j - 1] > distance) {
+                digits[j] = digits[j - 1];
+                distances[j] = distances[j - 1];
+                --j;
+            }
+            digits[j] = digit;
+            distances[j] = distance;
+        }
+        return digits;
+    }
+
+    /**
+     * Measures how far a digit is from the averages that the circles
+     * of an empty cell still need.
+     *
+     * @param cell  index of the empty cell
+     * @param digit  the digit
+     * @return the sum over the circles of the cell of
+     *     {@code |digit * open - remaining| * 12 / open}, scaled to stay exact
+     */
+    private int distanceFromAverage(final int cell, final int digit) {
+        int result = 0;
+        for (int c : cellCircles[cell]) {
+            result += Math.abs(digit * open[c] - remaining[c]) * AVERAGE_SCALE / open[c];
+        }
+        return result;
+    }
+
+    /**
+     * Finds the first empty cell of the loaded state from a given index onwards.
+     *
+     * @param from  the index to start at
+     * @return index of the first empty cell at or after {@code from},
+     *     or {@code getCellCount()} if there is none
+     */
+    int nextEmpty(final int from) {
+        int index = from;
+        while (index < cellCount && values[index] != YCell.EMPTY) {
+            ++index;
+        }
+        return index;
+    }
+
+    /**
+     * Computes the digits that can still be placed in an empty cell:
+     * the unused digits that, for every circle of the cell, occur in some
+     * set of unused digits completing that circle.
+     *
+     * @param cell  index of the empty cell
+     * @return bitmask of the candidate digits
+     */
+    int candidates(final int cell) {
+        int result = allDigits & ~used;
+        for (int c : cellCircles[cell]) {
+            result &= SumCombinations.candidates(open[c], remaining[c], used, maxDigit);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether every circle can still reach its sum.
+     *
+     * @return whether all circles are feasible
+     */
+    boolean allFeasible() {
+        for (int c = 0; c < targets.length; ++c) {
+            if (!SumCombinations.isFeasible(open[c], remaining[c], used, maxDigit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Places a digit in an empty cell and updates the bookkeeping.
+     *
+     * @param cell  the cell index
+     * @param digit  the digit to place
+     */
+    void place(final int cell, final int digit) {
+        values[cell] = digit;
+        used |= 1 << digit;
+        for (int c : cellCircles[cell]) {
+            remaining[c] -= digit;
+            --open[c];
+        }
+    }
+
+    /**
+     * Empties a filled cell and updates the bookkeeping.
+     *
+     * @param cell  the cell index
+     */
+    void unplace(final int cell) {
+        final int digit = values[cell];
+        values[cell] = YCell.EMPTY;
+        used &= ~(1 << digit);
+        for (int c : cellCircles[cell]) {
+            remaining[c] += digit;
+            ++open[c];
+        }
+    }
+
+    /**
+     * Gets the current digit of a cell.
+     *
+     * @param cell  the cell index
+     * @return digit in {@code cell}, or {@code YCell.EMPTY}
+     */
+    public int getValue(final int cell) {
+        return values[cell];
+    }
+
+    /**
+     * Gets a copy of the current digits of all cells.
+     *
+     * @return the digit of each cell
+     */
+    public int[] getValues() {
+        return values.clone();
+    }
+
+}
@@ -0,0 +1,406 @@
+package ypa.solvers;
+
+import ypa.model.YCell;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+
+/**
+ * Index from the circle sums of the classic 3x3 board to its solutions.
+ * The classic board has only 9! = 362,880 fillings, each with one tuple of
+ * circle sums; the index lists them all, grouped by tuple, in two arrays:
+ * {@code start[key]} is the position in {@code fillings} of the first filling
+ * with the tuple of that key, and {@code start[key + 1]} the position after
+ * the last one (compressed sparse rows).
+ * <p>
+ * Finding the fillings of a tuple is a single array access; the fillings that
+ * agree with the given digits of a grid are then picked from that list,
+ * which holds at most 64 fillings.
+ * Building the index takes about a tenth of a second, so it is built on
+ * first use, rather than loaded from a resource, and then shared.
+ * Each filling is packed into an {@code int}: the digits of the first eight
+ * cells take four bits each, and the ninth digit is what is left of 45.
+ */
+public final class ClassicIndex {
+
+    /** The smallest sum of four distinct digits. */
+    private static final int MIN_SUM = 1 + 2 + 3 + 4;
+
+    /** Number of possible sums of four distinct digits. */
+    private static final int SUM_RANGE = 6 + 7 + 8 + 9 - MIN_SUM + 1;
+
+    /** Number of circles. */
+    private static final int CIRCLES = 4;
+
+    /** Number of cells. */
+    private static final int CELLS = 9;
+
+    /** Sum of the digits 1 to 9. */
+    private static final int DIGIT_TOTAL = 45;
+
+    /** Bits per packed digit. */
+    private static final int BITS = 4;
+
+    /** Mask of a packed digit. */
+    private static final int DIGIT_MASK = (1 << BITS) - 1;
+
+    /** Position in {@code fillings} of the first filling of each key. */
+    private final int[] start;
+
+    /** The packed fillings, grouped by key. */
+    private final int[] fillings;
+
+    /**
+     * Lazily built shared index.
+     */
+    private static final class Holder {
+        /** The shared index. */
+        static final ClassicIndex INSTANCE = new ClassicIndex();
+    }
+
+    /**
+     * Builds the index by enumerating all permutations of the digits.
+     */
+    private ClassicIndex() {
+        final int[][] circleCells = YGeometry.STANDARD.getCircleCells();
+        final int[] digits = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        final int[] keys = new int[fillings()];
+        start = new int[(int) Math.pow(SUM_RANGE, CIRCLES) + 1];
+        for (int p = 0; p < keys.length; ++p) {
+            keys[p] = key(circleCells, digits);
+            ++start[keys[p] + 1];
+            nextPermutation(digits);
+        }
+        for (int key = 1; key < start.length; ++key) {
+            start[key] += start[key - 1];
+        }
+        // digits is back at the first permutation; fill each group in order
+        final int[] next = start.clone();
+        fillings = new int[keys.length];
+        for (int p = 0; p < keys.length; ++p) {
+            fillings[next[keys[p]]++] = pack(digits);
+            nextPermutation(digits);
+        }
+    }
+
+    /**
+     * Gets the shared index, building it on first use.
+     *
+     * @return the shared index
+     */
+    public static ClassicIndex get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns whether the index covers puzzles of a geometry.
+     *
+     * @param geometry  the geometry
+     * @return whether {@code geometry} is the classic 3x3 board
+     */
+    public static boolean covers(final YGeometry geometry) {
+        return YGeometry.STANDARD.equals(geometry);
+    }
+
+    /**
+     * Gets the number of permutations of the nine digits.
+     *
+     * @return 9!
+     */
+    private static int fillings() {
+        int result = 1;
+        for (int n = 2; n <= CELLS; ++n) {
+            result *= n;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the key of the circle sums of a filling.
+     *
+     * @param circleCells  the cells of each circle
+     * @param digits  the filling
+     * @return the key of its circle sums
+     */
+    private static int key(final int[][] circleCells, final int[] digits) {
+        int result = 0;
+        for (int c = CIRCLES - 1; c >= 0; --c) {
+            int sum = 0;
+            for (int cell : circleCells[c]) {
+                sum += digits[cell];
+            }
+            result = result * SUM_RANGE + sum - MIN_SUM;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the key of given circle sums.
+     *
+     * @param circles  the circle sums
+     * @return the key, or -1 if no filling has these sums
+     */
+    private static int key(final int[] circles) {
+        if (circles.length != CIRCLES) {
+            return -1;
+        }
+        int result = 0;
+        for (int c = CIRCLES - 1; c >= 0; --c) {
+            final int offset = circles[c] - MIN_SUM;
+            if (offset < 0 || offset >= SUM_RANGE) {
+                return -1;
+            }
+            result = result * SUM_RANGE + offset;
+        }
+        return result;
+    }
+
+    /**
+     * Rearranges digits into the next permutation in lexicographic order,
+     * wrapping around from the last one to the first one.
+     *
+     * @param digits  the digits
+     * @modifies {@code digits}
+     */
+    private static void nextPermutation(final int[] digits) {
+        int i = digits.length - 2;
+        while (i >= 0 && digits[i] > digits[i + 1]) {
+            --i;
+        }
+        if (i >= 0) {
+            int j = digits.length - 1;
+            while (digits[j] < digits[i]) {
+                --j;
+            }
+            swap(digits, i, j);
+        }
+        for (int lo = i + 1, hi = digits.length - 1; lo < hi; ++lo, --hi) {
+            swap(digits, lo, hi);
+        }
+    }
+
+    /**
+     * Swaps two elements of an array.
+     *
+     * @param a  the array
+     * @param i  index of one element
+     * @param j  index of the other element
+     * @modifies {@code a}
+     */
+    private static void swap(final int[] a, final int i, final int j) {
+        final int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    /**
+     * Packs a filling.
+     *
+     * @param digits  the filling, or given digits with {@code YCell.EMPTY}
+     * @return the digits of the first eight cells, four bits each
+     */
+    private static int pack(final int[] digits) {
+        int result = 0;
+        for (int i = CELLS - 2; i >= 0; --i) {
+            result = result << BITS | digits[i];
+        }
+        return result;
+    }
+
+    /**
+     * Unpacks a filling.
+     *
+     * @param packed  the packed filling
+     * @param digits  the array to unpack into
+     * @modifies {@code digits}
+     */
+    private static void unpack(final int packed, final int[] digits) {
+        int rest = DIGIT_TOTAL;
+        for (int i = 0; i < CELLS - 1; ++i) {
+            digits[i] = packed >>> BITS * i & DIGIT_MASK;
+            rest -= digits[i];
+        }
+        digits[CELLS - 1] = rest;
+    }
+
+    /**
+     * Gets the mask of the given digits among the first eight cells.
+     *
+     * @param digits  the digit of each cell, {@code YCell.EMPTY} if not given
+     * @return the packed filling with all bits set of each given digit
+     */
+    private static int givenMask(final int[] digits) {
+        int result = 0;
+        for (int i = CELLS - 2; i >= 0; --i) {
+            result <<= BITS;
+            if (digits[i] != YCell.EMPTY) {
+                result |= DIGIT_MASK;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the ninth digit of a filling is a given digit.
+     *
+     * @param packed  the packed filling
+     * @param last  the given ninth digit, or {@code YCell.EMPTY} if not given
+     * @return whether the filling agrees with {@code last}
+     */
+    private static boolean lastMatches(final int packed, final int last) {
+        if (last == YCell.EMPTY) {
+            return true;
+        }
+        int rest = DIGIT_TOTAL;
+        for (int i = 0; i < CELLS - 1; ++i) {
+            rest -= packed >>> BITS * i & DIGIT_MASK;
+        }
+        return rest == last;
+    }
+
+    /**
+     * Gets the digits of a grid.
+     *
+     * @param grid  the grid
+     * @return the digit of each cell, {@code YCell.EMPTY} if empty
+     */
+    private static int[] digitsOf(final YGrid grid) {
+        final int[] digits = new int[grid.getSize()];
+        for (int i = 0; i < digits.length; ++i) {
+            digits[i] = grid.getValue(i);
+        }
+        return digits;
+    }
+
+    /**
+     * Gets the number of solutions of the empty board with given circle sums.
+     *
+     * @param circles  the circle sums
+     * @return the number of fillings with sums {@code circles}
+     */
+    public int count(final int[] circles) {
+        final int key = key(circles);
+        return key < 0 ? 0 : start[key + 1] - start[key];
+    }
+
+    /**
+     * Counts the solutions that agree with the given digits, up to a limit.
+     *
+     * @param circles  the circle sums
+     * @param digits  the digit of each cell, {@code YCell.EMPTY} if not given
+     * @param limit  the number of solutions after which to stop
+     * @return the number of solutions, or {@code limit} if there are more
+     * @pre {@code digits.length == 9 && limit > 0}
+     */
+    public int count(final int[] circles, final int[] digits, final int limit) {
+        return scan(circles, digits, limit, null);
+    }
+
+    /**
+     * Counts the solutions of a grid, up to a limit.
+     *
+     * @param circles  the circle sums
+     * @param grid  the grid; its filled cells are the given digits
+     * @param limit  the number of solutions after which to stop
+     * @return the number of solutions, or {@code limit} if there are more
+     * @pre {@code covers(grid.getGeometry()) && limit > 0}
+     */
+    public int count(final int[] circles, final YGrid grid, final int limit) {
+        return count(circles, digitsOf(grid), limit);
+    }
+
+    /**
+     * Finds the first solution that agrees with the given digits.
+     *
+     * @param circles  the circle sums
+     * @param digits  the digit of each cell, {@code YCell.EMPTY} if not given
+     * @return the digit of each cell of the solution, or {@code null} if none
+     * @pre {@code digits.length == 9}
+     */
+    public int[] findFirst(final int[] circles, final int[] digits) {
+        final int[][] result = new int[1][];
+        scan(circles, digits, 1, solution -> {
+            result[0] = solution.clone();
+            return false;
+        });
+        return result[0];
+    }
+
+    /**
+     * Finds the first solution of a grid.
+     *
+     * @param circles  the circle sums
+     * @param grid  the grid; its filled cells are the given digits
+     * @return the digit of each cell of the solution, or {@code null} if none
+     * @pre {@code covers(grid.getGeometry())}
+     */
+    public int[] findFirst(final int[] circles, final YGrid grid) {
+        return findFirst(circles, digitsOf(grid));
+    }
+
+    /**
+     * Passes every solution that agrees with the given digits to a listener,
+     * until the listener asks to stop.
+     *
+     * @param circles  the circle sums
+     * @param digits  the digit of each cell, {@code YCell.EMPTY} if not given
+     * @param listener  the listener to receive the solutions
+     * @return the number of solutions passed to {@code listener}
+     * @pre {@code digits.length == 9 && listener != null}
+     */
+    public int forEachSolution(final int[] circles, final int[] digits,
+            final SolutionListener listener) {
+        return scan(circles, digits, Integer.MAX_VALUE, listener);
+    }
+
+    /**
+     * Passes every solution of a grid to a listener,
+     * until the listener asks to stop.
+     *
+     * @param circles  the circle sums
+     * @param grid  the grid; its filled cells are the given digits
+     * @param listener  the listener to receive the solutions
+     * @return the number of solutions passed to {@code listener}
+     * @pre {@code covers(grid.getGeometry()) && listener != null}
+     */
+    public int forEachSolution(final int[] circles, final YGrid grid,
+            final SolutionListener listener) {
+        return forEachSolution(circles, digitsOf(grid), listener);
+    }
+
+    /**
+     * Scans the fillings of the circle sums for the ones that agree
+     * with the given digits.
+     *
+     * @param circles  the circle sums
+     * @param digits  the digit of each cell, {@code YCell.EMPTY} if not given
+     * @param limit  the number of solutions after which to stop
+     * @param listener  the listener to receive the solutions, or {@code null}
+     * @return the number of solutions found
+     */
+    private int scan(final int[] circles, final int[] digits, final int limit,
+            final SolutionListener listener) {
+        final int key = key(circles);
+        if (key < 0) {
+            return 0;
+        }
+        final int mask = givenMask(digits);
+        final int given = pack(digits);
+        final int last = digits[CELLS - 1];
+        final int[] solution = new int[CELLS];
+        int count = 0;
+        for (int p = start[key]; p < start[key + 1] && count < limit; ++p) {
+            final int packed = fillings[p];
+            if ((packed & mask) == given && lastMatches(packed, last)) {
+                ++count;
+                if (listener != null) {
+                    unpack(packed, solution);
+                    if (!listener.onSolution(solution)) {
+                        break;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+}
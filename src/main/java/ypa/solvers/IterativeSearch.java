@@ -0,0 +1,376 @@
+package ypa.solvers;
+
+import java.io.Serializable;
+import ypa.model.YCell;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+
+/**
+ * Enumeration of the solutions of a puzzle that runs in slices.
+ * The search is the same as that of {@link BitmaskSearch} (whose bookkeeping
+ * it uses), but instead of recursing, it keeps its path in preallocated
+ * arrays, one entry per decision level: the cell filled at that level,
+ * the candidates not yet tried, and the number of candidates it had.
+ * So the search can be advanced a given number of nodes at a time
+ * ({@link #step(long)}), paused from another thread and resumed,
+ * asked how far it got ({@link #getProgress()}), and saved in a
+ * {@link Checkpoint} to be continued later, possibly by another process.
+ * <p>
+ * Solutions are passed to a {@link SolutionListener}, which may stop the
+ * enumeration; without a listener, they are only counted.
+ */
+public class IterativeSearch {
+
+    /** The board bookkeeping: digits, used digits, circle sums. */
+    private final BitmaskSearch board;
+
+    /** The circle sums. */
+    private final int[] circles;
+
+    /** The listener to pass solutions to, or {@code null}. */
+    private final SolutionListener listener;
+
+    /** The digits loaded, {@code YCell.EMPTY} if not given. */
+    private int[] givens;
+
+    /** Per decision level, the cell filled at that level. */
+    private final int[] cells;
+
+    /** Per decision level, the candidates not yet tried. */
+    private final int[] pending;
+
+    /** Per decision level, the number of candidates the cell had. */
+    private final int[] choices;
+
+    /** The current decision level; -1 if none. */
+    private int depth;
+
+    /** Whether the enumeration is complete or was stopped. */
+    private boolean finished;
+
+    /** Set to make a running step return. */
+    private volatile boolean paused;
+
+    /** Number of nodes explored. */
+    private long nodeCount;
+
+    /** Number of solutions found. */
+    private long solutionCount;
+
+    /**
+     * Constructs a search for the given board geometry and circle sums.
+     *
+     * @param geometry  the board geometry
+     * @param circles  the expected sum of each circle
+     * @param listener  the listener to pass solutions to, or {@code null}
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code geometry != null && circles != null
+     *   && circles.length == geometry.getCircleCount()}
+     */
+    public IterativeSearch(final YGeometry geometry, final int[] circles,
+            final SolutionListener listener) {
+        this.board = new BitmaskSearch(geometry, circles);
+        this.circles = circles.clone();
+        this.listener = listener;
+        this.cells = new int[board.getCellCount()];
+        this.pending = new int[cells.length];
+        this.choices = new int[cells.length];
+        this.givens = new int[cells.length];
+        this.finished = true;
+    }
+
+    /**
+     * Sets whether the empty cell with the fewest candidates is filled first,
+     * see {@link BitmaskSearch#setDynamicOrdering(boolean)}.
+     *
+     * @param dynamicOrdering  whether to order the cells dynamically
+     * @pre no search is loaded
+     */
+    public void setDynamicOrdering(final boolean dynamicOrdering) {
+        board.setDynamicOrdering(dynamicOrdering);
+    }
+
+    /**
+     * Loads the state of a grid as the starting point of the enumeration.
+     *
+     * @param grid  the grid to load
+     * @return whether the filled cells are consistent with the rules
+     * @pre {@code grid != null}
+     */
+    public boolean load(final YGrid grid) {
+        final int[] digits = new int[cells.length];
+        for (int i = 0; i < digits.length; ++i) {
+            digits[i] = grid.getValue(i);
+        }
+        return load(digits);
+    }
+
+    /**
+     * Loads the given cell digits as the starting point of the enumeration,
+     * which then has made no steps yet.
+     *
+     * @param digits  the digit of each cell, {@code YCell.EMPTY} if empty
+     * @return whether the given digits are consistent with the rules and
+     *     leave cells to fill; if not, the enumeration is finished
+     *     (a full grid that is a solution is passed to the listener)
+     * @pre {@code digits != null && digits.length == geometry.getCellCount()}
+     */
+    public boolean load(final int[] digits) {
+        givens = digits.clone();
+        nodeCount = 0;
+        solutionCount = 0;
+        depth = -1;
+        finished = !board.load(digits);
+        if (!finished) {
+            descend(0);
+            // a full grid has no decision levels
+            finished |= depth < 0;
+        }
+        return !finished;
+    }
+
+    /**
+     * Goes one decision level deeper, to the next empty cell;
+     * a full grid is a solution.
+     *
+     * @param from  index before which no cell is empty, if ordered by index
+     */
+    private void descend(final int from) {
+        final int cell = board.nextCell(from);
+        if (cell == cells.length) {
+            ++solutionCount;
+            if (listener != null && !listener.onSolution(board.getValues())) {
+                finished = true;
+            }
+            return;
+        }
+        ++depth;
+        cells[depth] = cell;
+        pending[depth] = board.candidates(cell);
+        choices[depth] = Integer.bitCount(pending[depth]);
+    }
+
+    /**
+     * Explores at most a given number of nodes (digits tried),
+     * returning early when the enumeration finishes or is paused.
+     *
+     * @param nodes  the maximum number of nodes to explore
+     * @return the number of nodes explored
+     */
+    public long step(final long nodes) {
+        long explored = 0;
+        while (explored < nodes && !finished && !paused) {
+            final int cell = cells[depth];
+            if (board.getValue(cell) != YCell.EMPTY) {
+                board.unplace(cell);
+            }
+            if (pending[depth] == 0) {
+                --depth;
+                finished = depth < 0;
+                continue;
+            }
+            final int bit = Integer.lowestOneBit(pending[depth]);
+            pending[depth] ^= bit;
+            board.place(cell, Integer.numberOfTrailingZeros(bit));
+            ++explored;
+            if (board.allFeasible()) {
+                descend(cell + 1);
+            }
+        }
+        nodeCount += explored;
+        return explored;
+    }
+
+    /**
+     * Explores until the enumeration finishes or is paused.
+     *
+     * @return the number of nodes explored
+     */
+    public long run() {
+        return step(Long.MAX_VALUE);
+    }
+
+    /**
+     * Makes a running {@link #step(long)} or {@link #run()} return after
+     * its current node, and later ones return at once, until resumed.
+     * May be called from any thread.
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * Clears a pause and explores until the enumeration finishes or is
+     * paused again.
+     *
+     * @return the number of nodes explored
+     */
+    public long resume() {
+        paused = false;
+        return run();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public long getSolutionCount() {
+        return solutionCount;
+    }
+
+    /**
+     * Gets the fraction of the search tree covered so far,
+     * weighing every candidate of a level equally.
+     * A subtree is covered when all its candidates have been tried.
+     *
+     * @return the fraction from 0 to 1; 1 once finished
+     */
+    public double getProgress() {
+        if (finished) {
+            return 1;
+        }
+        double result = 0;
+        double weight = 1;
+        for (int d = 0; d <= depth && choices[d] > 0; ++d) {
+            weight /= choices[d];
+            final int tried = choices[d] - Integer.bitCount(pending[d]);
+            // the subtree of the digit in the cell is not yet covered
+            final int covered = board.getValue(cells[d]) == YCell.EMPTY ? tried : tried - 1;
+            result += covered * weight;
+        }
+        return result;
+    }
+
+    /**
+     * Saves the state of the enumeration.
+     *
+     * @return a checkpoint to continue from with {@link #restore}
+     */
+    public Checkpoint checkpoint() {
+        return new Checkpoint(this);
+    }
+
+    /**
+     * Copies the start of an array.
+     *
+     * @param array  the array
+     * @param length  the number of elements to copy
+     * @return a new array with the first {@code length} elements
+     */
+    private static int[] copy(final int[] array, final int length) {
+        final int[] result = new int[length];
+        System.arraycopy(array, 0, result, 0, length);
+        return result;
+    }
+
+    /**
+     * Continues an enumeration from a checkpoint.
+     *
+     * @param checkpoint  the saved state
+     * @param listener  the listener to pass further solutions to, or {@code null}
+     * @return a search in the saved state, not paused
+     * @pre {@code checkpoint != null}
+     */
+    public static IterativeSearch restore(final Checkpoint checkpoint,
+            final SolutionListener listener) {
+        final int[] size = checkpoint.geometry;
+        final IterativeSearch search = new IterativeSearch(
+                new YGeometry(size[0], size[1], size[2]), checkpoint.circles, listener);
+        search.setDynamicOrdering(checkpoint.dynamicOrdering);
+        search.givens = checkpoint.givens.clone();
+        search.board.load(checkpoint.givens);
+        search.depth = checkpoint.cells.length - 1;
+        for (int d = 0; d <= search.depth; ++d) {
+            search.cells[d] = checkpoint.cells[d];
+            search.pending[d] = checkpoint.pending[d];
+            search.choices[d] = checkpoint.choices[d];
+            if (checkpoint.digits[d] != YCell.EMPTY) {
+                search.board.place(checkpoint.cells[d], checkpoint.digits[d]);
+            }
+        }
+        search.nodeCount = checkpoint.counts[0];
+        search.solutionCount = checkpoint.counts[1];
+        search.finished = checkpoint.finished;
+        return search;
+    }
+
+    /**
+     * Immutable, serializable state of an enumeration:
+     * the puzzle, and the path of decisions taken.
+     */
+    public static final class Checkpoint implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Rows, columns and largest digit of the board. */
+        private final int[] geometry;
+
+        /** The circle sums. */
+        private final int[] circles;
+
+        /** The loaded digits. */
+        private final int[] givens;
+
+        /** Whether the cells are ordered dynamically. */
+        private final boolean dynamicOrdering;
+
+        /** Per decision level, the cell filled. */
+        private final int[] cells;
+
+        /** Per decision level, the digit in the cell, or {@code YCell.EMPTY}. */
+        private final int[] digits;
+
+        /** Per decision level, the candidates not yet tried. */
+        private final int[] pending;
+
+        /** Per decision level, the number of candidates. */
+        private final int[] choices;
+
+        /** The numbers of nodes explored and solutions found. */
+        private final long[] counts;
+
+        /** Whether the enumeration is complete or was stopped. */
+        private final boolean finished;
+
+        /**
+         * Constructs a checkpoint of the current state of a search.
+         *
+         * @param search  the search
+         */
+        Checkpoint(final IterativeSearch search) {
+            final YGeometry board = search.board.getGeometry();
+            final int levels = search.depth + 1;
+            this.geometry = new int[] {board.getRows(), board.getColumns(), board.getMaxDigit()};
+            this.circles = search.circles.clone();
+            this.givens = search.givens.clone();
+            this.dynamicOrdering = search.board.isDynamicOrdering();
+            this.cells = copy(search.cells, levels);
+            this.digits = new int[levels];
+            for (int d = 0; d < levels; ++d) {
+                digits[d] = search.board.getValue(cells[d]);
+            }
+            this.pending = copy(search.pending, levels);
+            this.choices = copy(search.choices, levels);
+            this.counts = new long[] {search.nodeCount, search.solutionCount};
+            this.finished = search.finished;
+        }
+
+        public long getNodeCount() {
+            return counts[0];
+        }
+
+        public long getSolutionCount() {
+            return counts[1];
+        }
+
+    }
+
+}
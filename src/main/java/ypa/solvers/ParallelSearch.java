@@ -0,0 +1,334 @@
+package ypa.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+
+/**
+ * Fork/join search that splits the search tree of a puzzle across cores.
+ * The first {@code splitDepth} decisions (the digits of the first empty cells,
+ * in reading order) are made by tasks that fork one subtask per candidate;
+ * below that depth, a task completes its subtree with its own
+ * {@link BitmaskSearch}.
+ * Every task works on its own copy of the cell digits,
+ * so no grid state is shared between threads; the tasks of one run share
+ * only a solution counter and a cancel flag, checked at every search node.
+ * <p>
+ * When the first solution is asked for, the task that finds it sets the
+ * cancel flag, so that all sibling tasks give up.
+ * A run can also be cancelled from another thread with {@link #cancel()};
+ * the cancellation is sticky, so it also stops a run that has not started yet.
+ */
+public class ParallelSearch {
+
+    /** Default number of decision levels on which to split. */
+    public static final int DEFAULT_SPLIT_DEPTH = 3;
+
+    /** The board geometry. */
+    private final YGeometry geometry;
+
+    /** The expected sum of each circle. */
+    private final int[] circles;
+
+    /** The pool to run the tasks in. */
+    private final ForkJoinPool pool;
+
+    /** Number of decision levels on which to split. */
+    private final int splitDepth;
+
+    /** Cancel flag of the current run, or {@code null} if none. */
+    private volatile AtomicBoolean running;
+
+    /** Whether {@link #cancel()} was called; then every run gives up at once. */
+    private volatile boolean cancelled;
+
+    /** Number of search nodes explored by the last run. */
+    private volatile long nodeCount;
+
+    /**
+     * Constructs a search for the given board and circle sums,
+     * in the common pool.
+     *
+     * @param geometry  the board geometry
+     * @param circles  the expected sum of each circle
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code geometry != null && circles != null
+     *   && circles.length == geometry.getCircleCount()}
+     */
+    public ParallelSearch(final YGeometry geometry, final int[] circles) {
+        this(geometry, circles, ForkJoinPool.commonPool(), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * Constructs a search for the given board and circle sums.
+     *
+     * @param geometry  the board geometry
+     * @param circles  the expected sum of each circle
+     * @param pool  the pool to run the tasks in
+     * @param splitDepth  number of decision levels on which to split
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code geometry != null && circles != null
+     *   && circles.length == geometry.getCircleCount()
+     *   && pool != null && splitDepth >= 0}
+     */
+    public ParallelSearch(final YGeometry geometry, final int[] circles,
+            final ForkJoinPool pool, final int splitDepth) {
+        if (geometry == null || circles == null
+                || circles.length != geometry.getCircleCount()) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: circles do not match the geometry");
+        }
+        if (pool == null || splitDepth < 0) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: pool == " + pool + ", splitDepth == " + splitDepth);
+        }
+        this.geometry = geometry;
+        this.circles = circles.clone();
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Searches for a completion of a grid.
+     * The grid itself is not modified.
+     *
+     * @param grid  the grid to complete
+     * @return the digits of a completion, or {@code null} if none exists
+     *     or the run was cancelled
+     * @pre {@code grid != null}
+     */
+    public int[] findFirst(final YGrid grid) {
+        return findFirst(snapshot(grid));
+    }
+
+    /**
+     * Searches for a completion of a state of the cells.
+     * The array itself is not modified.
+     *
+     * @param state  the digit of each cell, or {@link ypa.model.YCell#EMPTY}
+     * @return the digits of a completion, or {@code null} if none exists
+     *     or the run was cancelled
+     * @pre {@code state != null && state.length == geometry.getCellCount()}
+     */
+    public int[] findFirst(final int[] state) {
+        final AtomicReference<int[]> first = new AtomicReference<>();
+        run(state.clone(), 1, digits -> {
+            first.compareAndSet(null, digits.clone());
+            return false;
+        });
+        return first.get();
+    }
+
+    /**
+     * Counts the completions of a grid, up to a limit.
+     *
+     * @param grid  the grid to complete
+     * @param limit  the number of solutions after which to stop
+     * @return the number of completions, or {@code limit} if there are more
+     * @pre {@code grid != null && limit > 0}
+     */
+    public long countSolutions(final YGrid grid, final long limit) {
+        return run(snapshot(grid), limit, digits -> true);
+    }
+
+    /**
+     * Passes every completion of a grid to a listener,
+     * until the listener asks to stop.
+     * The tasks call the listener one at a time, but from several threads
+     * and in no particular order.
+     *
+     * @param grid  the grid to complete
+     * @param listener  the listener to receive the solutions
+     * @return the number of solutions passed to {@code listener}
+     * @pre {@code grid != null && listener != null}
+     */
+    public long forEachSolution(final YGrid grid, final SolutionListener listener) {
+        return run(snapshot(grid), Long.MAX_VALUE, listener);
+    }
+
+    /**
+     * Gets the number of search nodes explored by the last run,
+     * summed over its tasks.
+     *
+     * @return the number of nodes
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Cancels the current run, if any; it then returns what it found so far.
+     * Later runs, including one that is about to start, return at once.
+     */
+    public void cancel() {
+        cancelled = true;
+        final AtomicBoolean cancel = running;
+        if (cancel != null) {
+            cancel.set(true);
+        }
+    }
+
+    /**
+     * Copies the digits of a grid.
+     *
+     * @param grid  the grid
+     * @return the digit of each cell
+     */
+    private int[] snapshot(final YGrid grid) {
+        final int[] digits = new int[geometry.getCellCount()];
+        for (int i = 0; i < digits.length; ++i) {
+            digits[i] = grid.getValue(i);
+        }
+        return digits;
+    }
+
+    /**
+     * Runs the tasks for a state of the cells and waits for them to finish.
+     *
+     * @param digits  the state to complete, owned by the run
+     * @param limit  the number of solutions after which to stop
+     * @param listener  the listener to pass solutions to
+     * @return the number of solutions passed to {@code listener}
+     */
+    private long run(final int[] digits, final long limit, final SolutionListener listener) {
+        final Run run = new Run(limit, listener);
+        running = run.cancel;
+        // read after publishing the flag, so that a concurrent cancel()
+        // either sees the flag or is seen here
+        if (cancelled) {
+            run.cancel.set(true);
+        }
+        try {
+            pool.invoke(new SplitTask(run, digits, 0, 0));
+        } finally {
+            running = null;
+            nodeCount = run.nodes.get();
+        }
+        return run.counter.get();
+    }
+
+    /**
+     * State shared by the tasks of one run.
+     */
+    private static final class Run {
+
+        /** Set when the run should stop. */
+        final AtomicBoolean cancel = new AtomicBoolean();
+
+        /** Number of solutions found. */
+        final AtomicLong counter = new AtomicLong();
+
+        /** Number of search nodes explored by the completed subtrees. */
+        final AtomicLong nodes = new AtomicLong();
+
+        /** The number of solutions after which to stop. */
+        final long limit;
+
+        /** The listener to pass solutions to. */
+        final SolutionListener listener;
+
+        /**
+         * Constructs the state of a run.
+         *
+         * @param limit  the number of solutions after which to stop
+         * @param listener  the listener to pass solutions to
+         */
+        Run(final long limit, final SolutionListener listener) {
+            this.limit = limit;
+            this.listener = listener;
+        }
+
+        /**
+         * Handles a solution found by some task;
+         * solutions are handled one at a time.
+         *
+         * @param digits  the solution
+         * @return whether the task should continue
+         */
+        synchronized boolean accept(final int[] digits) {
+            if (cancel.get()) {
+                return false;
+            }
+            final long n = counter.incrementAndGet();
+            final boolean more = listener.onSolution(digits) && n < limit;
+            if (!more) {
+                cancel.set(true);
+            }
+            return more;
+        }
+
+    }
+
+    /**
+     * Task that completes a state of the cells: by forking one subtask
+     * per candidate of its first empty cell, or, at the split depth,
+     * by searching its subtree itself.
+     */
+    private final class SplitTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The run this task belongs to. */
+        private final transient Run run;
+
+        /** The digits of this task's state; owned by this task. */
+        private final int[] digits;
+
+        /** Index before which no cell is empty. */
+        private final int from;
+
+        /** Number of decisions made above this task. */
+        private final int depth;
+
+        /**
+         * Constructs a task.
+         *
+         * @param run  the run this task belongs to
+         * @param digits  the state to complete, owned by the task
+         * @param from  index before which no cell is empty
+         * @param depth  number of decisions made above this task
+         */
+        SplitTask(final Run run, final int[] digits, final int from, final int depth) {
+            this.run = run;
+            this.digits = digits;
+            this.from = from;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (run.cancel.get()) {
+                return;
+            }
+            final BitmaskSearch search = new BitmaskSearch(geometry, circles);
+            search.setCancelFlag(run.cancel);
+            if (!search.load(digits)) {
+                return;
+            }
+            final int cell = search.nextEmpty(from);
+            if (depth >= splitDepth || cell == digits.length) {
+                search.forEachSolution(run::accept);
+                run.nodes.addAndGet(search.getNodeCount());
+                return;
+            }
+            final List<SplitTask> subtasks = new ArrayList<>();
+            int candidates = search.candidates(cell);
+            while (candidates != 0) {
+                final int bit = Integer.lowestOneBit(candidates);
+                candidates ^= bit;
+                final int[] child = digits.clone();
+                child[cell] = Integer.numberOfTrailingZeros(bit);
+                subtasks.add(new SplitTask(run, child, cell + 1, depth + 1));
+            }
+            invokeAll(subtasks);
+        }
+
+    }
+
+}
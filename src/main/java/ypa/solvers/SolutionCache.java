@@ -0,0 +1,388 @@
+package ypa.solvers;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import ypa.model.CanonicalForm;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+
+/**
+ * Bounded least-recently-used cache of search results,
+ * keyed by the board geometry, the circle sums and the packed digits of a grid.
+ * Grids are stored in their {@link CanonicalForm}, so that the rotations and
+ * reflections of a grid share one entry; solutions are mapped to and from
+ * the canonical form on the way in and out.
+ * Solvers are created anew by many callers (mode changes, circle edits,
+ * the background worker, reasoners), and often for the same grid;
+ * they share the cache returned by {@link #shared()},
+ * so that repeated questions are answered without searching again.
+ * <p>
+ * Grids too large for {@link YGrid#pack()} are searched, but not cached;
+ * grids of the classic board are answered from the {@link ClassicIndex},
+ * which needs no cache.
+ * All methods are thread-safe; searches on a miss run outside the lock.
+ */
+public class SolutionCache {
+
+    /** Default maximum number of entries. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** Solution count of an entry whose solutions have not been counted. */
+    public static final int UNKNOWN = -1;
+
+    /** The cache shared by all solvers. */
+    private static final SolutionCache SHARED = new SolutionCache(DEFAULT_CAPACITY);
+
+    /** The entries, in access order. */
+    private final Map<Key, Entry> entries;
+
+    /** Number of lookups answered from the cache. */
+    private long hits;
+
+    /** Number of lookups that needed a search. */
+    private long misses;
+
+    /**
+     * Constructs an empty cache with a given capacity.
+     *
+     * @param capacity  maximum number of entries
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code capacity > 0}
+     */
+    public SolutionCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: capacity == " + capacity);
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the cache shared by all solvers.
+     *
+     * @return the shared cache
+     */
+    public static SolutionCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the entry for a grid, searching for a solution on a miss.
+     *
+     * @param circles  the circle sums
+     * @param grid  the grid
+     * @return the entry for {@code circles} and {@code grid}
+     * @pre {@code circles != null && grid != null}
+     */
+    public Entry lookup(final int[] circles, final YGrid grid) {
+        return lookup(circles, grid, null);
+    }
+
+    /**
+     * Gets the entry for a grid, searching if it is not cached,
+     * and records the lookup in statistics: answers from the cache or the
+     * {@link ClassicIndex} are hits, and the nodes of a search are counted.
+     *
+     * @param circles  the circle sums
+     * @param grid  the grid
+     * @param statistics  the statistics to fill in, or {@code null}
+     * @return the entry for {@code grid}
+     */
+    public Entry lookup(final int[] circles, final YGrid grid,
+            final SolverStatistics statistics) {
+        if (ClassicIndex.covers(grid.getGeometry())) {
+            if (statistics != null) {
+                statistics.cacheHit();
+            }
+            return indexed(circles, grid);
+        }
+        if (!grid.canPack()) {
+            return search(circles, grid, statistics);
+        }
+        final CanonicalForm form = CanonicalForm.of(circles, grid);
+        final Key key = canonicalKey(form);
+        synchronized (this) {
+            final Entry known = entries.get(key);
+            if (known != null) {
+                ++hits;
+                if (statistics != null) {
+                    statistics.cacheHit();
+                }
+                return mapped(known, form::toOriginal);
+            }
+            ++misses;
+        }
+        final Entry entry = search(circles, grid, statistics);
+        put(key, mapped(entry, form::toCanonical));
+        return entry;
+    }
+
+    /**
+     * Gets the key of a canonical form, made of all of the form:
+     * its geometry, circle sums and digits, packed as by {@link YGrid#pack()}.
+     * Keys are thus equal exactly if the forms are.
+     *
+     * @param form  the canonical form of a packable grid
+     * @return the key of {@code form}
+     */
+    private static Key canonicalKey(final CanonicalForm form) {
+        final YGeometry geometry = form.getGeometry();
+        final int bitsPerCell = Integer.SIZE - Integer.numberOfLeadingZeros(geometry.getMaxDigit());
+        final int[] digits = form.getDigits();
+        long packed = 0;
+        for (int i = digits.length - 1; 0 <= i; i--) {
+            packed = packed << bitsPerCell | digits[i];
+        }
+        return new Key(geometry, form.getCircles(), packed);
+    }
+
+    /**
+     * Maps the solution of an entry.
+     *
+     * @param entry  the entry
+     * @param map  the map from cells to cells
+     * @return an entry with the mapped solution
+     */
+    private static Entry mapped(final Entry entry, final UnaryOperator<int[]> map) {
+        return entry.solution == null ? entry
+                : new Entry(entry.solvable, entry.count, map.apply(entry.solution));
+    }
+
+    /**
+     * Searches for a solution of a grid.
+     *
+     * @param circles  the circle sums
+     * @param grid  the grid
+     * @param statistics  the statistics to record a miss and the nodes in,
+     *     or {@code null}
+     * @return a new entry for {@code grid}
+     */
+    private static Entry search(final int[] circles, final YGrid grid,
+            final SolverStatistics statistics) {
+        final BitmaskSearch search = new BitmaskSearch(grid.getGeometry(), circles);
+        if (statistics != null) {
+            statistics.cacheMiss();
+            search.setStatistics(statistics);
+        }
+        return search.load(grid) && search.findFirst()
+                ? new Entry(true, UNKNOWN, search.getValues())
+                : new Entry(false, 0, null);
+    }
+
+    /**
+     * Looks up a grid of the classic board in the {@link ClassicIndex}.
+     *
+     * @param circles  the circle sums
+     * @param grid  the grid
+     * @return a new entry for {@code grid}, with the exact count
+     */
+    private static Entry indexed(final int[] circles, final YGrid grid) {
+        final ClassicIndex index = ClassicIndex.get();
+        final int[] solution = index.findFirst(circles, grid);
+        return solution == null ? new Entry(false, 0, null)
+                : new Entry(true, index.count(circles, grid, Integer.MAX_VALUE), solution);
+    }
+
+    /**
+     * Gets the entry for a grid or any of its rotations and reflections,
+     * without searching.
+     *
+     * @param circles  the circle sums
+     * @param grid  the grid
+     * @return the entry, with the solution mapped to {@code grid},
+     *     or {@code null} if not cached
+     * @pre {@code grid.canPack()}
+     */
+    public Entry get(final int[] circles, final YGrid grid) {
+        final CanonicalForm form = CanonicalForm.of(circles, grid);
+        final Entry known;
+        synchronized (this) {
+            known = entries.get(canonicalKey(form));
+        }
+        return known == null ? null : mapped(known, form::toOriginal);
+    }
+
+    /**
+     * Gets the entry for a grid, without searching.
+     * The key is taken as is: it is not put in canonical form.
+     *
+     * @param geometry  the board geometry of the grid
+     * @param circles  the circle sums
+     * @param packed  the packed digits of the grid, see {@link YGrid#pack()}
+     * @return the entry, or {@code null} if not cached
+     */
+    public synchronized Entry get(final YGeometry geometry, final int[] circles,
+            final long packed) {
+        return entries.get(new Key(geometry, circles, packed));
+    }
+
+    /**
+     * Stores an entry for a grid, shared with its rotations and reflections.
+     *
+     * @param circles  the circle sums
+     * @param grid  the grid
+     * @param entry  the entry to store, with a solution of {@code grid}
+     * @pre {@code grid.canPack()}
+     */
+    public void put(final int[] circles, final YGrid grid, final Entry entry) {
+        final CanonicalForm form = CanonicalForm.of(circles, grid);
+        put(canonicalKey(form), mapped(entry, form::toCanonical));
+    }
+
+    /**
+     * Stores an entry for a grid.
+     * The key is taken as is: it is not put in canonical form.
+     *
+     * @param geometry  the board geometry of the grid
+     * @param circles  the circle sums
+     * @param packed  the packed digits of the grid, see {@link YGrid#pack()}
+     * @param entry  the entry to store
+     */
+    public void put(final YGeometry geometry, final int[] circles, final long packed,
+            final Entry entry) {
+        put(new Key(geometry, circles, packed), entry);
+    }
+
+    /**
+     * Stores an entry, keeping a known count or solution
+     * of an existing entry for the same key.
+     *
+     * @param key  the key
+     * @param entry  the entry to store
+     */
+    private synchronized void put(final Key key, final Entry entry) {
+        final Entry old = entries.get(key);
+        entries.put(key, old == null ? entry : old.merge(entry));
+    }
+
+    /** Removes all entries. */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Immutable cached result for a grid.
+     */
+    public static final class Entry {
+
+        /** Whether the grid can be completed. */
+        private final boolean solvable;
+
+        /** Number of completions, or {@code UNKNOWN}. */
+        private final int count;
+
+        /** The digits of one completion, or {@code null}. */
+        private final int[] solution;
+
+        /**
+         * Constructs an entry.
+         *
+         * @param solvable  whether the grid can be completed
+         * @param count  the number of completions, or {@code UNKNOWN}
+         * @param solution  the digits of one completion, or {@code null}
+         */
+        public Entry(final boolean solvable, final int count, final int[] solution) {
+            this.solvable = solvable;
+            this.count = count;
+            this.solution = solution == null ? null : solution.clone();
+        }
+
+        public boolean isSolvable() {
+            return solvable;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the digits of one completion.
+         *
+         * @return copy of the solution digits, or {@code null} if none known
+         */
+        public int[] getSolution() {
+            return solution == null ? null : solution.clone();
+        }
+
+        /**
+         * Combines this entry with a newer one for the same grid,
+         * keeping whatever either of them knows.
+         *
+         * @param other  the newer entry
+         * @return the combined entry
+         */
+        Entry merge(final Entry other) {
+            final int mergedCount = other.count != UNKNOWN ? other.count : count;
+            final int[] mergedSolution = other.solution != null ? other.solution : solution;
+            return new Entry(other.solvable, mergedCount, mergedSolution);
+        }
+
+    }
+
+    /**
+     * Key of an entry: board geometry, circle sums and packed grid digits.
+     * Boards of different shape or largest digit may have the same circle
+     * sums and packed digits, so the geometry is part of the key.
+     */
+    private static final class Key {
+
+        /** The board geometry. */
+        private final YGeometry geometry;
+
+        /** The circle sums. */
+        private final int[] circles;
+
+        /** The packed digits. */
+        private final long packed;
+
+        /**
+         * Constructs a key.
+         *
+         * @param geometry  the board geometry
+         * @param circles  the circle sums, copied
+         * @param packed  the packed digits
+         */
+        Key(final YGeometry geometry, final int[] circles, final long packed) {
+            this.geometry = geometry;
+            this.circles = circles.clone();
+            this.packed = packed;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return packed == other.packed && geometry.equals(other.geometry)
+                    && Arrays.equals(circles, other.circles);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * geometry.hashCode() + Arrays.hashCode(circles)) * 31
+                    + Long.hashCode(packed);
+        }
+
+    }
+
+}
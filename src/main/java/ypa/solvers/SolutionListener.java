@@ -0,0 +1,19 @@
+package ypa.solvers;
+
+/**
+ * Receives the solutions found by an enumerating search, one at a time.
+ */
+@FunctionalInterface
+public interface SolutionListener {
+
+    /**
+     * Handles a solution.
+     * The array belongs to the search and is only valid during the call;
+     * copy it to keep the solution.
+     *
+     * @param digits  the digit of each cell
+     * @return whether the search should continue
+     */
+    boolean onSolution(int[] digits);
+
+}
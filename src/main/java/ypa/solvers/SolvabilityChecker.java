@@ -0,0 +1,228 @@
+package ypa.solvers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import ypa.model.YCell;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+
+/**
+ * Checks whether grid states of a puzzle can be completed into a solution.
+ * Intended for reasoning by contradiction, which asks this question for many
+ * closely related states: the checker reuses one {@link BitmaskSearch} and one
+ * scratch array, instead of creating a solver and copying the grid per trial.
+ * <p>
+ * Proven results are remembered, keyed by the packed cell digits,
+ * when the board is small enough to pack.
+ * Moreover, every solution found is remembered as well, since any state
+ * that agrees with a known solution is solvable without searching.
+ */
+public class SolvabilityChecker {
+
+    /** Maximum number of remembered results, before the memo is cleared. */
+    private static final int MAX_MEMO = 4096;
+
+    /** Maximum number of remembered solutions. */
+    private static final int MAX_SOLUTIONS = 16;
+
+    /** The expected sum of each circle. */
+    private final int[] circles;
+
+    /** The reused search engine. */
+    private final BitmaskSearch search;
+
+    /** Scratch array holding the state to check. */
+    private final int[] scratch;
+
+    /** Proven results, keyed by packed state. */
+    private final Map<Long, Boolean> memo = new HashMap<>();
+
+    /** Solutions found so far, oldest first. */
+    private final int[][] solutions = new int[MAX_SOLUTIONS][];
+
+    /** Number of searches actually run, for diagnostics. */
+    private int searchCount;
+
+    /** The statistics to fill in; {@code null} if disabled. */
+    private SolverStatistics statistics;
+
+    /**
+     * Constructs a checker for the given board geometry and circle sums.
+     *
+     * @param geometry  the board geometry
+     * @param circles  the expected sum of each circle
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code geometry != null && circles != null
+     *   && circles.length == geometry.getCircleCount()}
+     */
+    public SolvabilityChecker(final YGeometry geometry, final int[] circles) {
+        this.search = new BitmaskSearch(geometry, circles);
+        this.circles = circles.clone();
+        this.scratch = new int[search.getCellCount()];
+    }
+
+    /**
+     * Sets the statistics to fill in: a cache hit per check answered
+     * from earlier results, a cache miss per search, and the nodes of
+     * the searches.
+     *
+     * @param statistics  the statistics, or {@code null} to disable them
+     */
+    public void setStatistics(final SolverStatistics statistics) {
+        this.statistics = statistics;
+        search.setStatistics(statistics);
+    }
+
+    /**
+     * Returns whether this checker is for the given board and circle sums.
+     *
+     * @param geometry  the board geometry to compare with
+     * @param otherCircles  the circle sums to compare with
+     * @return whether {@code geometry} and {@code otherCircles} equal
+     *     those of this checker
+     */
+    public boolean hasCircles(final YGeometry geometry, final int[] otherCircles) {
+        return search.getGeometry().equals(geometry) && Arrays.equals(circles, otherCircles);
+    }
+
+    /**
+     * Returns whether a grid can be completed into a solution.
+     *
+     * @param grid  the grid to check
+     * @return whether {@code grid} is solvable
+     * @pre {@code grid != null}
+     */
+    public boolean isSolvable(final YGrid grid) {
+        for (int i = 0; i < scratch.length; ++i) {
+            scratch[i] = grid.getValue(i);
+        }
+        return check(grid.canPack() ? grid.pack() : null);
+    }
+
+    /**
+     * Returns whether a grid, with a digit placed in one of its empty cells,
+     * can be completed into a solution.
+     * The grid itself is not modified.
+     *
+     * @param grid  the grid to check
+     * @param cell  index of the empty cell to place the digit in
+     * @param digit  the digit to place
+     * @return whether {@code grid} with {@code digit} in {@code cell} is solvable
+     * @pre {@code grid != null && grid.getValue(cell) == YCell.EMPTY}
+     */
+    public boolean isSolvable(final YGrid grid, final int cell, final int digit) {
+        for (int i = 0; i < scratch.length; ++i) {
+            scratch[i] = grid.getValue(i);
+        }
+        scratch[cell] = digit;
+        return check(grid.canPack()
+                ? grid.pack() | (long) digit << (grid.getBitsPerCell() * cell) : null);
+    }
+
+    /**
+     * Checks the state in {@code scratch}, consulting and updating the memo.
+     *
+     * @param key  the packed state in {@code scratch},
+     *     or {@code null} if the board is too large to pack
+     * @return whether the state is solvable
+     */
+    private boolean check(final Long key) {
+        final Boolean known = key == null ? null : memo.get(key);
+        if (known != null) {
+            record(true);
+            return known;
+        }
+        boolean result = agreesWithKnownSolution();
+        record(result);
+        if (!result) {
+            ++searchCount;
+            result = search.load(scratch) && search.findFirst();
+            if (result) {
+                remember(search.getValues());
+            }
+        }
+        if (key != null) {
+            if (memo.size() >= MAX_MEMO) {
+                memo.clear();
+            }
+            memo.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Records a check in the statistics, if enabled.
+     *
+     * @param hit  whether the check was answered without a search
+     */
+    private void record(final boolean hit) {
+        if (statistics == null) {
+            return;
+        }
+        if (hit) {
+            statistics.cacheHit();
+        } else {
+            statistics.cacheMiss();
+        }
+    }
+
+    /**
+     * Returns whether the state in {@code scratch} agrees with
+     * one of the remembered solutions.
+     *
+     * @return whether a remembered solution extends the state
+     */
+    private boolean agreesWithKnownSolution() {
+        for (int[] solution : solutions) {
+            if (solution != null && isExtendedBy(solution)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether a solution extends the state in {@code scratch}.
+     *
+     * @param solution  the solution
+     * @return whether all filled cells of the state match {@code solution}
+     */
+    private boolean isExtendedBy(final int[] solution) {
+        for (int i = 0; i < scratch.length; ++i) {
+            if (scratch[i] != YCell.EMPTY && scratch[i] != solution[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remembers a solution, dropping the oldest one when full.
+     *
+     * @param solution  the solution to remember
+     */
+    private void remember(final int[] solution) {
+        System.arraycopy(solutions, 1, solutions, 0, MAX_SOLUTIONS - 1);
+        solutions[MAX_SOLUTIONS - 1] = solution;
+    }
+
+    /**
+     * Gets the number of search nodes explored by the searches so far.
+     *
+     * @return the number of nodes, see {@link BitmaskSearch#getNodeCount()}
+     */
+    public long getNodeCount() {
+        return search.getNodeCount();
+    }
+
+    /**
+     * Gets the number of searches run so far; memo hits do not count.
+     *
+     * @return the number of searches
+     */
+    public int getSearchCount() {
+        return searchCount;
+    }
+
+}
@@ -0,0 +1,283 @@
+package ypa.solvers;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+import ypa.model.YPuzzle;
+
+/**
+ * Solves puzzles in the background, one at a time.
+ * {@link #submit(YPuzzle)} takes a snapshot of the puzzle on the calling
+ * thread, and returns a {@link CompletableFuture} of the {@link Result};
+ * the search runs on the executor and never touches the puzzle itself.
+ * <p>
+ * Boards of more than {@link #PARALLEL_CELLS} cells are searched by a
+ * {@link ParallelSearch}, which splits the search tree across cores;
+ * smaller ones by a single {@link BitmaskSearch}.
+ * Cancelling the future sets a flag that the searches check at
+ * every search node, so the executor is free again almost at once.
+ * Submitting a puzzle cancels the previous submission.
+ * Nothing polls: an idle executor thread is parked, and callers react to
+ * completion through the future, e.g., with
+ * {@code thenAcceptAsync(action, SwingUtilities::invokeLater)}.
+ */
+public class SolverService {
+
+    /** Number of cells above which a board is searched in parallel. */
+    public static final int PARALLEL_CELLS = 16;
+
+    /** The executor to run the searches on. */
+    private final ExecutorService executor;
+
+    /** The future of the latest submission, or {@code null} if none. */
+    private final AtomicReference<CompletableFuture<Result>> latest = new AtomicReference<>();
+
+    /** Whether searches collect {@link SolverStatistics}. */
+    private volatile boolean statisticsEnabled;
+
+    /**
+     * Constructs a service with its own daemon thread.
+     */
+    public SolverService() {
+        this(Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "solver");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Constructs a service that runs its searches on a given executor.
+     *
+     * @param executor  the executor to run the searches on
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code executor != null}
+     */
+    public SolverService(final ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: executor == null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Sets whether later submissions collect statistics,
+     * see {@link Result#getStatistics()}.
+     *
+     * @param statisticsEnabled  whether to collect statistics
+     */
+    public void setStatisticsEnabled(final boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Starts solving a puzzle from its current state,
+     * and cancels the previous submission.
+     *
+     * @param puzzle  the puzzle to solve; it is not modified
+     * @return the future result; cancelling it stops the search
+     * @pre {@code puzzle != null}
+     */
+    public CompletableFuture<Result> submit(final YPuzzle puzzle) {
+        final YGeometry geometry = puzzle.getGeometry();
+        final int[] circles = puzzle.getCircles().clone();
+        final int[] digits = snapshot(puzzle.getGrid());
+        final AtomicBoolean cancel = new AtomicBoolean();
+        final SolverStatistics statistics = statisticsEnabled ? new SolverStatistics() : null;
+        final ParallelSearch parallel = geometry.getCellCount() > PARALLEL_CELLS
+                ? new ParallelSearch(geometry, circles) : null;
+        final CompletableFuture<Result> future = CompletableFuture.supplyAsync(
+                () -> parallel == null ? solve(geometry, circles, digits, cancel, statistics)
+                        : solve(parallel, digits, statistics), executor);
+        future.whenComplete((result, failure) -> {
+            if (future.isCancelled()) {
+                cancel.set(true);
+                if (parallel != null) {
+                    parallel.cancel();
+                }
+            }
+        });
+        final CompletableFuture<Result> previous = latest.getAndSet(future);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        return future;
+    }
+
+    /**
+     * Cancels the latest submission, if any.
+     */
+    public void cancel() {
+        final CompletableFuture<Result> previous = latest.getAndSet(null);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    /**
+     * Cancels the latest submission and stops the executor.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdown();
+    }
+
+    /**
+     * Copies the digits of a grid.
+     *
+     * @param grid  the grid
+     * @return the digit of each cell
+     */
+    private static int[] snapshot(final YGrid grid) {
+        final int[] digits = new int[grid.getSize()];
+        for (int i = 0; i < digits.length; ++i) {
+            digits[i] = grid.getValue(i);
+        }
+        return digits;
+    }
+
+    /**
+     * Searches for a completion of a snapshot.
+     *
+     * @param geometry  the board geometry
+     * @param circles  the circle sums
+     * @param digits  the snapshot of the cells
+     * @param cancel  the flag to give up on
+     * @param statistics  the statistics to fill in, or {@code null}
+     * @return the result
+     */
+    private static Result solve(final YGeometry geometry, final int[] circles,
+            final int[] digits, final AtomicBoolean cancel, final SolverStatistics statistics) {
+        final long start = System.nanoTime();
+        if (statistics != null) {
+            statistics.start();
+        }
+        final BitmaskSearch search = new BitmaskSearch(geometry, circles);
+        search.setCancelFlag(cancel);
+        search.setStatistics(statistics);
+        final int[] solution = search.load(digits) && search.findFirst()
+                ? search.getValues() : null;
+        if (statistics != null) {
+            statistics.stop();
+        }
+        return new Result(digits, solution, search.getNodeCount(), System.nanoTime() - start,
+                statistics);
+    }
+
+    /**
+     * Searches for a completion of a snapshot across cores.
+     * The tasks cannot share statistics, so only time and the allocation
+     * of the executor thread are measured.
+     *
+     * @param search  the parallel search for the board
+     * @param digits  the snapshot of the cells
+     * @param statistics  the statistics to fill in, or {@code null}
+     * @return the result
+     */
+    private static Result solve(final ParallelSearch search, final int[] digits,
+            final SolverStatistics statistics) {
+        final long start = System.nanoTime();
+        if (statistics != null) {
+            statistics.start();
+        }
+        final int[] solution = search.findFirst(digits);
+        if (statistics != null) {
+            statistics.stop();
+        }
+        return new Result(digits, solution, search.getNodeCount(), System.nanoTime() - start,
+                statistics);
+    }
+
+    /**
+     * The outcome of solving a snapshot of a puzzle.
+     */
+    public static final class Result {
+
+        /** The digits of the snapshot that was solved. */
+        private final int[] snapshot;
+
+        /** The digits of a completion, or {@code null} if none exists. */
+        private final int[] solution;
+
+        /** Number of search nodes explored. */
+        private final long nodes;
+
+        /** Time taken by the search, in nanoseconds. */
+        private final long nanos;
+
+        /** Statistics of the search, or {@code null} if not collected. */
+        private final SolverStatistics statistics;
+
+        /**
+         * Constructs a result.
+         *
+         * @param snapshot  the digits of the snapshot
+         * @param solution  the digits of a completion, or {@code null}
+         * @param nodes  number of search nodes explored
+         * @param nanos  time taken, in nanoseconds
+         * @param statistics  statistics of the search, or {@code null}
+         */
+        Result(final int[] snapshot, final int[] solution, final long nodes, final long nanos,
+                final SolverStatistics statistics) {
+            this.snapshot = snapshot;
+            this.solution = solution;
+            this.nodes = nodes;
+            this.nanos = nanos;
+            this.statistics = statistics;
+        }
+
+        /**
+         * Returns whether this is the result for the current state of a grid,
+         * i.e., whether the grid still has the digits of the snapshot.
+         *
+         * @param grid  the grid
+         * @return whether {@code grid} matches the snapshot
+         */
+        public boolean isFor(final YGrid grid) {
+            return Arrays.equals(snapshot, snapshot(grid));
+        }
+
+        public boolean isSolved() {
+            return solution != null;
+        }
+
+        /**
+         * Gets the digits of the completion.
+         *
+         * @return copy of the digit of each cell, or {@code null} if not solvable
+         */
+        public int[] getSolution() {
+            return solution == null ? null : solution.clone();
+        }
+
+        public long getNodeCount() {
+            return nodes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Gets the statistics of the search.
+         *
+         * @return the statistics, or {@code null} if they were not enabled
+         *     when the puzzle was submitted
+         */
+        public SolverStatistics getStatistics() {
+            return statistics;
+        }
+
+    }
+
+}
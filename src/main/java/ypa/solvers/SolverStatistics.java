@@ -0,0 +1,267 @@
+package ypa.solvers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Counters describing the work done by a solve or a reasoning step:
+ * search nodes, backtracks, prunes per rule, deepest decision level,
+ * deductions, cache hits and misses, wall time and allocated bytes.
+ * <p>
+ * Solvers, searches and reasoners fill in the statistics object they
+ * are given; they are given {@code null} when statistics are disabled,
+ * and then only test a field at each node.
+ * The counters are plain fields, so an object must be filled in by one
+ * thread at a time.
+ * Time and allocation are measured between {@link #start()} and
+ * {@link #stop()}; the allocation is that of the current thread,
+ * as reported by the platform's {@code ThreadMXBean}, if it supports that.
+ */
+public final class SolverStatistics {
+
+    /**
+     * The rules by which a branch is cut off.
+     */
+    public enum Prune {
+        /** Some circle can no longer reach its sum. */
+        CIRCLE_SUM,
+        /** An empty cell has no candidate digits left. */
+        NO_CANDIDATES,
+        /** Reasoning derived a contradiction from a trial digit. */
+        CONTRADICTION
+    }
+
+    /** Value of {@link #getAllocatedBytes()} if allocation is not measured. */
+    public static final long UNSUPPORTED = -1;
+
+    /** Number of search nodes, i.e., digits tried. */
+    private long nodes;
+
+    /** Number of digits taken back. */
+    private long backtracks;
+
+    /** Number of prunes, indexed by rule ordinal. */
+    private final long[] prunes = new long[Prune.values().length];
+
+    /** Deepest decision level of a node, counting from 1. */
+    private int maxDepth;
+
+    /** Number of cells determined by reasoning. */
+    private long deductions;
+
+    /** Number of lookups answered without a search. */
+    private long cacheHits;
+
+    /** Number of lookups that needed a search. */
+    private long cacheMisses;
+
+    /** Total measured wall time, in nanoseconds. */
+    private long wallNanos;
+
+    /** Total measured allocation, in bytes, or {@link #UNSUPPORTED}. */
+    private long allocatedBytes;
+
+    /** Number of {@link #start()} calls not yet stopped. */
+    private int running;
+
+    /** Value of {@code System.nanoTime()} at the outermost start. */
+    private long startNanos;
+
+    /** Allocated bytes of the thread at the outermost start. */
+    private long startBytes;
+
+    /**
+     * Starts measuring time and allocation.
+     * Starts may be nested; only the outermost pair is measured.
+     */
+    public void start() {
+        if (running++ == 0) {
+            startBytes = threadAllocatedBytes();
+            startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stops measuring, and adds the time and allocation since the
+     * matching {@link #start()} to the totals.
+     *
+     * @pre {@code isRunning()}
+     */
+    public void stop() {
+        if (running > 0 && --running == 0) {
+            wallNanos += System.nanoTime() - startNanos;
+            final long bytes = threadAllocatedBytes();
+            allocatedBytes = bytes == UNSUPPORTED || allocatedBytes == UNSUPPORTED
+                    ? UNSUPPORTED : allocatedBytes + bytes - startBytes;
+        }
+    }
+
+    public boolean isRunning() {
+        return running > 0;
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far.
+     *
+     * @return the number of bytes, or {@link #UNSUPPORTED}
+     */
+    private static long threadAllocatedBytes() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return UNSUPPORTED;
+        }
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        return threads.isThreadAllocatedMemorySupported()
+                && threads.isThreadAllocatedMemoryEnabled()
+                ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : UNSUPPORTED;
+    }
+
+    /**
+     * Records a search node at a given decision level.
+     *
+     * @param depth  the decision level, counting from 1
+     */
+    public void node(final int depth) {
+        ++nodes;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    /**
+     * Records that a digit was taken back.
+     */
+    public void backtrack() {
+        ++backtracks;
+    }
+
+    /**
+     * Records that a branch was cut off.
+     *
+     * @param rule  the rule that cut it off
+     */
+    public void prune(final Prune rule) {
+        ++prunes[rule.ordinal()];
+    }
+
+    /**
+     * Records cells determined by reasoning.
+     *
+     * @param cells  the number of cells
+     */
+    public void deduction(final int cells) {
+        deductions += cells;
+    }
+
+    /**
+     * Records a lookup answered without a search.
+     */
+    public void cacheHit() {
+        ++cacheHits;
+    }
+
+    /**
+     * Records a lookup that needed a search.
+     */
+    public void cacheMiss() {
+        ++cacheMisses;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * Gets the number of branches cut off by a rule.
+     *
+     * @param rule  the rule
+     * @return the number of prunes by {@code rule}
+     */
+    public long getPrunes(final Prune rule) {
+        return prunes[rule.ordinal()];
+    }
+
+    /**
+     * Gets the number of branches cut off by any rule.
+     *
+     * @return the total number of prunes
+     */
+    public long getPrunes() {
+        long result = 0;
+        for (long count : prunes) {
+            result += count;
+        }
+        return result;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getDeductions() {
+        return deductions;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Gets the number of bytes allocated while measured.
+     *
+     * @return the number of bytes, or {@link #UNSUPPORTED}
+     *     if the platform does not report allocation
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Sets all counters and totals to zero, and stops measuring.
+     */
+    public void reset() {
+        nodes = 0;
+        backtracks = 0;
+        Arrays.fill(prunes, 0);
+        maxDepth = 0;
+        deductions = 0;
+        cacheHits = 0;
+        cacheMisses = 0;
+        wallNanos = 0;
+        allocatedBytes = 0;
+        running = 0;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        result.append(nodes).append(" nodes, ")
+                .append(backtracks).append(" backtracks, depth ").append(maxDepth)
+                .append(", prunes");
+        for (Prune rule : Prune.values()) {
+            result.append(' ').append(rule.name().toLowerCase())
+                    .append('=').append(prunes[rule.ordinal()]);
+        }
+        result.append(", ").append(deductions).append(" deductions, cache ")
+                .append(cacheHits).append('/').append(cacheHits + cacheMisses)
+                .append(String.format(", %.1f ms", wallNanos / 1e6));
+        if (allocatedBytes != UNSUPPORTED) {
+            result.append(", ").append(allocatedBytes / 1024).append(" KiB");
+        }
+        return result.toString();
+    }
+
+}
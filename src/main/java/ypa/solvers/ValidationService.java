@@ -0,0 +1,191 @@
+package ypa.solvers;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+import ypa.model.YPuzzle;
+
+/**
+ * Debounced background check of whether a puzzle being edited
+ * is solvable, and whether its solution is unique.
+ * Every {@link #request} snapshots the puzzle on the calling thread,
+ * and schedules a check of the snapshot after a short delay;
+ * a newer request cancels the older one, whether it is still waiting or
+ * already searching (the {@link BitmaskSearch} checks the cancel flag at
+ * every node). Classic 3x3 puzzles are not searched, but looked up in the
+ * {@link ClassicIndex}.
+ * Verdicts are handed to the listener through the publisher, e.g.,
+ * {@code SwingUtilities::invokeLater}, and only if no newer request
+ * was made in the meantime.
+ */
+public class ValidationService {
+
+    /** Default delay between a request and its check, in milliseconds. */
+    public static final long DEFAULT_DELAY_MILLIS = 150;
+
+    /**
+     * The outcome of a check.
+     */
+    public enum Verdict {
+        /** The puzzle has no solution. */
+        NOT_SOLVABLE,
+        /** The puzzle has exactly one solution. */
+        UNIQUE,
+        /** The puzzle has more than one solution. */
+        MULTIPLE
+    }
+
+    /** The thread that runs the checks. */
+    private final ScheduledExecutorService scheduler;
+
+    /** Delay between a request and its check, in milliseconds. */
+    private final long delayMillis;
+
+    /** The executor to hand verdicts to the listeners with. */
+    private final Executor publisher;
+
+    /** The latest check, or {@code null} if none. */
+    private final AtomicReference<Check> latest = new AtomicReference<>();
+
+    /**
+     * Constructs a service with its own daemon thread.
+     *
+     * @param delayMillis  delay between a request and its check, in milliseconds
+     * @param publisher  the executor to hand verdicts to the listeners with
+     * @throws IllegalArgumentException  if precondition failed
+     * @pre {@code delayMillis >= 0 && publisher != null}
+     */
+    public ValidationService(final long delayMillis, final Executor publisher) {
+        if (delayMillis < 0 || publisher == null) {
+            throw new IllegalArgumentException(getClass().getSimpleName()
+                    + "().pre failed: delayMillis == " + delayMillis
+                    + ", publisher == " + publisher);
+        }
+        this.delayMillis = delayMillis;
+        this.publisher = publisher;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "validation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Requests a check of a puzzle from its current state,
+     * cancelling the previous request.
+     *
+     * @param puzzle  the puzzle to check; it is not modified
+     * @param listener  the listener to hand the verdict to
+     * @pre {@code puzzle != null && listener != null}
+     */
+    public void request(final YPuzzle puzzle, final Consumer<Verdict> listener) {
+        final Check check = new Check(puzzle, listener);
+        final Check previous = latest.getAndSet(check);
+        if (previous != null) {
+            previous.cancel();
+        }
+        check.future = scheduler.schedule(check, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels the latest request, if any.
+     */
+    public void cancel() {
+        final Check previous = latest.getAndSet(null);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Cancels the latest request and stops the checking thread.
+     */
+    public void shutdown() {
+        cancel();
+        scheduler.shutdown();
+    }
+
+    /**
+     * A requested check of a snapshot.
+     */
+    private final class Check implements Runnable {
+
+        /** The board geometry. */
+        private final YGeometry geometry;
+
+        /** The circle sums of the snapshot. */
+        private final int[] circles;
+
+        /** The digits of the snapshot. */
+        private final int[] digits;
+
+        /** The listener to hand the verdict to. */
+        private final Consumer<Verdict> listener;
+
+        /** Set when a newer request supersedes this one. */
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        /** The scheduled run of this check, once scheduled. */
+        private volatile Future<?> future;
+
+        /**
+         * Constructs a check of the current state of a puzzle.
+         *
+         * @param puzzle  the puzzle
+         * @param listener  the listener to hand the verdict to
+         */
+        Check(final YPuzzle puzzle, final Consumer<Verdict> listener) {
+            final YGrid grid = puzzle.getGrid();
+            this.geometry = puzzle.getGeometry();
+            this.circles = puzzle.getCircles().clone();
+            this.digits = new int[grid.getSize()];
+            for (int i = 0; i < digits.length; ++i) {
+                digits[i] = grid.getValue(i);
+            }
+            this.listener = listener;
+        }
+
+        /** Cancels this check, waiting or running. */
+        void cancel() {
+            cancelled.set(true);
+            final Future<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (cancelled.get()) {
+                return;
+            }
+            final int count;
+            if (ClassicIndex.covers(geometry)) {
+                count = ClassicIndex.get().count(circles, digits, 2);
+            } else {
+                final BitmaskSearch search = new BitmaskSearch(geometry, circles);
+                search.setCancelFlag(cancelled);
+                count = search.load(digits) ? search.countSolutions(2) : 0;
+            }
+            if (cancelled.get()) {
+                return;
+            }
+            final Verdict verdict = count == 0 ? Verdict.NOT_SOLVABLE
+                    : count == 1 ? Verdict.UNIQUE : Verdict.MULTIPLE;
+            publisher.execute(() -> {
+                if (latest.get() == this) {
+                    listener.accept(verdict);
+                }
+            });
+        }
+
+    }
+
+}
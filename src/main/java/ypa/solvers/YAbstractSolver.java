@@ -19,6 +19,12 @@ public abstract class YAbstractSolver {
     /** Commands executed. */
     protected Stack<Command> commands;
 
+    /** Whether solves collect statistics. */
+    private boolean statisticsEnabled;
+
+    /** Statistics of the latest solve; {@code null} if not collected. */
+    protected SolverStatistics statistics;
+
     /**
      * Constructs a reasoner for a given puzzle.
      *
@@ -44,6 +50,54 @@ public abstract class YAbstractSolver {
         return commands;
     }
 
+    /**
+     * Sets whether solves collect statistics.
+     * Disabled, which is the default, the search does no counting.
+     *
+     * @param statisticsEnabled  whether to collect statistics
+     */
+    public void setStatisticsEnabled(final boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Gets the statistics of the latest solve.
+     *
+     * @return the statistics, or {@code null} if they were not enabled
+     */
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Starts the statistics of a solve, replacing those of the previous one.
+     * To be called by subclasses at the start of a solve, and to be
+     * matched by {@link #stopStatistics()}.
+     *
+     * @return the new statistics, measuring, or {@code null} if disabled
+     * @modifies {@code statistics}
+     */
+    protected SolverStatistics startStatistics() {
+        statistics = statisticsEnabled ? new SolverStatistics() : null;
+        if (statistics != null) {
+            statistics.start();
+        }
+        return statistics;
+    }
+
+    /**
+     * Stops measuring the statistics of a solve, if enabled.
+     */
+    protected void stopStatistics() {
+        if (statistics != null) {
+            statistics.stop();
+        }
+    }
+
     /**
      * Either finds one solution of the puzzle from its current state,
      * if solvable, or leaves the puzzle unchanged.
@@ -1,18 +1,10 @@
 package ypa.solvers;
 
-import ypa.command.Command;
-import ypa.command.CompoundCommand;
-import ypa.command.SetCommand;
 import ypa.model.YCell;
 import ypa.model.YPuzzle;
 import ypa.model.YGrid;
 import ypa.reasoning.Reasoner;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import javax.swing.*;
-
 /**
  * YBacktrackSolver is a solver for Sujiko puzzles using a backtracking
  * approach.
@@ -35,18 +27,6 @@ public class YBacktrackSolver extends YAbstractSolver {
     /** The array of 4 numbers representing the 4 given hints. */
     private final int[] circles;
 
-    /** Flag to indicate if the solver should stop at the first solution. */
-    private boolean stopAtFirstSolution = false;
-
-    /** List to store all solutions if not stopping at the first solution. */
-    private List<YGrid> solutions = new ArrayList<>();
-
-    /** SwingWorker for running the solver in the background. */
-    private SolverWorker solverWorker;
-
-    /** Flag to indicate if the solver should be interrupted. */
-    private volatile boolean interrupted = false;
-
     /**
      * Constructs a backtracking solver for a given puzzle.
      *
@@ -63,98 +43,72 @@ public class YBacktrackSolver extends YAbstractSolver {
     }
 
     /**
-     * Sets whether the solver should stop at the first solution.
+     * Counts the solutions of the puzzle from its current state, up to a limit.
+     * Only the first solution is copied; classic boards are answered from
+     * the {@link ClassicIndex}, and exact counts of other boards are cached
+     * together with that solution.
      *
-     * @param stopAtFirstSolution {@code true} to stop at the first solution,
-     *                            {@code false} to find all solutions
-     */
-    public void setStopAtFirstSolution(boolean stopAtFirstSolution) {
-        this.stopAtFirstSolution = stopAtFirstSolution;
-    }
-
-    /**
-     * Starts solving the puzzle in the background.
-     */
-    public void startSolving() {
-        solverWorker = new SolverWorker();
-        solverWorker.execute();
-    }
-
-    /**
-     * Interrupts the solver.
+     * @param limit the number of solutions after which to stop;
+     *              2 suffices to check uniqueness
+     * @return the number of solutions, or {@code limit} if there are more
+     * @pre {@code limit > 0}
      */
-    public void interrupt() {
-        interrupted = true;
-        if (solverWorker != null) {
-            solverWorker.cancel(true);
+    public int countSolutions(int limit) {
+        if (ClassicIndex.covers(grid.getGeometry())) {
+            return ClassicIndex.get().count(circles, grid, limit);
         }
-    }
-
-    /**
-     * Inner class to handle background execution using SwingWorker.
-     */
-    private class SolverWorker extends SwingWorker<Void, Void> {
-        @Override
-        protected Void doInBackground() {
-            if (reasoner != null) {
-                CompoundCommand command = reasoner.apply();
-                if (command != null && command.size() > 0) {
-                    command.execute();
-                }
-            }
-
-            if (stopAtFirstSolution) {
-                YGrid solution = sujikoSolver(circles, backgroundGrid);
-                if (solution != null) {
-                    solutions.add(solution);
-                }
-            } else {
-                findAllSolutions(backgroundGrid, circles, 0);
-            }
-            return null;
+        if (!grid.canPack()) {
+            BitmaskSearch search = new BitmaskSearch(grid.getGeometry(), circles);
+            return search.load(grid) ? search.countSolutions(limit) : 0;
         }
-
-        @Override
-        protected void done() {
-            // Handle completion (e.g., update UI or notify the user)
+        final SolutionCache cache = SolutionCache.shared();
+        final SolutionCache.Entry known = cache.get(circles, grid);
+        if (known != null && (!known.isSolvable() || known.getCount() != SolutionCache.UNKNOWN)) {
+            return Math.min(known.isSolvable() ? known.getCount() : 0, limit);
         }
-    }
-
-    /**
-     * Finds all solutions to the Sujiko puzzle using backtracking.
-     *
-     * @param grid    the current grid being filled
-     * @param circles an array of 4 integers representing the sums of the
-     *                numbers in each circle
-     * @param index   the current index in the grid being filled
-     */
-    private void findAllSolutions(YGrid grid, int[] circles, int index) {
-        if (index == 9) {
-            if (checkSums(circles, grid)) {
-                solutions.add(new YGrid(grid));
-            }
-            return;
+        BitmaskSearch search = new BitmaskSearch(grid.getGeometry(), circles);
+        if (!search.load(grid)) {
+            cache.put(circles, grid, new SolutionCache.Entry(false, 0, null));
+            return 0;
         }
-
-        for (int num = 1; num <= 9; num++) {
-            if (interrupted) {
-                return;
-            }
-            if (!isUsed(grid, num)) {
-                grid.setCell(index, num);
-                findAllSolutions(grid, circles, index + 1);
-                grid.setCell(index, YCell.EMPTY);
+        final int[][] first = new int[1][];
+        final int count = search.forEachSolution(new SolutionListener() {
+            /** Number of solutions passed so far. */
+            private int seen;
+
+            @Override
+            public boolean onSolution(int[] digits) {
+                if (first[0] == null) {
+                    first[0] = digits.clone();
+                }
+                return ++seen < limit;
             }
+        });
+        if (count < limit) {
+            // the count is exact, and a solvable entry needs its solution
+            cache.put(circles, grid, new SolutionCache.Entry(count > 0, count, first[0]));
         }
+        return count;
     }
 
     /**
-     * Returns the list of solutions found.
+     * Passes every solution of the puzzle from its current state to a
+     * listener, until the listener asks to stop.
+     * The puzzle is not modified.
      *
-     * @return the list of solutions
+     * @param listener the listener to receive the solutions
+     * @return the number of solutions passed to {@code listener}
+     * @pre {@code listener != null}
      */
-    public List<YGrid> getSolutions() {
-        return solutions;
+    public int findSolutions(SolutionListener listener) {
+        if (ClassicIndex.covers(grid.getGeometry())) {
+            return ClassicIndex.get().forEachSolution(circles, grid, listener);
+        }
+        BitmaskSearch search = new BitmaskSearch(grid.getGeometry(), circles);
+        if (!search.load(grid)) {
+            return 0;
+        }
+        return search.forEachSolution(listener);
     }
 
     /**
@@ -165,70 +119,51 @@ public class YBacktrackSolver extends YAbstractSolver {
     @Override
     public boolean solve() {
         this.backgroundGrid = this.grid.clone();
-        YGrid solution = sujikoSolver(circles, backgroundGrid);
-        return solution != null;
+        startStatistics();
+        try {
+            return sujikoSolver(circles, backgroundGrid, statistics) != null;
+        } finally {
+            stopStatistics();
+        }
     }
 
     /**
      * Solves the Sujiko puzzle given the circle sums.
+     * The filled cells of {@code grid} are kept; the empty cells are filled
+     * by a {@link BitmaskSearch}, or from the {@link SolutionCache}.
      *
-     * @param circles array of 4 integers representing the sums of the numbers
+     * @param circles array of integers representing the sums of the numbers
      *                in each circle
-     * @param grid    the initially empty 3x3 grid that will contain the solutions
-     * @return YGrid of 9 integers with the solution grid or
+     * @param grid    the grid that will contain the solution
+     * @return the solution grid or
      *         {@code null} if no solution exists
      */
     public static YGrid sujikoSolver(int[] circles, YGrid grid) {
-        if (backtrack(grid, circles, 0)) {
-            return grid;
-        }
-        return null;
+        return sujikoSolver(circles, grid, null);
     }
 
     /**
-     * Recursively attempts to fill the Sujiko grid using backtracking.
+     * Solves the Sujiko puzzle given the circle sums, like
+     * {@link #sujikoSolver(int[], YGrid)}, and records the cache lookup
+     * and the search in statistics.
      *
-     * @param grid    the current grid being filled
-     * @param circles an array of 4 integers representing the sums of the
-     *                numbers in each circle
-     * @param index   the current index in the grid being filled
-     * @return {@code true} if a solution is found, {@code false} otherwise
+     * @param circles    the sums of the numbers in each circle
+     * @param grid       the grid that will contain the solution
+     * @param statistics the statistics to fill in, or {@code null}
+     * @return the solution grid or {@code null} if no solution exists
      */
-    private static boolean backtrack(YGrid grid, int[] circles, int index) {
-        if (index == 9) {
-            return checkSums(circles, grid);
-        }
-
-        for (int num = 1; num <= 9; num++) {
-            if (!isUsed(grid, num)) {
-                grid.setCell(index, num);
-                if (backtrack(grid, circles, index + 1)) {
-                    return true;
-                }
-                grid.setCell(index, YCell.EMPTY);
-            }
+    public static YGrid sujikoSolver(int[] circles, YGrid grid, SolverStatistics statistics) {
+        SolutionCache.Entry entry = SolutionCache.shared().lookup(circles, grid, statistics);
+        if (!entry.isSolvable()) {
+            return null;
         }
-        return false;
-    }
-
-    private static boolean isUsed(YGrid grid, int num) {
-        for (int i = 0; i < 9; i++) {
-            if (grid.getValue(i) == num) {
-                return true;
+        int[] solution = entry.getSolution();
+        for (int i = 0; i < grid.getSize(); i++) {
+            if (grid.getValue(i) == YCell.EMPTY) {
+                grid.setCell(i, solution[i]);
             }
         }
-        return false;
-    }
-
-    private static boolean checkSums(int[] circles, YGrid grid) {
-        return (grid.getValue(0) + grid.getValue(1) + grid.getValue(3)
-                + grid.getValue(4) == circles[0])
-                && (grid.getValue(1) + grid.getValue(2) + grid.getValue(4)
-                        + grid.getValue(5) == circles[1])
-                && (grid.getValue(3) + grid.getValue(4) + grid.getValue(6)
-                        + grid.getValue(7) == circles[2])
-                && (grid.getValue(4) + grid.getValue(5) + grid.getValue(7)
-                        + grid.getValue(8) == circles[3]);
+        return grid;
     }
 
     /**
@@ -246,41 +181,7 @@ public class YBacktrackSolver extends YAbstractSolver {
      * @return true if the puzzle can be solved
      */
     public boolean isSolvable() {
-        YGrid gridCopy = new YGrid(this.grid);
-
-        if (backtrack(gridCopy, this.circles, 0)) {
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * Backtracks from an existing configuration of the grid to find a solution.
-     * 
-     * @param grid The grid to solve.
-     * @param circles The array of circle values.
-     * @param index The current index in the grid.
-     * @return {@code true} if a solution is found, {@code false} otherwise.
-     */
-    private static boolean backtrackFromExisting(YGrid grid, int[] circles, int index) {
-        if (index == 9) {
-            return checkSums(circles, grid);
-        }
-    
-        if (grid.getValue(index) != YCell.EMPTY) {
-            return backtrackFromExisting(grid, circles, index + 1);
-        }
-    
-        for (int num = 1; num <= 9; num++) {
-            if (!isUsed(grid, num)) {
-                grid.setCell(index, num);
-                if (backtrackFromExisting(grid, circles, index + 1)) {
-                    return true;
-                }
-                grid.setCell(index, YCell.EMPTY);
-            }
-        }
-        return false;
+        return isSolvableFromExisting(this.grid);
     }
 
     /**
@@ -291,11 +192,6 @@ public class YBacktrackSolver extends YAbstractSolver {
      *      {@code false} otherwise
      */
     public boolean isSolvableFromExisting(YGrid existingGrid) {
-        YGrid gridCopy = new YGrid(existingGrid);
-    
-        if (backtrackFromExisting(gridCopy, this.circles, 0)) {
-            return true;
-        }
-        return false;
+        return SolutionCache.shared().lookup(this.circles, existingGrid).isSolvable();
     }
 }
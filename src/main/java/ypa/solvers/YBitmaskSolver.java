@@ -0,0 +1,81 @@
+package ypa.solvers;
+
+import ypa.command.Command;
+import ypa.command.SetCommand;
+import ypa.model.YCell;
+import ypa.model.YGrid;
+import ypa.model.YPuzzle;
+
+/**
+ * Solver for Sujiko puzzles based on {@link BitmaskSearch}.
+ * It tracks used digits and circle sums incrementally,
+ * so that hopeless branches are cut off early,
+ * instead of checking the circle sums only when the grid is full.
+ */
+public class YBitmaskSolver extends YAbstractSolver {
+
+    /** The search engine, reused for every query. */
+    private final BitmaskSearch search;
+
+    /**
+     * Constructs a bitmask solver for a given puzzle.
+     *
+     * @param puzzle  the puzzle
+     * @throws IllegalArgumentException  if {@code puzzle == null}
+     * @pre {@code puzzle != null}
+     */
+    public YBitmaskSolver(final YPuzzle puzzle) {
+        super(puzzle);
+        this.search = new BitmaskSearch(puzzle.getGeometry(), puzzle.getCircles());
+    }
+
+    /**
+     * Solves the puzzle from its current state,
+     * filling the empty cells via (recorded) set commands.
+     *
+     * @return whether puzzle was solved
+     */
+    @Override
+    public boolean solve() {
+        search.setStatistics(startStatistics());
+        try {
+            return fill();
+        } finally {
+            search.setStatistics(null);
+            stopStatistics();
+        }
+    }
+
+    /**
+     * Searches from the current state of the puzzle,
+     * and fills the empty cells if a solution is found.
+     *
+     * @return whether puzzle was solved
+     */
+    private boolean fill() {
+        final YGrid grid = puzzle.getGrid();
+        if (!search.load(grid) || !search.findFirst()) {
+            return false;
+        }
+        for (int i = 0; i < grid.getSize(); ++i) {
+            final YCell cell = grid.getCell(i);
+            if (cell.isEmpty()) {
+                final Command command = new SetCommand(cell, search.getValue(i));
+                command.execute();
+                commands.push(command);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isSolvable() {
+        return isSolvableFromExisting(puzzle.getGrid());
+    }
+
+    @Override
+    public boolean isSolvableFromExisting(final YGrid grid) {
+        return search.load(grid) && search.findFirst();
+    }
+
+}
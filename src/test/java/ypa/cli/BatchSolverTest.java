@@ -0,0 +1,157 @@
+package ypa.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ypa.generator.DifficultyGrader;
+import ypa.model.YPuzzle;
+
+/**
+ * Test cases for {@link BatchSolver}.
+ */
+public class BatchSolverTest {
+
+    @Test
+    public void testSolveUnique() {
+        BatchSolver.Outcome outcome = BatchSolver.solve(
+                new BatchSolver.Source("test", "17 18 15 15 a 0 4 a 1 7 a 2 8 b 0 5 c 0 6"));
+        assertAll(
+                () -> assertTrue(outcome.isSolvable(), "solvable"),
+                () -> assertTrue(outcome.isUnique(), "unique"),
+                () -> assertEquals("478/512/639", outcome.getSolution(), "solution"),
+                () -> assertNull(outcome.getError(), "error")
+        );
+    }
+
+    @Test
+    public void testSolveGraded() {
+        BatchSolver.Outcome outcome = BatchSolver.solve(
+                new BatchSolver.Source("test", "17 18 15 15 a 0 4 a 1 7 a 2 8 b 0 5 c 0 6"),
+                new DifficultyGrader());
+        assertAll(
+                () -> assertNotNull(outcome.getGrade(), "grade"),
+                () -> assertEquals(4.0, outcome.getGrade().getRating(), "rating"),
+                () -> assertTrue(outcome.toString().contains("rating 4.0"), "printed")
+        );
+    }
+
+    @Test
+    public void testSolveMultiple() {
+        BatchSolver.Outcome outcome = BatchSolver.solve(
+                new BatchSolver.Source("test", "17 18 15 15"));
+        assertAll(
+                () -> assertTrue(outcome.isSolvable(), "solvable"),
+                () -> assertFalse(outcome.isUnique(), "unique")
+        );
+    }
+
+    @Test
+    public void testSolveUnreadable() {
+        BatchSolver.Outcome outcome = BatchSolver.solve(
+                new BatchSolver.Source("test", "1 2 3"));
+        assertAll(
+                () -> assertFalse(outcome.isSolvable(), "solvable"),
+                () -> assertNotNull(outcome.getError(), "error")
+        );
+    }
+
+    @Test
+    public void testFailureIsReportedPerPuzzle() {
+        BatchSolver solver = new BatchSolver(2);
+        solver.setGrader(new DifficultyGrader() {
+            @Override
+            public Grade grade(final YPuzzle puzzle) {
+                throw new IllegalStateException("grader broke");
+            }
+        });
+        List<BatchSolver.Source> sources = List.of(
+                new BatchSolver.Source("solvable", "17 18 15 15"),
+                new BatchSolver.Source("not solvable", "1 2 3 4"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<BatchSolver.Outcome> outcomes = solver.run(sources,
+                new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String output = bytes.toString(StandardCharsets.UTF_8);
+        assertAll(
+                () -> assertEquals(2, outcomes.size(), "puzzles"),
+                () -> assertTrue(outcomes.get(0).getError().contains("grader broke"), "error"),
+                () -> assertNull(outcomes.get(1).getError(), "other puzzle"),
+                () -> assertTrue(output.contains("2 puzzles"), output)
+        );
+    }
+
+    @Test
+    public void testDeduplicate() {
+        List<BatchSolver.Source> sources = List.of(
+                new BatchSolver.Source("a", "17 18 15 15 a 0 4"),
+                new BatchSolver.Source("mirrored", "18 17 15 15 a 2 4"),
+                new BatchSolver.Source("other", "17 18 15 15 a 0 5"),
+                new BatchSolver.Source("bad", "1 2 3"),
+                new BatchSolver.Source("turned", "15 15 18 17 c 2 4"));
+        List<BatchSolver.Source> distinct = BatchSolver.deduplicate(sources);
+        assertEquals(List.of("a", "other", "bad"),
+                distinct.stream().map(BatchSolver.Source::getName).toList());
+    }
+
+    @Test
+    public void testParse() {
+        Set<String> flags = new HashSet<>();
+        List<Path> paths = new ArrayList<>();
+        assertEquals(3, BatchSolver.parse(
+                new String[] {"--threads", "3", "--grade", "dir"}, flags, paths), "threads");
+        assertAll(
+                () -> assertEquals(Set.of("--grade"), flags, "flags"),
+                () -> assertEquals(List.of(Path.of("dir")), paths, "paths"),
+                () -> assertEquals(0, BatchSolver.parse(
+                        new String[] {"--threads", "abc", "dir"}, flags, paths), "not a number"),
+                () -> assertEquals(0, BatchSolver.parse(
+                        new String[] {"--threads", "0", "dir"}, flags, paths), "zero"),
+                () -> assertEquals(0, BatchSolver.parse(
+                        new String[] {"dir", "--threads"}, flags, paths), "missing"),
+                () -> assertEquals(0, BatchSolver.parse(
+                        new String[] {"--grades", "dir"}, flags, paths), "misspelled")
+        );
+    }
+
+    @Test
+    public void testPercentile() {
+        long[] sorted = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertAll(
+                () -> assertEquals(5, BatchSolver.percentile(sorted, 50), "p50"),
+                () -> assertEquals(10, BatchSolver.percentile(sorted, 99), "p99"),
+                () -> assertEquals(0, BatchSolver.percentile(new long[0], 50), "empty")
+        );
+    }
+
+    @Test
+    public void testRunOnDirectory(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("a.txt"), "21\n17\n28\n27\n");
+        Files.writeString(dir.resolve("b.txt"), "21 17 28 27\nb 1 1\n");
+        Files.writeString(dir.resolve("list.dat"), "21 17 28 27\n\n12 16 24 28 a 0 1\n");
+        List<BatchSolver.Source> sources = BatchSolver.collect(dir, false);
+        sources.addAll(BatchSolver.collect(dir.resolve("list.dat"), true));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<BatchSolver.Outcome> outcomes = new BatchSolver(2).run(sources,
+                new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String output = bytes.toString(StandardCharsets.UTF_8);
+        assertAll(
+                () -> assertEquals(4, outcomes.size(), "puzzles"),
+                () -> assertEquals("a.txt", outcomes.get(0).getName(), "order"),
+                () -> assertFalse(outcomes.get(1).isSolvable(), "b not solvable"),
+                () -> assertEquals("list.dat:3", outcomes.get(3).getName(), "line name"),
+                () -> assertTrue(outcomes.get(3).isSolvable(), "line solvable"),
+                () -> assertTrue(output.contains("4 puzzles (3 solvable)"), output)
+        );
+    }
+
+}
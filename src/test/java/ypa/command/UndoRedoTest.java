@@ -0,0 +1,112 @@
+package ypa.command;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import ypa.model.YCell;
+import ypa.model.YGrid;
+
+/**
+ * Test cases for {@link UndoRedo}.
+ */
+public class UndoRedoTest {
+
+    @Test
+    public void testUndoRedo() {
+        YGrid grid = new YGrid();
+        UndoRedo undoRedo = new UndoRedo();
+        undoRedo.did(new SetCommand(grid.getCell(0), 5));
+        undoRedo.did(new SetCommand(grid.getCell(1), 7));
+        assertAll(
+                () -> assertEquals(5, grid.getValue(0), "executed"),
+                () -> assertEquals(Set.of(grid.getCell(1)), undoRedo.lastDoneCells(), "done"),
+                () -> assertFalse(undoRedo.canRedo(), "redo")
+        );
+        undoRedo.undo(true);
+        assertAll(
+                () -> assertEquals(YCell.EMPTY, grid.getValue(1), "undone"),
+                () -> assertEquals(5, grid.getValue(0), "kept"),
+                () -> assertEquals(Set.of(grid.getCell(1)), undoRedo.lastUndoneCells(), "undone")
+        );
+        undoRedo.redo();
+        assertEquals(7, grid.getValue(1), "redone");
+        undoRedo.undoAll(false);
+        assertAll(
+                () -> assertEquals(YCell.EMPTY, grid.getValue(0), "all undone"),
+                () -> assertFalse(undoRedo.canUndo(), "undo"),
+                () -> assertFalse(undoRedo.canRedo(), "not redoable")
+        );
+    }
+
+    @Test
+    public void testDidDiscardsRedo() {
+        YGrid grid = new YGrid();
+        UndoRedo undoRedo = new UndoRedo();
+        undoRedo.did(new SetCommand(grid.getCell(0), 5));
+        undoRedo.undo(true);
+        undoRedo.did(new SetCommand(grid.getCell(1), 7));
+        assertFalse(undoRedo.canRedo());
+    }
+
+    @Test
+    public void testCompoundIsOneStep() {
+        YGrid grid = new YGrid();
+        UndoRedo undoRedo = new UndoRedo();
+        CompoundCommand compound = new CompoundCommand();
+        compound.add(new SetCommand(grid.getCell(0), 1));
+        compound.add(new SetCommand(grid.getCell(1), 2));
+        compound.add(new EliminateCommand(grid.getCell(2), 1 << 3));
+        undoRedo.did(compound);
+        undoRedo.did(new CompoundCommand());
+        assertEquals(3, undoRedo.lastDoneCells().size(), "empty command not recorded");
+        undoRedo.undo(true);
+        assertAll(
+                () -> assertEquals(YCell.EMPTY, grid.getValue(0), "first"),
+                () -> assertEquals(YCell.EMPTY, grid.getValue(1), "second"),
+                () -> assertEquals(0, grid.getCell(2).getEliminated(), "eliminated"),
+                () -> assertFalse(undoRedo.canUndo(), "one step")
+        );
+        undoRedo.redo();
+        assertEquals(1 << 3, grid.getCell(2).getEliminated(), "redone");
+    }
+
+    @Test
+    public void testCoalescing() {
+        YGrid grid = new YGrid();
+        UndoRedo undoRedo = new UndoRedo();
+        undoRedo.did(new SetCommand(grid.getCell(0), 5));
+        int size = undoRedo.size();
+        undoRedo.did(new SetCommand(grid.getCell(0), 6));
+        undoRedo.did(new SetCommand(grid.getCell(0), 7));
+        assertEquals(size, undoRedo.size(), "coalesced");
+        undoRedo.undo(true);
+        assertAll(
+                () -> assertEquals(YCell.EMPTY, grid.getValue(0), "original"),
+                () -> assertFalse(undoRedo.canUndo(), "one step")
+        );
+        undoRedo.redo();
+        assertEquals(7, grid.getValue(0), "latest");
+        undoRedo.did(new SetCommand(grid.getCell(0), YCell.EMPTY));
+        assertFalse(undoRedo.canUndo(), "no net change");
+    }
+
+    @Test
+    public void testCapacity() {
+        YGrid grid = new YGrid();
+        UndoRedo undoRedo = new UndoRedo(10);
+        for (int i = 0; i < grid.getSize(); ++i) {
+            undoRedo.did(new SetCommand(grid.getCell(i), i + 1));
+            assertTrue(undoRedo.size() <= 10, "capped");
+        }
+        undoRedo.undoAll(true);
+        assertAll(
+                () -> assertEquals(YCell.EMPTY, grid.getValue(grid.getSize() - 1), "recent"),
+                () -> assertEquals(1, grid.getValue(0), "dropped")
+        );
+        undoRedo.redoAll();
+        assertEquals(grid.getSize(), grid.getValue(grid.getSize() - 1), "redone");
+        assertThrows(IllegalArgumentException.class, () -> new UndoRedo(0));
+    }
+
+}
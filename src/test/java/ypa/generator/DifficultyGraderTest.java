@@ -0,0 +1,82 @@
+package ypa.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.Scanner;
+import org.junit.jupiter.api.Test;
+import ypa.model.YGeometry;
+import ypa.model.YPuzzle;
+
+/**
+ * Test cases for {@link DifficultyGrader}.
+ */
+public class DifficultyGraderTest {
+
+    /** A puzzle with a unique solution that needs more than single entries. */
+    private static final String UNIQUE = "17 18 15 15 a 0 4 a 1 7 a 2 8 b 0 5 c 0 6";
+
+    /** The same puzzle with all but one cell given. */
+    private static final String ALMOST_FULL =
+            "17 18 15 15 a 0 4 a 1 7 a 2 8 b 0 5 b 1 1 b 2 2 c 0 6 c 1 3";
+
+    private final DifficultyGrader grader = new DifficultyGrader();
+
+    @Test
+    public void testSingleEntry() {
+        YPuzzle puzzle = new YPuzzle(new Scanner(ALMOST_FULL), "Test");
+        DifficultyGrader.Grade grade = grader.grade(puzzle);
+        assertTrue(grade.isSolved(), grade.toString());
+        assertEquals(1, grade.getDeductions(0));
+        assertEquals(0, grade.getHardestLevel());
+        assertEquals(0, grade.getNodeCount());
+        assertEquals(1.0, grade.getRating());
+    }
+
+    @Test
+    public void testSinglesOnly() {
+        YPuzzle puzzle = new YPuzzle(new Scanner(UNIQUE), "Test");
+        String before = puzzle.toString();
+        DifficultyGrader.Grade grade = grader.grade(puzzle);
+        assertEquals(before, puzzle.toString(), "unchanged");
+        assertTrue(grade.isSolved(), grade.toString());
+        assertEquals(4, grade.getDeductions(0));
+        assertEquals(4.0, grader.rate(puzzle));
+    }
+
+    @Test
+    public void testMinimalPuzzleNeedsTrials() {
+        PuzzleGenerator generator = new PuzzleGenerator(YGeometry.STANDARD, new Random(4));
+        generator.setMinimize(true);
+        YPuzzle puzzle = generator.generate();
+        String before = puzzle.toString();
+        DifficultyGrader.Grade grade = grader.grade(puzzle);
+        assertEquals(before, puzzle.toString(), "unchanged");
+        assertTrue(grade.isSolved(), grade.toString());
+        assertEquals(DifficultyGrader.LEVELS - 1, grade.getHardestLevel(), grade.toString());
+        assertTrue(grade.getNodeCount() > 0, grade.toString());
+        assertTrue(grade.getRating() > PuzzleRater.emptyCells().rate(puzzle), grade.toString());
+    }
+
+    @Test
+    public void testContradiction() {
+        YPuzzle puzzle = new YPuzzle(new Scanner("17 18 15 15 a 0 9 a 1 9"), "Test");
+        DifficultyGrader.Grade grade = grader.grade(puzzle);
+        assertFalse(grade.isConsistent());
+        assertEquals(Double.POSITIVE_INFINITY, grade.getRating());
+    }
+
+    @Test
+    public void testGradeCorpus() {
+        PuzzleGenerator generator = new PuzzleGenerator(YGeometry.STANDARD, new Random(4));
+        generator.setMinimize(true);
+        for (int i = 0; i < 200; ++i) {
+            YPuzzle puzzle = generator.generate();
+            String before = puzzle.toString();
+            DifficultyGrader.Grade grade = grader.grade(puzzle);
+            assertTrue(grade.isSolved(), grade.toString());
+            assertEquals(before, puzzle.toString());
+        }
+    }
+
+}
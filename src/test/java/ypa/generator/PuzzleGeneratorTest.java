@@ -0,0 +1,90 @@
+package ypa.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.Scanner;
+import org.junit.jupiter.api.Test;
+import ypa.model.YGeometry;
+import ypa.model.YPuzzle;
+import ypa.solvers.BitmaskSearch;
+
+/**
+ * Test cases for {@link PuzzleGenerator}.
+ */
+public class PuzzleGeneratorTest {
+
+    /**
+     * Counts the solutions of a puzzle from its current state, up to 2.
+     *
+     * @param puzzle  the puzzle
+     * @return the number of solutions, at most 2
+     */
+    private static int countSolutions(final YPuzzle puzzle) {
+        BitmaskSearch search = new BitmaskSearch(puzzle.getGeometry(), puzzle.getCircles());
+        return search.load(puzzle.getGrid()) ? search.countSolutions(2) : 0;
+    }
+
+    @Test
+    public void testGenerateUnique() {
+        PuzzleGenerator generator = new PuzzleGenerator(YGeometry.STANDARD, new Random(1));
+        for (int i = 0; i < 200; ++i) {
+            YPuzzle puzzle = generator.generate();
+            assertEquals(1, countSolutions(puzzle), puzzle.toString());
+        }
+    }
+
+    @Test
+    public void testMinimize() {
+        PuzzleGenerator generator = new PuzzleGenerator(YGeometry.STANDARD, new Random(2));
+        generator.setMinimize(true);
+        PuzzleRater rater = PuzzleRater.emptyCells();
+        for (int i = 0; i < 50; ++i) {
+            YPuzzle puzzle = generator.generate();
+            assertEquals(1, countSolutions(puzzle), "unique");
+            for (int cell = 0; cell < 9; ++cell) {
+                int digit = puzzle.getGrid().getValue(cell);
+                if (digit != 0) {
+                    puzzle.getGrid().setCell(cell, 0);
+                    assertEquals(2, countSolutions(puzzle), "given " + cell + " needed");
+                    puzzle.getGrid().setCell(cell, digit);
+                }
+            }
+            assertTrue(rater.rate(puzzle) <= 9, "rating");
+        }
+    }
+
+    @Test
+    public void testGenerateWithRating() {
+        PuzzleGenerator generator = new PuzzleGenerator(YGeometry.STANDARD, new Random(3));
+        YPuzzle puzzle = generator.generate(PuzzleRater.emptyCells(), 9, 9, 1000);
+        assertNotNull(puzzle, "found");
+        assertEquals(9, PuzzleRater.emptyCells().rate(puzzle), "no givens");
+        assertNull(generator.generate(PuzzleRater.emptyCells(), 10, 20, 10), "impossible");
+    }
+
+    @Test
+    public void testFormatRoundTrip() {
+        PuzzleGenerator generator = new PuzzleGenerator(new YGeometry(4, 4), new Random(4));
+        YPuzzle puzzle = generator.generate();
+        YPuzzle read = new YPuzzle(new Scanner(PuzzleGenerator.format(puzzle)), "read");
+        assertAll(
+                () -> assertArrayEquals(puzzle.getCircles(), read.getCircles(), "circles"),
+                () -> assertEquals(puzzle.getGrid().toString(), read.getGrid().toString(), "grid"),
+                () -> assertEquals(1, countSolutions(read), "unique")
+        );
+    }
+
+    @Test
+    public void testFormatRejectsUnreadableGeometry() {
+        YGeometry[] geometries = {
+            new YGeometry(3, 4), new YGeometry(2, 5), new YGeometry(3, 3, 12)
+        };
+        for (YGeometry geometry : geometries) {
+            YPuzzle puzzle = new PuzzleGenerator(geometry, new Random(5)).generate();
+            assertThrows(IllegalArgumentException.class,
+                    () -> PuzzleGenerator.format(puzzle), geometry.toString());
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package ypa.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for {@link CanonicalForm} and {@link Symmetry}.
+ */
+public class CanonicalFormTest {
+
+    /**
+     * Gets the circle sums of a filling.
+     *
+     * @param geometry  the geometry
+     * @param digits  the filling
+     * @return its circle sums
+     */
+    private static int[] sums(final YGeometry geometry, final int[] digits) {
+        int[][] circleCells = geometry.getCircleCells();
+        int[] circles = new int[circleCells.length];
+        for (int c = 0; c < circles.length; ++c) {
+            for (int cell : circleCells[c]) {
+                circles[c] += digits[cell];
+            }
+        }
+        return circles;
+    }
+
+    /**
+     * Gets the filling of a geometry with 1, 2, ... in reading order.
+     *
+     * @param geometry  the geometry
+     * @return the filling
+     */
+    private static int[] filling(final YGeometry geometry) {
+        int[] digits = new int[geometry.getCellCount()];
+        for (int i = 0; i < digits.length; ++i) {
+            digits[i] = i + 1;
+        }
+        return digits;
+    }
+
+    @Test
+    public void testSymmetriesMoveCirclesWithCells() {
+        for (YGeometry geometry : new YGeometry[] {new YGeometry(4, 4), new YGeometry(3, 4)}) {
+            int[] digits = filling(geometry);
+            int[] circles = sums(geometry, digits);
+            for (Symmetry symmetry : Symmetry.values()) {
+                if (symmetry.appliesTo(geometry)) {
+                    int[] image = symmetry.applyToCells(geometry, digits);
+                    assertArrayEquals(sums(geometry, image),
+                            symmetry.applyToCircles(geometry, circles), symmetry + " " + geometry);
+                    assertArrayEquals(digits, symmetry.inverse().applyToCells(geometry, image),
+                            symmetry + " inverse");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRectangle() {
+        YGeometry geometry = new YGeometry(3, 4);
+        assertAll(
+                () -> assertFalse(Symmetry.ROTATE_90.appliesTo(geometry), "rotate"),
+                () -> assertTrue(Symmetry.FLIP_ROWS.appliesTo(geometry), "flip"),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> Symmetry.TRANSPOSE.applyToCells(geometry, filling(geometry)),
+                        "transpose")
+        );
+    }
+
+    @Test
+    public void testEquivalentPuzzlesShareForm() {
+        YGeometry geometry = YGeometry.STANDARD;
+        int[] solution = {4, 7, 8, 5, 1, 2, 6, 3, 9};
+        int[] circles = sums(geometry, solution);
+        int[] givens = {4, 0, 0, 0, 0, 2, 0, 0, 0};
+        CanonicalForm form = CanonicalForm.of(geometry, circles, givens);
+        for (Symmetry symmetry : Symmetry.values()) {
+            CanonicalForm image = CanonicalForm.of(geometry,
+                    symmetry.applyToCircles(geometry, circles),
+                    symmetry.applyToCells(geometry, givens));
+            assertEquals(form, image, symmetry.toString());
+            assertEquals(form.hashCode(), image.hashCode(), "hash");
+            // a solution of the canonical puzzle maps back to the image
+            int[] canonicalSolution = image.toCanonical(
+                    symmetry.applyToCells(geometry, solution));
+            assertArrayEquals(sums(geometry, canonicalSolution), form.getCircles(), "sums");
+            assertArrayEquals(symmetry.applyToCells(geometry, solution),
+                    image.toOriginal(canonicalSolution), "back");
+        }
+        assertNotEquals(form, CanonicalForm.of(geometry, circles, new int[9]), "givens");
+    }
+
+}
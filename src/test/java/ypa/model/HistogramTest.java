@@ -0,0 +1,41 @@
+package ypa.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for {@link Histogram}.
+ */
+public class HistogramTest {
+
+    @Test
+    public void testAdjust() {
+        Histogram instance = new Histogram();
+        instance.adjust(YCell.EMPTY, 4);
+        instance.adjust(YCell.EMPTY, -1);
+        instance.adjust(7, +1);
+        assertAll(
+                () -> assertEquals(3, instance.get(YCell.EMPTY), "empty count"),
+                () -> assertEquals(1, instance.get(7), "count of 7"),
+                () -> assertEquals(0, instance.get(YCell.BLOCKED), "blocked count"),
+                () -> assertEquals(1 << 7, instance.getPresentMask(), "present"),
+                () -> assertEquals(0, instance.getDuplicateMask(), "duplicates")
+        );
+    }
+
+    @Test
+    public void testDuplicates() {
+        Histogram instance = new Histogram();
+        instance.adjust(3, +1);
+        instance.adjust(3, +1);
+        assertEquals(1 << 3, instance.getDuplicateMask(), "3 twice");
+        instance.adjust(3, -1);
+        assertAll(
+                () -> assertEquals(0, instance.getDuplicateMask(), "3 once"),
+                () -> assertEquals(1 << 3, instance.getPresentMask(), "3 present")
+        );
+        instance.adjust(3, -1);
+        assertEquals(0, instance.getPresentMask(), "3 gone");
+    }
+}
@@ -0,0 +1,54 @@
+package ypa.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for {@link SumCombinations}.
+ */
+public class SumCombinationsTest {
+
+    /**
+     * Computes the candidate mask by brute force over all digit sets.
+     */
+    private static int bruteForce(int count, int sum, int used) {
+        int result = 0;
+        for (int set = 0; set < (1 << 10); set += 2) {
+            if ((set & used) == 0 && Integer.bitCount(set) == count
+                    && SumCombinations.sumOf(set) == sum) {
+                result |= set;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testKnownCombinations() {
+        assertAll(
+                // 1 + 2 + 3 + 4 is the only way to make 10 with four digits
+                () -> assertEquals(0b11110, SumCombinations.candidates(4, 10, 0), "4 in 10"),
+                () -> assertEquals(1 << 7, SumCombinations.candidates(1, 7, 0), "1 in 7"),
+                () -> assertEquals(0, SumCombinations.candidates(1, 7, 1 << 7), "7 used"),
+                () -> assertEquals(0, SumCombinations.candidates(1, 10, 0), "1 in 10"),
+                () -> assertEquals(0, SumCombinations.candidates(0, 0, 0), "0 cells"),
+                () -> assertTrue(SumCombinations.isFeasible(0, 0, 0), "nothing to fill"),
+                () -> assertFalse(SumCombinations.isFeasible(0, 3, 0), "0 cells make 3"),
+                () -> assertFalse(SumCombinations.isFeasible(2, 46, 0), "too large")
+        );
+    }
+
+    @Test
+    public void testAgainstBruteForce() {
+        final int[] usedMasks = {0, 1 << 9, 0b1010100, 0b1111100000};
+        for (int used : usedMasks) {
+            for (int count = 1; count <= 4; count++) {
+                for (int sum = 1; sum <= 30; sum++) {
+                    assertEquals(bruteForce(count, sum, used),
+                            SumCombinations.candidates(count, sum, used),
+                            "count " + count + ", sum " + sum + ", used " + used);
+                }
+            }
+        }
+    }
+}
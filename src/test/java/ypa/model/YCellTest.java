@@ -26,4 +26,44 @@ public class YCellTest {
                 () -> assertTrue(instance.isValid())
         );
     }
+
+    /**
+     * Tests that the candidate mask follows the grid and the circle sums.
+     */
+    @Test
+    public void testCandidates() {
+        final YGrid grid = new YGrid();
+        final YCell corner = grid.getCell(0);
+        final YGroup circle = grid.getGroups().get(0);
+        circle.setExpectedSum(10);
+        // 1 + 2 + 3 + 4 is the only way to make 10
+        assertEquals(0b11110, corner.getCandidates(), "sum 10");
+        grid.setCell(1, 2);
+        assertEquals(0b11010, corner.getCandidates(), "2 used");
+        circle.setExpectedSum(11);
+        // the other three cells make 9 without 2: only 1 + 3 + 5
+        assertEquals(0b101010, corner.getCandidates(), "sum 11");
+        assertEquals(SumCombinations.ALL_DIGITS & ~(1 << 2),
+                grid.getCell(8).getCandidates(), "unconstrained cell");
+        assertEquals(1 << 2, grid.getCell(1).getCandidates(), "filled cell");
+    }
+
+    /**
+     * Tests eliminating candidates.
+     */
+    @Test
+    public void testEliminated() {
+        final YGrid grid = new YGrid();
+        grid.getGroups().get(0).setExpectedSum(10);
+        final YCell corner = grid.getCell(0);
+        corner.setEliminated(1 << 3);
+        assertAll(
+                () -> assertEquals(0b10110, corner.getCandidates(), "candidates"),
+                () -> assertEquals(0b11110, corner.getDerivedCandidates(), "derived"),
+                () -> assertFalse(corner.isCandidate(3), "3 eliminated"),
+                () -> assertTrue(corner.isCandidate(4), "4 remains"),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> corner.setEliminated(1))
+        );
+    }
 }
@@ -0,0 +1,72 @@
+package ypa.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for {@link YGeometry}.
+ */
+public class YGeometryTest {
+
+    @Test
+    public void testStandard() {
+        YGeometry geometry = YGeometry.STANDARD;
+        assertAll(
+                () -> assertEquals(3, geometry.getRows(), "rows"),
+                () -> assertEquals(3, geometry.getColumns(), "columns"),
+                () -> assertEquals(9, geometry.getMaxDigit(), "max digit"),
+                () -> assertEquals(4, geometry.getCircleCount(), "circles"),
+                () -> assertArrayEquals(new int[] {4, 5, 7, 8},
+                        geometry.getCircleCells()[3], "cells of circle 3"),
+                () -> assertArrayEquals(new int[] {0, 1, 2, 3},
+                        geometry.getCellCircles()[4], "circles of center")
+        );
+    }
+
+    @Test
+    public void testRectangle() {
+        YGeometry geometry = new YGeometry(3, 4);
+        assertAll(
+                () -> assertEquals(12, geometry.getCellCount(), "cells"),
+                () -> assertEquals(6, geometry.getCircleCount(), "circles"),
+                () -> assertEquals(7, geometry.index(1, 3), "index"),
+                () -> assertArrayEquals(new int[] {6, 7, 10, 11},
+                        geometry.getCircleCells()[5], "cells of last circle"),
+                () -> assertArrayEquals(new int[] {5},
+                        geometry.getCellCircles()[11], "circles of last cell")
+        );
+    }
+
+    @Test
+    public void testForCircleCount() {
+        assertSame(YGeometry.STANDARD, YGeometry.forCircleCount(4), "standard");
+        assertEquals(new YGeometry(4, 4), YGeometry.forCircleCount(9), "4x4");
+        assertThrows(IllegalArgumentException.class, () -> YGeometry.forCircleCount(5));
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new YGeometry(1, 3));
+        assertThrows(IllegalArgumentException.class, () -> new YGeometry(3, 3, 8));
+        assertThrows(IllegalArgumentException.class, () -> new YGeometry(6, 6));
+    }
+
+    @Test
+    public void testGridOfGeometry() {
+        YGrid grid = new YGrid(new YGeometry(4, 4));
+        assertAll(
+                () -> assertEquals(16, grid.getSize(), "size"),
+                () -> assertEquals(9, grid.getGroups().size(), "groups"),
+                () -> assertEquals(16, grid.getMaxDigit(), "max digit"),
+                () -> assertFalse(grid.canPack(), "cannot pack"),
+                () -> assertTrue(new YGrid(new YGeometry(3, 4)).canPack(), "can pack")
+        );
+        grid.setCell(15, 16);
+        assertAll(
+                () -> assertEquals(16, grid.getValue(15), "largest digit"),
+                () -> assertEquals(16, grid.getGroups().get(8).getTotal(), "group total")
+        );
+    }
+
+}
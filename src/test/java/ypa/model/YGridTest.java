@@ -88,4 +88,51 @@ public class YGridTest {
         boolean result = grid.isEmpty();
         assertTrue(result, "non-duplicate value");
     }
+
+    @Test
+    public void testCompactState() {
+        ArrayList<Integer> cells = new ArrayList<>();
+        for (int i = 1; i < 9; i++) {
+            cells.add(i);
+        }
+        cells.add(0);
+        YGrid grid = new YGrid(cells);
+        assertAll(
+                () -> assertEquals(0b011111111, grid.getOccupiedMask(), "occupied"),
+                () -> assertEquals(0b0111111110, grid.getUsedDigits(), "used digits"),
+                () -> assertEquals(0x087654321L, grid.pack(), "packed")
+        );
+    }
+
+    @Test
+    public void testDuplicateRemoved() {
+        ArrayList<Integer> cells = new ArrayList<>();
+        for (int i = 1; i < 9; i++) {
+            cells.add(i);
+        }
+        cells.add(8);
+        YGrid grid = new YGrid(cells);
+        assertFalse(grid.isValid(), "duplicate 8");
+        grid.setCell(8, 9);
+        assertTrue(grid.isValid(), "duplicate replaced");
+        assertTrue(grid.isFull(), "full");
+    }
+
+    @Test
+    public void testCopyFrom() {
+        ArrayList<Integer> cells = new ArrayList<>();
+        for (int i = 1; i < 10; i++) {
+            cells.add(i);
+        }
+        YGrid original = new YGrid(cells);
+        YGrid copy = new YGrid();
+        copy.copyFrom(original);
+        original.setCell(0, 0);
+        assertAll(
+                () -> assertEquals(1, copy.getValue(0), "copy unaffected"),
+                () -> assertTrue(copy.isFull(), "copy full"),
+                () -> assertEquals(2, copy.getGroups().get(0).getCells().get(1).getState(),
+                        "group sees copied state")
+        );
+    }
 }
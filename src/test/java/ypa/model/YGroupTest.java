@@ -34,5 +34,30 @@ public class YGroupTest {
                 () -> assertArrayEquals(instance.getCells().toArray(), l.toArray())
         );
     }
-}
 
+    /**
+     * Tests that cell changes are pushed into the groups.
+     */
+    @Test
+    public void testIncrementalUpdate() {
+        final YGrid grid = new YGrid();
+        final YGroup group = grid.getGroups().get(0);
+        group.setExpectedSum(10);
+        grid.setCell(0, 1);
+        grid.setCell(1, 2);
+        grid.setCell(3, 3);
+        assertAll(
+                () -> assertEquals(6, group.getTotal(), "total"),
+                () -> assertEquals(3, group.getFilledCount(), "filled"),
+                () -> assertEquals(4, group.getRemainingSum(), "remaining"),
+                () -> assertFalse(group.isViolated(), "not full yet")
+        );
+        grid.setCell(4, 5);
+        assertTrue(group.isViolated(), "sum 11 violates 10");
+        grid.setCell(4, 4);
+        assertAll(
+                () -> assertTrue(group.equalsExpectedSum(), "sum 10"),
+                () -> assertEquals(6, grid.getGroups().get(1).getTotal(), "shared cells")
+        );
+    }
+}
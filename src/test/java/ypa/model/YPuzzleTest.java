@@ -41,6 +41,19 @@ public class YPuzzleTest {
         assertEquals(expResult, result, "return value");
     }
 
+    @Test
+    public void testLargerPuzzle() {
+        String puzzleString = "14 18 22 30 34 38 46 50 54\nb 2 7";
+        Scanner scanner = new Scanner(puzzleString);
+        YPuzzle puzzle = new YPuzzle(scanner, "Test");
+        assertAll(
+                () -> assertEquals(4, puzzle.getRowCount(), "rows"),
+                () -> assertEquals(4, puzzle.getColumnCount(), "columns"),
+                () -> assertEquals(7, puzzle.getCell(1, 2).getState(), "given"),
+                () -> assertTrue(puzzle.isValid(), "valid")
+        );
+    }
+
     @Test
     public void testGetIndexCircle() {
         String puzzleString = "20 21 23 4";
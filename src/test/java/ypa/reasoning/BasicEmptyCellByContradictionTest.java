@@ -2,6 +2,7 @@ package ypa.reasoning;
 
 import ypa.command.CompoundCommand;
 import ypa.model.YCell;
+import ypa.model.YGeometry;
 import ypa.model.YPuzzle;
 import ypa.model.YGrid;
 import org.junit.jupiter.api.BeforeEach;
@@ -59,4 +60,26 @@ public class BasicEmptyCellByContradictionTest {
         String expectedCommand = "SetCommand(cell=4, state=1)";
         assertFalse(result.toString().contains(expectedCommand));
     }
+
+    /**
+     * Tests the reasoner on a rectangular board, with two cells left open.
+     */
+    @Test
+    public void testRectangularBoard() {
+        YGeometry geometry = new YGeometry(3, 4);
+        int[][] circleCells = geometry.getCircleCells();
+        int[] circles = new int[circleCells.length];
+        for (int c = 0; c < circles.length; ++c) {
+            for (int cell : circleCells[c]) {
+                circles[c] += cell + 1;
+            }
+        }
+        YPuzzle puzzle = new YPuzzle(geometry, circles, "Test");
+        for (int i = 0; i < 10; ++i) {
+            puzzle.getGrid().setCell(i, i + 1);
+        }
+        CompoundCommand result = new BasicEmptyCellByContradiction(puzzle).apply();
+        assertNotNull(result, "solvable");
+        assertEquals(11, puzzle.getGrid().getValue(10), "forced digit");
+    }
 }
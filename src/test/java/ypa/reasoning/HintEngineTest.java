@@ -0,0 +1,101 @@
+package ypa.reasoning;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.Scanner;
+import org.junit.jupiter.api.Test;
+import ypa.command.SetCommand;
+import ypa.generator.PuzzleGenerator;
+import ypa.model.YCell;
+import ypa.model.YGeometry;
+import ypa.model.YPuzzle;
+import ypa.solvers.BitmaskSearch;
+
+/**
+ * Test cases for {@link HintEngine}.
+ */
+public class HintEngineTest {
+
+    /** A puzzle with the unique solution 478/512/639. */
+    private static final String UNIQUE = "17 18 15 15 a 0 4 a 1 7 a 2 8 b 0 5 c 0 6";
+
+    @Test
+    public void testSingleEntry() {
+        YPuzzle puzzle = new YPuzzle(new Scanner(UNIQUE), "Test");
+        HintEngine engine = new HintEngine(puzzle);
+        HintEngine.Hint hint = engine.next();
+        assertAll(
+                () -> assertEquals(4, hint.getCell().getIndex(), "cell"),
+                () -> assertEquals(1, hint.getDigit(), "digit"),
+                () -> assertEquals("EntryWithOneEmptyCell", hint.getReasoner(), "reasoner"),
+                () -> assertNotNull(hint.getGroup(), "group"),
+                () -> assertEquals(YCell.EMPTY, puzzle.getGrid().getValue(4), "unchanged"),
+                () -> assertSame(hint, engine.next(), "cached")
+        );
+        puzzle.getGrid().setCell(4, 1);
+        assertNotEquals(4, engine.next().getCell().getIndex(), "new state");
+    }
+
+    @Test
+    public void testInvalid() {
+        YPuzzle puzzle = new YPuzzle(new Scanner("17 18 15 15 a 0 9 a 1 9"), "Test");
+        assertNull(new HintEngine(puzzle).next());
+    }
+
+    @Test
+    public void testHintsAgreeWithSolution() {
+        PuzzleGenerator generator = new PuzzleGenerator(YGeometry.STANDARD, new Random(5));
+        generator.setMinimize(true);
+        for (int i = 0; i < 300; ++i) {
+            YPuzzle puzzle = generator.generate();
+            BitmaskSearch search = new BitmaskSearch(puzzle.getGeometry(), puzzle.getCircles());
+            assertTrue(search.load(puzzle.getGrid()) && search.findFirst(), "solvable");
+            int[] solution = search.getValues();
+            String before = puzzle.toString();
+            HintEngine.Hint hint = new HintEngine(puzzle).next();
+            assertNotNull(hint, before);
+            assertEquals(before, puzzle.toString(), "unchanged");
+            assertEquals(solution[hint.getCell().getIndex()], hint.getDigit(), hint.toString());
+            Justification.check(puzzle, hint);
+        }
+    }
+
+    /**
+     * Checks of the justification of a hint on its named cell.
+     */
+    private static final class Justification {
+
+        /**
+         * Checks that the justification of a hint holds for its cell: every
+         * other digit leaves the puzzle unsolvable, and for a hint by single
+         * entries, every other candidate leads to a contradiction by them.
+         *
+         * @param puzzle  the puzzle
+         * @param hint  the hint for its current state
+         */
+        static void check(final YPuzzle puzzle, final HintEngine.Hint hint) {
+            YCell cell = hint.getCell();
+            BitmaskSearch search = new BitmaskSearch(puzzle.getGeometry(), puzzle.getCircles());
+            boolean bySingleEntries =
+                    hint.getReasoner().equals("GeneralizedEmptyCellByContradiction");
+            int candidates = cell.getDerivedCandidates();
+            for (int digit = 1; digit <= puzzle.getGrid().getMaxDigit(); ++digit) {
+                if (digit == hint.getDigit()) {
+                    continue;
+                }
+                SetCommand trial = new SetCommand(cell, digit);
+                trial.execute();
+                assertFalse(search.load(puzzle.getGrid()) && search.findFirst(),
+                        hint + ": " + digit + " solvable");
+                if (bySingleEntries && (candidates & 1 << digit) != 0) {
+                    assertNull(new FixpointReasoner(puzzle, new EntryWithOneEmptyCell(puzzle))
+                            .apply(), hint + ": " + digit + " consistent");
+                }
+                trial.revert();
+            }
+        }
+
+    }
+
+}
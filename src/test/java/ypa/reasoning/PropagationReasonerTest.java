@@ -0,0 +1,89 @@
+package ypa.reasoning;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Scanner;
+import org.junit.jupiter.api.Test;
+import ypa.command.CompoundCommand;
+import ypa.model.YCell;
+import ypa.model.YGrid;
+import ypa.model.YPuzzle;
+
+/**
+ * Test cases for {@link PropagationReasoner}.
+ */
+public class PropagationReasonerTest {
+
+    /** Circles of the grid with digits 1 to 9 in reading order. */
+    private static final String CIRCLES = "12 16 24 28";
+
+    @Test
+    public void testFillsForcedCells() {
+        YPuzzle puzzle = new YPuzzle(new Scanner(CIRCLES), "Test");
+        YGrid grid = puzzle.getGrid();
+        for (int i = 1; i < 8; i++) {
+            grid.setCell(i, i + 1);
+        }
+        CompoundCommand result = new PropagationReasoner(puzzle).apply();
+        assertAll(
+                () -> assertEquals(2, result.size(), "result.size()"),
+                () -> assertTrue(result.isExecuted(), "result.executed"),
+                () -> assertEquals(1, grid.getValue(0), "corner 0"),
+                () -> assertEquals(9, grid.getValue(8), "corner 8"),
+                () -> assertTrue(puzzle.isSolved() && puzzle.isValid(), "solved")
+        );
+    }
+
+    @Test
+    public void testContradiction() {
+        YPuzzle puzzle = new YPuzzle(new Scanner(CIRCLES), "Test");
+        YGrid grid = puzzle.getGrid();
+        grid.setCell(8, 1);
+        // circle 1 cannot make 12 with 9 and three more distinct digits
+        grid.setCell(0, 9);
+        CompoundCommand result = new PropagationReasoner(puzzle).apply();
+        assertAll(
+                () -> assertNull(result, "result"),
+                () -> assertEquals(9, grid.getValue(0), "cell 0 kept"),
+                () -> assertEquals(YCell.EMPTY, grid.getValue(4), "cell 4 not set")
+        );
+    }
+
+    @Test
+    public void testHiddenSinglesInTheirOwnCells() {
+        // 6 8 7 / 9 4 2 / . . . with unused digits 1, 3, 5:
+        // both 1 and 5 are hidden singles, in different cells
+        YPuzzle puzzle = new YPuzzle(new Scanner("27 21 21 10 a 0 6 b 0 9 b 1 4"), "Test");
+        CompoundCommand result = new PropagationReasoner(puzzle).apply();
+        YGrid grid = puzzle.getGrid();
+        assertAll(
+                () -> assertNotNull(result, "result"),
+                () -> assertEquals(5, grid.getValue(6), "cell 6"),
+                () -> assertEquals(3, grid.getValue(7), "cell 7"),
+                () -> assertEquals(1, grid.getValue(8), "cell 8"),
+                () -> assertTrue(puzzle.isSolved(), "solved")
+        );
+    }
+
+    @Test
+    public void testReachesFixpoint() {
+        // placing a digit also leaves cell 7, outside the groups of the
+        // placed cell, with a single candidate
+        YPuzzle puzzle = new YPuzzle(new Scanner("18 20 19 16 b 1 2 c 0 5 c 2 1"), "Test");
+        PropagationReasoner reasoner = new PropagationReasoner(puzzle);
+        CompoundCommand first = reasoner.apply();
+        CompoundCommand second = reasoner.apply();
+        assertAll(
+                () -> assertNotNull(first, "first"),
+                () -> assertNotEquals(YCell.EMPTY, puzzle.getGrid().getValue(7), "cell 7"),
+                () -> assertEquals(0, second.size(), "second.size()")
+        );
+    }
+
+    @Test
+    public void testNoProgressOnEmptyGrid() {
+        YPuzzle puzzle = new YPuzzle(new Scanner(CIRCLES), "Test");
+        CompoundCommand result = new PropagationReasoner(puzzle).apply();
+        assertEquals(0, result.size(), "result.size()");
+    }
+}
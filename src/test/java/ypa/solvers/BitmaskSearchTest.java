@@ -0,0 +1,188 @@
+package ypa.solvers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import ypa.model.YCell;
+import ypa.model.YGeometry;
+
+/**
+ * Test cases for {@link BitmaskSearch}.
+ */
+public class BitmaskSearchTest {
+
+    /** Circle sums of a puzzle with solution 312 / 895 / 476. */
+    private static final int[] CIRCLES = {21, 17, 28, 27};
+
+    /** Number of cells of the standard puzzle. */
+    private static final int CELLS = YGeometry.STANDARD.getCellCount();
+
+    /**
+     * Checks that the given digits form a solution for the given circles
+     * of the standard puzzle.
+     *
+     * @param circles  the circle sums
+     * @param digits  the digits of the cells
+     */
+    private static void assertSolution(final int[] circles, final int[] digits) {
+        assertSolution(YGeometry.STANDARD, circles, digits);
+    }
+
+    /**
+     * Checks that the given digits form a solution for the given circles.
+     *
+     * @param geometry  the board
+     * @param circles  the circle sums
+     * @param digits  the digits of the cells
+     */
+    private static void assertSolution(final YGeometry geometry, final int[] circles,
+            final int[] digits) {
+        int used = 0;
+        for (int digit : digits) {
+            assertTrue(1 <= digit && digit <= geometry.getMaxDigit(), "digit in range");
+            assertEquals(0, used & (1 << digit), "digit " + digit + " unique");
+            used |= 1 << digit;
+        }
+        for (int c = 0; c < circles.length; ++c) {
+            int sum = 0;
+            for (int cell : geometry.getCircleCells()[c]) {
+                sum += digits[cell];
+            }
+            assertEquals(circles[c], sum, "sum of circle " + c);
+        }
+    }
+
+    @Test
+    public void testFindFirstOnEmptyGrid() {
+        BitmaskSearch search = new BitmaskSearch(YGeometry.STANDARD, CIRCLES);
+        assertTrue(search.load(new int[CELLS]), "load");
+        assertTrue(search.findFirst(), "solvable");
+        assertSolution(CIRCLES, search.getValues());
+    }
+
+    @Test
+    public void testFindFirstOnLargerBoard() {
+        YGeometry geometry = new YGeometry(4, 4);
+        // circle sums of the grid 1..16 in reading order
+        int[] circles = {14, 18, 22, 30, 34, 38, 46, 50, 54};
+        BitmaskSearch search = new BitmaskSearch(geometry, circles);
+        assertEquals(16, search.getCellCount(), "cell count");
+        assertTrue(search.load(new int[16]), "load");
+        assertTrue(search.findFirst(), "solvable");
+        assertSolution(geometry, circles, search.getValues());
+    }
+
+    @Test
+    public void testDynamicOrdering() {
+        // the standard puzzle: both orders find the same solutions
+        BitmaskSearch byIndex = new BitmaskSearch(YGeometry.STANDARD, CIRCLES);
+        BitmaskSearch dynamic = new BitmaskSearch(YGeometry.STANDARD, CIRCLES);
+        dynamic.setDynamicOrdering(true);
+        byIndex.load(new int[CELLS]);
+        dynamic.load(new int[CELLS]);
+        assertEquals(byIndex.countSolutions(100), dynamic.countSolutions(100), "count");
+        assertTrue(dynamic.findFirst(), "solvable");
+        assertSolution(CIRCLES, dynamic.getValues());
+        // a larger board, dynamically ordered by default, from a shuffled filling
+        YGeometry geometry = new YGeometry(4, 4);
+        List<Integer> filling = new ArrayList<>();
+        for (int d = 1; d <= 16; ++d) {
+            filling.add(d);
+        }
+        Collections.shuffle(filling, new Random(23));
+        int[] circles = new int[geometry.getCircleCount()];
+        for (int c = 0; c < circles.length; ++c) {
+            for (int cell : geometry.getCircleCells()[c]) {
+                circles[c] += filling.get(cell);
+            }
+        }
+        BitmaskSearch large = new BitmaskSearch(geometry, circles);
+        BitmaskSearch largeByIndex = new BitmaskSearch(geometry, circles);
+        largeByIndex.setDynamicOrdering(false);
+        large.load(new int[16]);
+        largeByIndex.load(new int[16]);
+        assertEquals(largeByIndex.countSolutions(2), large.countSolutions(2), "large count");
+        assertTrue(large.findFirst(), "large solvable");
+        assertSolution(geometry, circles, large.getValues());
+        assertTrue(large.getNodeCount() < largeByIndex.getNodeCount(),
+                large.getNodeCount() + " < " + largeByIndex.getNodeCount());
+    }
+
+    @Test
+    public void testFindFirstKeepsGivens() {
+        BitmaskSearch search = new BitmaskSearch(YGeometry.STANDARD, new int[] {17, 18, 15, 15});
+        int[] digits = new int[CELLS];
+        digits[0] = 4;
+        digits[1] = 7;
+        assertTrue(search.load(digits), "load");
+        assertTrue(search.findFirst(), "solvable");
+        int[] values = search.getValues();
+        assertAll(
+                () -> assertEquals(4, values[0], "given 0"),
+                () -> assertEquals(7, values[1], "given 1"),
+                () -> assertSolution(new int[] {17, 18, 15, 15}, values)
+        );
+    }
+
+    @Test
+    public void testUnsolvable() {
+        BitmaskSearch search = new BitmaskSearch(YGeometry.STANDARD, new int[] {1, 2, 3, 4});
+        assertFalse(search.load(new int[CELLS]), "load");
+        assertFalse(search.findFirst(), "unsolvable");
+    }
+
+    @Test
+    public void testDuplicateGivens() {
+        BitmaskSearch search = new BitmaskSearch(YGeometry.STANDARD, CIRCLES);
+        int[] digits = new int[CELLS];
+        digits[0] = 5;
+        digits[8] = 5;
+        assertFalse(search.load(digits), "duplicate digits");
+    }
+
+    @Test
+    public void testFailedSearchRestoresState() {
+        BitmaskSearch search = new BitmaskSearch(YGeometry.STANDARD, CIRCLES);
+        int[] digits = new int[CELLS];
+        digits[4] = 1;
+        search.load(digits);
+        assertFalse(search.findFirst(), "centre 1 cannot make 28");
+        for (int i = 0; i < CELLS; ++i) {
+            assertEquals(i == 4 ? 1 : YCell.EMPTY, search.getValue(i), "cell " + i);
+        }
+    }
+
+    @Test
+    public void testCountSolutions() {
+        BitmaskSearch search = new BitmaskSearch(YGeometry.STANDARD, CIRCLES);
+        assertTrue(search.load(new int[CELLS]), "load");
+        int all = search.countSolutions(Integer.MAX_VALUE);
+        assertAll(
+                () -> assertTrue(all >= 1, "at least one solution"),
+                () -> assertEquals(1, search.countSolutions(1), "limit 1"),
+                () -> assertEquals(YCell.EMPTY, search.getValue(0), "state restored")
+        );
+        int[] streamed = new int[1];
+        int passed = search.forEachSolution(digits -> {
+            assertSolution(CIRCLES, digits);
+            streamed[0]++;
+            return true;
+        });
+        assertAll(
+                () -> assertEquals(all, passed, "all streamed"),
+                () -> assertEquals(all, streamed[0], "listener calls")
+        );
+    }
+
+    @Test
+    public void testForEachSolutionStops() {
+        BitmaskSearch search = new BitmaskSearch(YGeometry.STANDARD, CIRCLES);
+        search.load(new int[CELLS]);
+        assertEquals(1, search.forEachSolution(digits -> false), "stopped after one");
+        assertEquals(1, search.countSolutions(1), "can count again");
+    }
+}
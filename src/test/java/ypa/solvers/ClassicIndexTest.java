@@ -0,0 +1,82 @@
+package ypa.solvers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
+import org.junit.jupiter.api.Test;
+import ypa.model.YCell;
+import ypa.model.YGeometry;
+import ypa.model.YPuzzle;
+
+/**
+ * Test cases for {@link ClassicIndex}.
+ */
+public class ClassicIndexTest {
+
+    @Test
+    public void testKnownPuzzles() {
+        ClassicIndex index = ClassicIndex.get();
+        int[] circles = {17, 18, 15, 15};
+        assertAll(
+                () -> assertArrayEquals(new int[] {4, 7, 8, 5, 1, 2, 6, 3, 9},
+                        index.findFirst(circles, new int[] {4, 7, 8, 5, 0, 0, 6, 0, 0}),
+                        "unique"),
+                () -> assertEquals(1,
+                        index.count(circles, new int[] {4, 7, 8, 5, 0, 0, 6, 0, 0}, 2),
+                        "count"),
+                () -> assertEquals(2, index.count(circles, new int[9], 2), "limit"),
+                () -> assertEquals(0,
+                        index.count(circles, new int[] {9, 8, 0, 0, 0, 0, 0, 0, 0}, 2),
+                        "not solvable"),
+                () -> assertEquals(0,
+                        index.count(circles, new int[] {9, 9, 0, 0, 0, 0, 0, 0, 0}, 2),
+                        "duplicate"),
+                () -> assertEquals(0, index.count(new int[] {5, 18, 15, 15}), "out of range"),
+                () -> assertNull(index.findFirst(new int[] {40, 18, 15, 15}, new int[9]),
+                        "none")
+        );
+    }
+
+    @Test
+    public void testAgreesWithSearch() {
+        ClassicIndex index = ClassicIndex.get();
+        Random random = new Random(21);
+        for (int i = 0; i < 200; ++i) {
+            int[] circles = new int[4];
+            for (int c = 0; c < circles.length; ++c) {
+                circles[c] = 12 + random.nextInt(17);
+            }
+            int[] digits = new int[9];
+            digits[random.nextInt(9)] = 1 + random.nextInt(9);
+            digits[8] = random.nextBoolean() ? 0 : 1 + random.nextInt(9);
+            BitmaskSearch search = new BitmaskSearch(YGeometry.STANDARD, circles);
+            int expected = search.load(digits) ? search.countSolutions(Integer.MAX_VALUE) : 0;
+            int[] first = index.findFirst(circles, digits);
+            int[] given = digits;
+            assertEquals(expected, index.count(circles, digits, Integer.MAX_VALUE),
+                    () -> Arrays.toString(circles) + Arrays.toString(given));
+            assertEquals(expected > 0, first != null, "found");
+            for (int cell = 0; expected > 0 && cell < 9; ++cell) {
+                assertTrue(digits[cell] == YCell.EMPTY || digits[cell] == first[cell], "given");
+            }
+        }
+    }
+
+    @Test
+    public void testSolverUsesIndex() {
+        YPuzzle puzzle = new YPuzzle(new Scanner("17 18 15 15"), "Test");
+        YBacktrackSolver solver = new YBacktrackSolver(puzzle, null);
+        int[] count = new int[1];
+        int passed = solver.findSolutions(digits -> ++count[0] < 3);
+        assertAll(
+                () -> assertEquals(ClassicIndex.get().count(puzzle.getCircles()),
+                        solver.countSolutions(Integer.MAX_VALUE), "count"),
+                () -> assertEquals(3, passed, "stopped"),
+                () -> assertTrue(solver.isSolvable(), "solvable"),
+                () -> assertTrue(solver.solve(), "solved")
+        );
+    }
+
+}
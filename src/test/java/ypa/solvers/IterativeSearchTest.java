@@ -0,0 +1,125 @@
+package ypa.solvers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import ypa.model.YGeometry;
+
+/**
+ * Test cases for {@link IterativeSearch}.
+ */
+public class IterativeSearchTest {
+
+    /** Circle sums of a puzzle with many solutions. */
+    private static final int[] CIRCLES = {17, 18, 15, 15};
+
+    /** Number of cells of the standard puzzle. */
+    private static final int CELLS = YGeometry.STANDARD.getCellCount();
+
+    /**
+     * Collects all solutions with a recursive search.
+     *
+     * @return the solutions, in the order found
+     */
+    private static List<String> expected() {
+        List<String> result = new ArrayList<>();
+        BitmaskSearch search = new BitmaskSearch(YGeometry.STANDARD, CIRCLES);
+        search.load(new int[CELLS]);
+        search.forEachSolution(digits -> result.add(Arrays.toString(digits)));
+        return result;
+    }
+
+    @Test
+    public void testStepsMatchRecursiveSearch() {
+        List<String> solutions = new ArrayList<>();
+        IterativeSearch search = new IterativeSearch(YGeometry.STANDARD, CIRCLES,
+                digits -> solutions.add(Arrays.toString(digits)));
+        assertTrue(search.load(new int[CELLS]), "load");
+        double progress = search.getProgress();
+        assertEquals(0, progress, "start");
+        while (!search.isFinished()) {
+            assertTrue(search.step(7) <= 7, "slice");
+            assertTrue(search.getProgress() >= progress, "monotonic");
+            progress = search.getProgress();
+        }
+        assertAll(
+                () -> assertEquals(expected(), solutions, "solutions"),
+                () -> assertEquals(solutions.size(), search.getSolutionCount(), "count"),
+                () -> assertEquals(1, search.getProgress(), "done"),
+                () -> assertEquals(0, search.step(10), "no more nodes")
+        );
+    }
+
+    @Test
+    public void testPauseAndResume() {
+        IterativeSearch[] holder = new IterativeSearch[1];
+        holder[0] = new IterativeSearch(YGeometry.STANDARD, CIRCLES, digits -> {
+            holder[0].pause();
+            return true;
+        });
+        IterativeSearch search = holder[0];
+        search.load(new int[CELLS]);
+        search.run();
+        assertAll(
+                () -> assertTrue(search.isPaused(), "paused"),
+                () -> assertFalse(search.isFinished(), "not finished"),
+                () -> assertEquals(1, search.getSolutionCount(), "first solution")
+        );
+        assertEquals(0, search.run(), "stays paused");
+        search.resume();
+        assertEquals(2, search.getSolutionCount(), "second solution");
+    }
+
+    @Test
+    public void testCheckpoint() throws IOException, ClassNotFoundException {
+        List<String> solutions = new ArrayList<>();
+        IterativeSearch search = new IterativeSearch(YGeometry.STANDARD, CIRCLES,
+                digits -> solutions.add(Arrays.toString(digits)));
+        search.load(new int[CELLS]);
+        search.step(300);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(search.checkpoint());
+        }
+        IterativeSearch.Checkpoint checkpoint;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            checkpoint = (IterativeSearch.Checkpoint) in.readObject();
+        }
+        assertEquals(300, checkpoint.getNodeCount(), "nodes");
+        IterativeSearch restored = IterativeSearch.restore(checkpoint,
+                digits -> solutions.add(Arrays.toString(digits)));
+        assertEquals(search.getProgress(), restored.getProgress(), "progress");
+        restored.run();
+        assertAll(
+                () -> assertEquals(expected(), solutions, "solutions"),
+                () -> assertEquals(solutions.size(), restored.getSolutionCount(), "count")
+        );
+    }
+
+    @Test
+    public void testStopAndInconsistent() {
+        IterativeSearch search = new IterativeSearch(YGeometry.STANDARD, CIRCLES,
+                digits -> false);
+        search.load(new int[CELLS]);
+        search.run();
+        assertAll(
+                () -> assertTrue(search.isFinished(), "stopped"),
+                () -> assertEquals(1, search.getSolutionCount(), "one solution")
+        );
+        int[] duplicate = new int[CELLS];
+        duplicate[0] = 9;
+        duplicate[1] = 9;
+        assertFalse(search.load(duplicate), "inconsistent");
+        assertTrue(search.isFinished(), "finished");
+    }
+
+}
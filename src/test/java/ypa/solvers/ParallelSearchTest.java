@@ -0,0 +1,94 @@
+package ypa.solvers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+
+/**
+ * Test cases for {@link ParallelSearch}.
+ */
+public class ParallelSearchTest {
+
+    /** Circle sums of the grid 1..9 in reading order. */
+    private static final int[] CIRCLES = {12, 16, 24, 28};
+
+    /**
+     * Counts the solutions of an empty standard grid sequentially.
+     *
+     * @param circles  the circle sums
+     * @return the number of solutions
+     */
+    private static int sequentialCount(final int[] circles) {
+        BitmaskSearch search = new BitmaskSearch(YGeometry.STANDARD, circles);
+        search.load(new int[YGeometry.STANDARD.getCellCount()]);
+        return search.countSolutions(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testCountMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int depth = 0; depth <= 4; ++depth) {
+            ParallelSearch search = new ParallelSearch(YGeometry.STANDARD, CIRCLES, pool, depth);
+            assertEquals(sequentialCount(CIRCLES),
+                    search.countSolutions(new YGrid(), Long.MAX_VALUE), "depth " + depth);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCountWithLimit() {
+        ParallelSearch search = new ParallelSearch(YGeometry.STANDARD, CIRCLES);
+        assertEquals(Math.min(2, sequentialCount(CIRCLES)),
+                search.countSolutions(new YGrid(), 2), "limit 2");
+    }
+
+    @Test
+    public void testFindFirstStopsAllTasks() {
+        ParallelSearch search = new ParallelSearch(YGeometry.STANDARD, CIRCLES);
+        AtomicInteger calls = new AtomicInteger();
+        long passed = search.forEachSolution(new YGrid(), digits -> {
+            calls.incrementAndGet();
+            return false;
+        });
+        assertAll(
+                () -> assertEquals(1, passed, "passed"),
+                () -> assertEquals(1, calls.get(), "listener calls")
+        );
+        int[] digits = search.findFirst(new YGrid());
+        assertNotNull(digits, "solution");
+        BitmaskSearch check = new BitmaskSearch(YGeometry.STANDARD, CIRCLES);
+        assertTrue(check.load(digits), "solution is consistent");
+    }
+
+    @Test
+    public void testCancelBeforeRun() {
+        ParallelSearch search = new ParallelSearch(YGeometry.STANDARD, CIRCLES);
+        search.cancel();
+        AtomicInteger calls = new AtomicInteger();
+        long passed = search.forEachSolution(new YGrid(), digits -> calls.incrementAndGet() > 0);
+        assertAll(
+                () -> assertEquals(0, passed, "passed"),
+                () -> assertEquals(0, calls.get(), "listener calls"),
+                () -> assertNull(search.findFirst(new YGrid()), "later run")
+        );
+    }
+
+    @Test
+    public void testLargerBoard() {
+        YGeometry geometry = new YGeometry(4, 4);
+        // circle sums of the grid 1..16 in reading order
+        int[] circles = {14, 18, 22, 30, 34, 38, 46, 50, 54};
+        ParallelSearch search = new ParallelSearch(geometry, circles);
+        YGrid grid = new YGrid(geometry);
+        int[] digits = search.findFirst(grid);
+        assertNotNull(digits, "solution");
+        assertTrue(search.getNodeCount() > 0, "nodes");
+        BitmaskSearch check = new BitmaskSearch(geometry, circles);
+        assertTrue(check.load(digits), "solution is consistent");
+    }
+
+}
@@ -0,0 +1,164 @@
+package ypa.solvers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import ypa.model.Symmetry;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+
+/**
+ * Test cases for {@link SolutionCache}.
+ */
+public class SolutionCacheTest {
+
+    /** Circle sums of a puzzle with solution 312 / 895 / 476. */
+    private static final int[] CIRCLES = {21, 17, 28, 27};
+
+    /**
+     * Gets the circle sums of the grid of a geometry filled with 1, 2, ...
+     *
+     * @param geometry  the geometry
+     * @return the circle sums of that filling
+     */
+    private static int[] circlesOfFilling(final YGeometry geometry) {
+        int[][] circleCells = geometry.getCircleCells();
+        int[] circles = new int[circleCells.length];
+        for (int c = 0; c < circles.length; ++c) {
+            for (int cell : circleCells[c]) {
+                circles[c] += cell + 1;
+            }
+        }
+        return circles;
+    }
+
+    @Test
+    public void testLookup() {
+        SolutionCache cache = new SolutionCache(4);
+        YGeometry geometry = new YGeometry(4, 3);
+        int[] circles = circlesOfFilling(geometry);
+        YGrid grid = new YGrid(geometry);
+        SolutionCache.Entry first = cache.lookup(circles, grid);
+        SolutionCache.Entry second = cache.lookup(circles, grid);
+        assertAll(
+                () -> assertTrue(first.isSolvable(), "solvable"),
+                () -> assertEquals(12, first.getSolution().length, "solution"),
+                () -> assertEquals(SolutionCache.UNKNOWN, first.getCount(), "count"),
+                () -> assertArrayEquals(first.getSolution(), second.getSolution(), "same entry"),
+                () -> assertEquals(1, cache.getHits(), "hits"),
+                () -> assertEquals(1, cache.getMisses(), "misses")
+        );
+        int[] impossible = new int[circles.length];
+        SolutionCache.Entry unsolvable = cache.lookup(impossible, grid);
+        assertAll(
+                () -> assertFalse(unsolvable.isSolvable(), "unsolvable"),
+                () -> assertNull(unsolvable.getSolution(), "no solution"),
+                () -> assertEquals(2, cache.size(), "size")
+        );
+    }
+
+    @Test
+    public void testSymmetricGridsShareEntry() {
+        SolutionCache cache = new SolutionCache(4);
+        YGeometry geometry = new YGeometry(3, 4);
+        int[] circles = circlesOfFilling(geometry);
+        YGrid grid = new YGrid(geometry);
+        grid.setCell(0, 1);
+        SolutionCache.Entry entry = cache.lookup(circles, grid);
+        // the same puzzle, turned upside down and mirrored
+        int[] turned = Symmetry.ROTATE_180.applyToCircles(geometry, circles);
+        YGrid turnedGrid = new YGrid(geometry);
+        turnedGrid.setCell(geometry.getCellCount() - 1, 1);
+        SolutionCache.Entry turnedEntry = cache.lookup(turned, turnedGrid);
+        assertAll(
+                () -> assertEquals(1, cache.size(), "one entry"),
+                () -> assertEquals(1, cache.getHits(), "hit"),
+                () -> assertArrayEquals(Symmetry.ROTATE_180.applyToCells(geometry,
+                        entry.getSolution()), turnedEntry.getSolution(), "mapped solution")
+        );
+    }
+
+    @Test
+    public void testGeometryIsPartOfKey() {
+        SolutionCache cache = new SolutionCache(4);
+        int[] circles = {12, 16};
+        YGeometry wide = new YGeometry(2, 3);
+        YGeometry tall = new YGeometry(3, 2);
+        SolutionCache.Entry wideEntry = cache.lookup(circles, new YGrid(wide));
+        SolutionCache.Entry tallEntry = cache.lookup(circles, new YGrid(tall));
+        int[] sums = new int[circles.length];
+        int[][] circleCells = tall.getCircleCells();
+        for (int c = 0; c < sums.length; ++c) {
+            for (int cell : circleCells[c]) {
+                sums[c] += tallEntry.getSolution()[cell];
+            }
+        }
+        assertAll(
+                () -> assertTrue(wideEntry.isSolvable(), "wide solvable"),
+                () -> assertEquals(0, cache.getHits(), "no hit"),
+                () -> assertEquals(2, cache.size(), "two entries"),
+                () -> assertArrayEquals(circles, sums, "tall solution")
+        );
+        SolutionCache raw = new SolutionCache(4);
+        raw.put(wide, circles, 5L, wideEntry);
+        assertNull(raw.get(tall, circles, 5L), "raw key");
+    }
+
+    @Test
+    public void testCanonicalFormsOfOtherDigitRangesDoNotShare() {
+        SolutionCache cache = new SolutionCache(4);
+        YGeometry geometry = new YGeometry(3, 4);
+        YGeometry wider = new YGeometry(3, 4, 13);
+        int[] circles = circlesOfFilling(geometry);
+        cache.lookup(circles, new YGrid(geometry));
+        cache.put(circles, new YGrid(wider), new SolutionCache.Entry(false, 0, null));
+        assertAll(
+                () -> assertEquals(2, cache.size(), "two entries"),
+                () -> assertTrue(cache.get(circles, new YGrid(geometry)).isSolvable(), "12"),
+                () -> assertFalse(cache.get(circles, new YGrid(wider)).isSolvable(), "13")
+        );
+    }
+
+    @Test
+    public void testClassicLookupUsesIndex() {
+        SolutionCache cache = new SolutionCache(4);
+        SolutionCache.Entry entry = cache.lookup(CIRCLES, new YGrid());
+        assertAll(
+                () -> assertTrue(entry.isSolvable(), "solvable"),
+                () -> assertEquals(9, entry.getSolution().length, "solution"),
+                () -> assertEquals(ClassicIndex.get().count(CIRCLES), entry.getCount(), "count"),
+                () -> assertEquals(0, cache.getMisses(), "not searched"),
+                () -> assertEquals(0, cache.size(), "not cached")
+        );
+    }
+
+    @Test
+    public void testEviction() {
+        SolutionCache cache = new SolutionCache(2);
+        SolutionCache.Entry entry = new SolutionCache.Entry(false, 0, null);
+        cache.put(YGeometry.STANDARD, CIRCLES, 1L, entry);
+        cache.put(YGeometry.STANDARD, CIRCLES, 2L, entry);
+        cache.get(YGeometry.STANDARD, CIRCLES, 1L); // 2 is now least recently used
+        cache.put(YGeometry.STANDARD, CIRCLES, 3L, entry);
+        assertAll(
+                () -> assertEquals(2, cache.size(), "size"),
+                () -> assertNotNull(cache.get(YGeometry.STANDARD, CIRCLES, 1L), "1 kept"),
+                () -> assertNull(cache.get(YGeometry.STANDARD, CIRCLES, 2L), "2 evicted"),
+                () -> assertNotNull(cache.get(YGeometry.STANDARD, CIRCLES, 3L), "3 kept")
+        );
+    }
+
+    @Test
+    public void testMergeKeepsCount() {
+        SolutionCache cache = new SolutionCache(2);
+        cache.put(YGeometry.STANDARD, CIRCLES, 1L, new SolutionCache.Entry(true, 3, null));
+        cache.put(YGeometry.STANDARD, CIRCLES, 1L,
+                new SolutionCache.Entry(true, SolutionCache.UNKNOWN,
+                        new int[] {3, 1, 2, 8, 9, 5, 4, 7, 6}));
+        SolutionCache.Entry merged = cache.get(YGeometry.STANDARD, CIRCLES, 1L);
+        assertAll(
+                () -> assertEquals(3, merged.getCount(), "count"),
+                () -> assertEquals(3, merged.getSolution()[0], "solution")
+        );
+    }
+}
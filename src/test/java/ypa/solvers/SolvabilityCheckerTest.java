@@ -0,0 +1,58 @@
+package ypa.solvers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import ypa.model.YCell;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
+
+/**
+ * Test cases for {@link SolvabilityChecker}.
+ */
+public class SolvabilityCheckerTest {
+
+    /** Circle sums of a puzzle with solution 312 / 895 / 476. */
+    private static final int[] CIRCLES = {21, 17, 28, 27};
+
+    /** The first seven cells of that solution. */
+    private static final int[] GIVENS = {3, 1, 2, 8, 9, 5, 4};
+
+    private static YGrid givenGrid() {
+        YGrid grid = new YGrid();
+        for (int i = 0; i < GIVENS.length; i++) {
+            grid.setCell(i, GIVENS[i]);
+        }
+        return grid;
+    }
+
+    @Test
+    public void testMemo() {
+        SolvabilityChecker checker = new SolvabilityChecker(YGeometry.STANDARD, CIRCLES);
+        YGrid grid = new YGrid();
+        assertTrue(checker.isSolvable(grid), "empty grid");
+        assertTrue(checker.isSolvable(grid), "empty grid again");
+        assertEquals(1, checker.getSearchCount(), "searches");
+    }
+
+    @Test
+    public void testTrials() {
+        SolvabilityChecker checker = new SolvabilityChecker(YGeometry.STANDARD, CIRCLES);
+        YGrid grid = givenGrid();
+        assertTrue(checker.isSolvable(grid), "givens");
+        // agrees with the solution just found, so no new search is needed
+        assertTrue(checker.isSolvable(grid, 7, 7), "7 in cell 7");
+        assertEquals(1, checker.getSearchCount(), "searches");
+        assertFalse(checker.isSolvable(grid, 7, 6), "6 in cell 7");
+        assertAll(
+                () -> assertEquals(2, checker.getSearchCount(), "searches"),
+                () -> assertEquals(YCell.EMPTY, grid.getValue(7), "grid unchanged"),
+                () -> assertTrue(checker.hasCircles(YGeometry.STANDARD, CIRCLES.clone()),
+                        "circles"),
+                () -> assertFalse(checker.hasCircles(YGeometry.STANDARD, new int[] {1, 2, 3, 4}),
+                        "other circles"),
+                () -> assertFalse(checker.hasCircles(new YGeometry(3, 3, 10), CIRCLES),
+                        "other digits")
+        );
+    }
+}
@@ -0,0 +1,101 @@
+package ypa.solvers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import ypa.model.YCell;
+import ypa.model.YGeometry;
+import ypa.model.YPuzzle;
+
+/**
+ * Test cases for {@link SolverService}.
+ */
+public class SolverServiceTest {
+
+    /** A puzzle with the unique solution 478/512/639. */
+    private static final String UNIQUE = "17 18 15 15 a 0 4 a 1 7 a 2 8 b 0 5 c 0 6";
+
+    @Test
+    public void testSolve() throws Exception {
+        SolverService service = new SolverService();
+        YPuzzle puzzle = new YPuzzle(new Scanner(UNIQUE), "Test");
+        SolverService.Result result = service.submit(puzzle).get(10, TimeUnit.SECONDS);
+        assertAll(
+                () -> assertTrue(result.isSolved(), "solved"),
+                () -> assertArrayEquals(new int[] {4, 7, 8, 5, 1, 2, 6, 3, 9},
+                        result.getSolution(), "solution"),
+                () -> assertTrue(result.getNodeCount() > 0, "nodes"),
+                () -> assertTrue(result.isFor(puzzle.getGrid()), "for puzzle"),
+                () -> assertEquals(YCell.EMPTY, puzzle.getGrid().getValue(4), "unchanged")
+        );
+        puzzle.getGrid().setCell(4, 1);
+        assertFalse(result.isFor(puzzle.getGrid()), "for changed puzzle");
+        service.shutdown();
+    }
+
+    @Test
+    public void testNotSolvable() throws Exception {
+        SolverService service = new SolverService();
+        YPuzzle puzzle = new YPuzzle(new Scanner("17 18 15 15 a 0 9 a 1 8"), "Test");
+        assertFalse(service.submit(puzzle).get(10, TimeUnit.SECONDS).isSolved());
+        service.shutdown();
+    }
+
+    @Test
+    public void testLargeBoardInParallel() throws Exception {
+        YGeometry geometry = new YGeometry(4, 5);
+        assertTrue(geometry.getCellCount() > SolverService.PARALLEL_CELLS, "large");
+        int[][] circleCells = geometry.getCircleCells();
+        int[] circles = new int[circleCells.length];
+        for (int c = 0; c < circles.length; ++c) {
+            for (int cell : circleCells[c]) {
+                circles[c] += cell + 1;
+            }
+        }
+        YPuzzle puzzle = new YPuzzle(geometry, circles, "Test");
+        for (int i = 0; i < 10; ++i) {
+            puzzle.getGrid().setCell(i, i + 1);
+        }
+        SolverService service = new SolverService();
+        SolverService.Result result = service.submit(puzzle).get(30, TimeUnit.SECONDS);
+        assertTrue(result.isSolved(), "solved");
+        int[] solution = result.getSolution();
+        BitmaskSearch check = new BitmaskSearch(geometry, circles);
+        assertAll(
+                () -> assertEquals(1, solution[0], "given kept"),
+                () -> assertTrue(check.load(solution), "solution is consistent"),
+                () -> assertTrue(result.getNodeCount() > 0, "nodes")
+        );
+        service.shutdown();
+    }
+
+    @Test
+    public void testSubmitCancelsPrevious() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        SolverService service = new SolverService(executor);
+        YPuzzle puzzle = new YPuzzle(new Scanner(UNIQUE), "Test");
+        CompletableFuture<SolverService.Result> first = service.submit(puzzle);
+        CompletableFuture<SolverService.Result> second = service.submit(puzzle);
+        release.countDown();
+        assertTrue(second.get(10, TimeUnit.SECONDS).isSolved(), "second solved");
+        assertTrue(first.isCancelled(), "first cancelled");
+        service.cancel();
+        service.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS), "terminated");
+    }
+
+}
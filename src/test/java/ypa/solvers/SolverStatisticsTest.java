@@ -0,0 +1,100 @@
+package ypa.solvers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Scanner;
+import org.junit.jupiter.api.Test;
+import ypa.model.YPuzzle;
+import ypa.reasoning.BasicEmptyCellByContradiction;
+import ypa.reasoning.FixpointReasoner;
+import ypa.reasoning.Reasoner;
+
+/**
+ * Test cases for {@link SolverStatistics}.
+ */
+public class SolverStatisticsTest {
+
+    /**
+     * Gets the classic puzzle with a unique solution, with givens.
+     *
+     * @return the puzzle
+     */
+    private static YPuzzle puzzle() {
+        YPuzzle puzzle = new YPuzzle(new Scanner("17 18 15 15"), "Test");
+        puzzle.getGrid().setCell(0, 4);
+        puzzle.getGrid().setCell(6, 6);
+        return puzzle;
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        YBitmaskSolver solver = new YBitmaskSolver(puzzle());
+        assertTrue(solver.solve(), "solved");
+        assertNull(solver.getStatistics(), "statistics");
+    }
+
+    @Test
+    public void testSearch() {
+        YBitmaskSolver solver = new YBitmaskSolver(puzzle());
+        solver.setStatisticsEnabled(true);
+        assertTrue(solver.solve(), "solved");
+        SolverStatistics statistics = solver.getStatistics();
+        assertAll(
+                () -> assertTrue(statistics.getNodes() > 0, "nodes"),
+                () -> assertEquals(7, statistics.getMaxDepth(), "depth"),
+                () -> assertTrue(statistics.getBacktracks() < statistics.getNodes(), "backtracks"),
+                () -> assertTrue(statistics.getPrunes() > 0, "prunes"),
+                () -> assertTrue(statistics.getWallNanos() > 0, "time"),
+                () -> assertFalse(statistics.isRunning(), "stopped")
+        );
+    }
+
+    @Test
+    public void testClassicIndexCountsAsCacheHit() {
+        YBacktrackSolver solver = new YBacktrackSolver(puzzle(), null);
+        solver.setStatisticsEnabled(true);
+        assertTrue(solver.solve(), "solved");
+        SolverStatistics statistics = solver.getStatistics();
+        assertAll(
+                () -> assertEquals(1, statistics.getCacheHits(), "hits"),
+                () -> assertEquals(0, statistics.getNodes(), "nodes")
+        );
+    }
+
+    @Test
+    public void testReasoner() {
+        YPuzzle puzzle = puzzle();
+        Reasoner reasoner = new FixpointReasoner(puzzle,
+                new BasicEmptyCellByContradiction(puzzle));
+        SolverStatistics statistics = new SolverStatistics();
+        reasoner.setStatistics(statistics);
+        int empty = puzzle.getGrid().getSize() - 2;
+        assertEquals(empty, reasoner.apply().getCells().size(), "solved");
+        assertAll(
+                () -> assertEquals(empty, statistics.getDeductions(), "deductions"),
+                () -> assertTrue(statistics.getPrunes(SolverStatistics.Prune.CONTRADICTION) > 0,
+                        "refuted trials"),
+                () -> assertTrue(statistics.getCacheHits() + statistics.getCacheMisses() > 0,
+                        "checks")
+        );
+    }
+
+    @Test
+    public void testNestedMeasurement() {
+        SolverStatistics statistics = new SolverStatistics();
+        statistics.start();
+        statistics.start();
+        statistics.stop();
+        assertTrue(statistics.isRunning(), "outer running");
+        statistics.stop();
+        assertFalse(statistics.isRunning(), "stopped");
+        statistics.node(3);
+        statistics.reset();
+        assertAll(
+                () -> assertEquals(0, statistics.getNodes(), "nodes"),
+                () -> assertEquals(0, statistics.getMaxDepth(), "depth"),
+                () -> assertEquals(0, statistics.getWallNanos(), "time")
+        );
+    }
+
+}
@@ -0,0 +1,72 @@
+package ypa.solvers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import ypa.model.YPuzzle;
+
+/**
+ * Test cases for {@link ValidationService}.
+ */
+public class ValidationServiceTest {
+
+    /**
+     * Requests a check and waits for its verdict.
+     *
+     * @param text  the puzzle text
+     * @return the verdict
+     * @throws InterruptedException  if interrupted while waiting
+     */
+    private static ValidationService.Verdict check(final String text)
+            throws InterruptedException {
+        ValidationService service = new ValidationService(0, Runnable::run);
+        List<ValidationService.Verdict> verdicts = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        service.request(new YPuzzle(new Scanner(text), "Test"), verdict -> {
+            verdicts.add(verdict);
+            done.countDown();
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS), "published");
+        service.shutdown();
+        return verdicts.get(0);
+    }
+
+    @Test
+    public void testVerdicts() throws InterruptedException {
+        assertAll(
+                () -> assertEquals(ValidationService.Verdict.UNIQUE,
+                        check("17 18 15 15 a 0 4 a 1 7 a 2 8 b 0 5 c 0 6"), "unique"),
+                () -> assertEquals(ValidationService.Verdict.MULTIPLE,
+                        check("17 18 15 15"), "multiple"),
+                () -> assertEquals(ValidationService.Verdict.NOT_SOLVABLE,
+                        check("17 18 15 15 a 0 9 a 1 8"), "not solvable")
+        );
+    }
+
+    @Test
+    public void testOnlyLatestIsPublished() throws InterruptedException {
+        ValidationService service = new ValidationService(100, Runnable::run);
+        YPuzzle puzzle = new YPuzzle(new Scanner("17 18 15 15"), "Test");
+        List<ValidationService.Verdict> verdicts = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 5; ++i) {
+            service.request(puzzle, verdicts::add);
+        }
+        // the last edit makes the puzzle unsolvable
+        puzzle.getGrid().setCell(0, 9);
+        puzzle.getGrid().setCell(1, 8);
+        service.request(puzzle, verdict -> {
+            verdicts.add(verdict);
+            done.countDown();
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS), "published");
+        service.shutdown();
+        assertEquals(List.of(ValidationService.Verdict.NOT_SOLVABLE), verdicts);
+    }
+
+}
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.Scanner;
 import org.junit.jupiter.api.Test;
+import ypa.model.YGeometry;
+import ypa.model.YGrid;
 import ypa.model.YPuzzle;
 import ypa.reasoning.Reasoner;
 
@@ -45,4 +47,47 @@ public class YBacktrackSolverTest {
         boolean result = instance.solve();
         assertEquals(expResult, result, "return value");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCountSolutions() {
+        YPuzzle puzzle = new YPuzzle(new Scanner("21 17 28 27"), "Test");
+        int[] givens = {3, 1, 2, 8, 9, 5, 4};
+        for (int i = 0; i < givens.length; i++) {
+            puzzle.getGrid().setCell(i, givens[i]);
+        }
+        YBacktrackSolver instance = new YBacktrackSolver(puzzle, null);
+        assertAll(
+                () -> assertEquals(1, instance.countSolutions(2), "unique"),
+                () -> assertEquals(1, instance.countSolutions(2), "cached"),
+                () -> assertEquals(1, instance.findSolutions(digits -> true), "streamed")
+        );
+        YPuzzle unsolvable = new YPuzzle(new Scanner("1 2 3 4"), "Test");
+        assertEquals(0, new YBacktrackSolver(unsolvable, null).countSolutions(2), "none");
+    }
+
+    @Test
+    public void testCountThenSolveRectangularBoard() {
+        YGeometry geometry = new YGeometry(3, 4);
+        int[][] circleCells = geometry.getCircleCells();
+        int[] circles = new int[circleCells.length];
+        for (int c = 0; c < circles.length; ++c) {
+            for (int cell : circleCells[c]) {
+                circles[c] += cell + 1;
+            }
+        }
+        YPuzzle puzzle = new YPuzzle(geometry, circles, "Test");
+        for (int i = 0; i < 8; ++i) {
+            puzzle.getGrid().setCell(i, i + 1);
+        }
+        SolutionCache.shared().clear();
+        YBacktrackSolver instance = new YBacktrackSolver(puzzle, null);
+        assertEquals(2, instance.countSolutions(100), "counted and cached");
+        YBacktrackSolver solver = new YBacktrackSolver(puzzle, null);
+        assertTrue(solver.solve(), "solved from the cache");
+        YGrid solution = solver.getBackgroundGrid();
+        for (int i = 0; i < 8; ++i) {
+            assertEquals(i + 1, solution.getValue(i), "given " + i);
+        }
+        assertTrue(solution.isFull(), "full");
+    }
+}